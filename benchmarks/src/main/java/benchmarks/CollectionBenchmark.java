@@ -0,0 +1,51 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import server.models.account.Collection;
+import server.models.card.Card;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionBenchmark {
+    private static final String USERNAME = "benchmark";
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private Collection collection;
+    private String ownedCardId;
+    private String missingCardId;
+    private Card extraCard;
+
+    @Setup
+    public void setUp() {
+        collection = Fixtures.makeCollection(size, USERNAME);
+        ownedCardId = collection.getAllCards().get(size / 2).getCardId();
+        missingCardId = USERNAME + "_missing_1";
+        Card template = Fixtures.getServer().getOriginalCards().getMinions().get(0);
+        extraCard = new Card(template, USERNAME + "_extra_1");
+    }
+
+    @Benchmark
+    public boolean hasOwnedCard() {
+        return collection.hasCard(ownedCardId);
+    }
+
+    @Benchmark
+    public boolean hasMissingCard() {
+        return collection.hasCard(missingCardId);
+    }
+
+    //removed again so the collection keeps its size
+    @Benchmark
+    public void addCard() {
+        collection.addCard(extraCard);
+        collection.removeCard(extraCard);
+    }
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import client.Client;
+import client.models.message.Message;
+import org.openjdk.jmh.annotations.*;
+import server.Server;
+
+import java.util.concurrent.TimeUnit;
+
+//Server.receiveMessages on batches of one message type from one logged in client, parsing included.
+//Replies are dropped by the client, so only the server's side is measured.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+    private static final int BATCH = 64;
+    private static final String USERNAME = "benchmark", PASSWORD = "benchmark";
+
+    //LOG_IN is a failed log in of a client that is not logged in; SELECT_DECK and END_TURN are rejected
+    @Param({"LOG_IN", "GET_LEADERBOARD", "GET_ORIGINAL_CARDS", "GET_STORIES", "SELECT_DECK", "END_TURN", "GAME_ACK"})
+    public String messageType;
+
+    private Server server;
+    private final String[] batch = new String[BATCH];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        server = Fixtures.getServer();
+        String clientName = "dispatch_" + messageType;
+        String serverName = server.getServerName();
+        server.addClient(new DiscardingClient(clientName, server));
+        if (!messageType.equals("LOG_IN")) {
+            server.addToReceivingMessages(Message.makeRegisterMessage(clientName, serverName, USERNAME, PASSWORD, 0).toJson());
+            server.addToReceivingMessages(Message.makeLogInMessage(clientName, serverName, USERNAME, PASSWORD, 0).toJson());
+            server.receiveMessages().join();
+        }
+        for (int i = 0; i < BATCH; i++) {
+            batch[i] = makeMessage(clientName, serverName, i + 1).toJson();
+        }
+    }
+
+    private Message makeMessage(String clientName, String serverName, int messageId) {
+        switch (messageType) {
+            case "LOG_IN":
+                return Message.makeLogInMessage(clientName, serverName, USERNAME, "wrong" + PASSWORD, messageId);
+            case "GET_LEADERBOARD":
+                return Message.makeGetLeaderBoardMessage(clientName, serverName, messageId);
+            case "GET_ORIGINAL_CARDS":
+                return Message.makeGetOriginalCardsMessage(clientName, serverName, null, messageId);
+            case "GET_STORIES":
+                return Message.makeGetStoriesInfoMessage(clientName, serverName, null, messageId);
+            case "SELECT_DECK":
+                return Message.makeSelectDeckMessage(clientName, serverName, "no deck", USERNAME, messageId);
+            case "END_TURN":
+                return Message.makeEndTurnMessage(clientName, serverName, messageId);
+            case "GAME_ACK":
+                return Message.makeGameAckMessage(clientName, serverName, 1, messageId);
+            default:
+                throw new IllegalArgumentException(messageType);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void receiveMessages() {
+        for (String json : batch) {
+            server.addToReceivingMessages(json);
+        }
+        server.receiveMessages().join();
+    }
+
+    private static class DiscardingClient extends Client {
+        DiscardingClient(String clientName, Server server) {
+            super(clientName, server);
+        }
+
+        @Override
+        public void addToReceivingMessages(String messageJson) {
+        }
+    }
+}
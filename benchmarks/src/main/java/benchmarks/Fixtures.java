@@ -0,0 +1,77 @@
+package benchmarks;
+
+import server.Server;
+import server.models.account.Account;
+import server.models.account.Collection;
+import server.models.card.Card;
+import server.models.game.Game;
+import server.models.game.GameType;
+import server.models.game.KillHeroBattle;
+import server.models.game.Story;
+import server.models.map.GameMap;
+import server.registry.AccountRegistry;
+import simulation.Simulator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+//Data shaped like production: the real catalog, stories and accounts from jsonData, plus generated
+//collections and ladders of any size. Benchmarks run from the repository root, where the server finds jsonData;
+//the server's account store is a temporary copy, so benchmarks never write into jsonData.
+public final class Fixtures {
+    public static final String PLAYER_ONE = "benchmark1", PLAYER_TWO = "benchmark2";
+    private static final int MAX_WINS = 1000;
+
+    private Fixtures() {
+    }
+
+    public static synchronized Server getServer() {
+        if (System.getProperty(Server.ACCOUNT_STORE_PROPERTY) == null) {
+            try {
+                System.setProperty(Server.ACCOUNT_STORE_PROPERTY,
+                        Files.createTempDirectory("benchmark-accounts").toString());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return Server.getInstance();
+    }
+
+    //copies of the catalog cards, round robin, with ids like bought cards
+    public static Collection makeCollection(int size, String username) {
+        ArrayList<Card> templates = getServer().getOriginalCards().getAllCards();
+        Collection collection = new Collection();
+        for (int i = 0; i < size; i++) {
+            Card template = templates.get(i % templates.size());
+            collection.addCard(new Card(template, (username + "_" + template.getName() + "_" + (i + 1)).replaceAll(" ", "")));
+        }
+        return collection;
+    }
+
+    //a directory of size accounts whose wins fall off like a ladder's: few players win a lot
+    public static AccountRegistry makeRegistry(int size, long seed) {
+        Random random = new Random(seed);
+        AccountRegistry registry = new AccountRegistry(username -> null, 1);
+        for (int i = 0; i < size; i++) {
+            double place = random.nextDouble();
+            registry.addToDirectory("player" + i, (int) (MAX_WINS * place * place * place));
+        }
+        return registry;
+    }
+
+    //a kill hero game between two random story decks, before the first turn
+    public static Game makeGame(long seed) {
+        Random random = new Random(seed);
+        List<Story> stories = getServer().getStories();
+        Account accountOne = new Account(PLAYER_ONE,
+                Simulator.makeDeck(stories.get(random.nextInt(stories.size())).getDeck(), PLAYER_ONE));
+        Account accountTwo = new Account(PLAYER_TWO,
+                Simulator.makeDeck(stories.get(random.nextInt(stories.size())).getDeck(), PLAYER_TWO));
+        GameMap gameMap = new GameMap(getServer().getOriginalCards().getItems(), 0, getServer().getOriginalFlag());
+        return new KillHeroBattle(GameType.KILL_HERO, accountOne, accountTwo, gameMap);
+    }
+}
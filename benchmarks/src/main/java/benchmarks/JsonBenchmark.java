@@ -0,0 +1,73 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import server.Server;
+import server.models.JsonConverter;
+import server.models.account.AccountInfo;
+import server.models.game.Story;
+import server.models.message.Message;
+
+import java.util.concurrent.TimeUnit;
+
+//JsonConverter on the messages that dominate traffic, each parsed into the class its receiver uses.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+    private static final int LEADERBOARD_PAGE_SIZE = 50;
+
+    @Param({"GAME_COPY", "ORIGINAL_CARDS_COPY", "STORIES_COPY", "LEADERBOARD_COPY", "ATTACK", "MOVE_TROOP"})
+    public String message;
+
+    private Object value;
+    private Class<?> receiverClass;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        Server server = Fixtures.getServer();
+        String serverName = server.getServerName();
+        receiverClass = client.models.message.Message.class;
+        switch (message) {
+            case "GAME_COPY":
+                value = Message.makeGameCopyMessage(serverName, "client", Fixtures.makeGame(1), 1);
+                break;
+            case "ORIGINAL_CARDS_COPY":
+                value = Message.makeOriginalCardsCopyMessage(serverName, "client", server.getOriginalCards(), 1);
+                break;
+            case "STORIES_COPY":
+                value = Message.makeStoriesCopyMessage(serverName, "client", server.getStories().toArray(new Story[0]), 1);
+                break;
+            case "LEADERBOARD_COPY":
+                AccountInfo[] page = Fixtures.makeRegistry(LEADERBOARD_PAGE_SIZE, 1).getLeaderBoard().getPage(1, LEADERBOARD_PAGE_SIZE);
+                value = Message.makeLeaderBoardCopyMessage(serverName, "client", page, 1, page.length, 0, 1);
+                break;
+            case "ATTACK":
+                value = client.models.message.Message.makeAttackMessage("client", serverName,
+                        "benchmark1_Rostam_1", "benchmark2_Div_3", 1);
+                receiverClass = Message.class;
+                break;
+            case "MOVE_TROOP":
+                value = client.models.message.Message.makeMoveTroopMessage("client", serverName,
+                        "benchmark1_Rostam_1", new client.models.map.Position(2, 3), 1);
+                receiverClass = Message.class;
+                break;
+            default:
+                throw new IllegalArgumentException(message);
+        }
+        json = JsonConverter.toJson(value);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return JsonConverter.toJson(value);
+    }
+
+    @Benchmark
+    public Object fromJson() {
+        return JsonConverter.fromJson(json, receiverClass);
+    }
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import server.models.account.AccountInfo;
+import server.models.message.Message;
+import server.registry.AccountRegistry;
+import server.registry.LeaderBoard;
+
+import java.util.concurrent.TimeUnit;
+
+//The work of Server.sendLeaderBoard over a directory of N accounts: finding the page and the rank,
+//making the copy message and serializing it, plus the board update of a finished game.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeaderBoardBenchmark {
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"1000", "100000", "1000000"})
+    public int accounts;
+
+    private LeaderBoard leaderBoard;
+    private AccountInfo player;
+    private AccountInfo playerAfterWin;
+    private String serverName;
+
+    @Setup
+    public void setUp() {
+        AccountRegistry registry = Fixtures.makeRegistry(accounts, 1);
+        leaderBoard = registry.getLeaderBoard();
+        player = registry.getAccountInfo("player" + accounts / 2);
+        playerAfterWin = new AccountInfo(player.getUsername(), player.getWins() + 1);
+        serverName = Fixtures.getServer().getServerName();
+    }
+
+    @Benchmark
+    public String firstPage() {
+        AccountInfo[] page = leaderBoard.getPage(1, PAGE_SIZE);
+        return Message.makeLeaderBoardCopyMessage(serverName, "client", page, 1, leaderBoard.size(), 0, 1).toJson();
+    }
+
+    @Benchmark
+    public String pageAroundPlayer() {
+        int rank = leaderBoard.getRank(player);
+        int startRank = Math.max(1, rank - PAGE_SIZE / 2);
+        AccountInfo[] page = leaderBoard.getPage(startRank, PAGE_SIZE);
+        return Message.makeLeaderBoardCopyMessage(serverName, "client", page, startRank, leaderBoard.size(), rank, 1).toJson();
+    }
+
+    //moved back so the board stays the same
+    @Benchmark
+    public void recordWin() {
+        leaderBoard.replace(player, playerAfterWin);
+        leaderBoard.replace(playerAfterWin, player);
+    }
+}
@@ -0,0 +1,171 @@
+package server.models.game;
+
+import benchmarks.Fixtures;
+import org.openjdk.jmh.annotations.*;
+import server.models.card.Card;
+import server.models.card.CardType;
+import server.models.card.spell.Spell;
+import server.models.card.spell.SpellAction;
+import server.models.map.BitBoard;
+import server.models.map.Cell;
+import server.models.map.Position;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+//In the game's package to make buffs and reach the private applyBuff. attack, applyBuff and changeTurn change the game,
+//so each of their invocations gets a new start position from Fresh: their times include cold caches and per call timing,
+//and their allocation includes building the game. The read only benchmarks share one position.
+//detectCells is gone: spell areas are BitBoard masks, measured by spellArea and spellableCells.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+    private static final Position SPELL_DIMENSIONS = new Position(3, 3);
+    private static final MethodHandle APPLY_BUFF = findApplyBuff();
+    private static final int MAX_TRIES = 1000;
+    private static final HashSet<String> FAILED_PLACEMENTS = new HashSet<>();//card name and cell that can't face the hero
+
+    private Game game;
+    private Troop attacker;
+    private String spellCardId = "";
+    private String spellId = "";
+
+    @State(Scope.Thread)
+    public static class Fresh {
+        private Game game;
+        private Troop attacker;
+        private Troop defender;
+        private Buff buff;
+
+        @Setup(Level.Invocation)
+        public void setUp() throws Exception {
+            game = makeStartPosition();
+            attacker = game.getPlayerOne().getHero();
+            defender = getDefender(game);
+            buff = new Buff(findAction(), new TargetData(new ArrayList<>(Arrays.asList(attacker, defender))));
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        game = makeStartPosition();
+        attacker = game.getPlayerOne().getHero();
+        for (Card card : game.getPlayerOne().getHand()) {
+            if (!card.getSpells().isEmpty()) {
+                spellCardId = card.getCardId();
+                spellId = card.getSpells().get(0).getSpellId();
+                break;
+            }
+        }
+    }
+
+    //turn 3: player one's hero faces a minion player two brought in, on the closest cell where the two can attack each other.
+    //Hands are dealt at random, so a try that fails is made again on a new game.
+    private static Game makeStartPosition() throws Exception {
+        for (int i = 0; i < MAX_TRIES; i++) {
+            Game game = Fixtures.makeGame(1);
+            game.startSimulation();
+            game.changeTurn(Fixtures.PLAYER_ONE);
+            if (placeDefender(game)) {
+                game.changeTurn(Fixtures.PLAYER_TWO);
+                return game;
+            }
+        }
+        throw new IllegalStateException("no minion of player two can face player one's hero");
+    }
+
+    private static boolean placeDefender(Game game) throws Exception {
+        Troop hero = game.getPlayerOne().getHero();
+        Cell heroCell = hero.getCell();
+        String heroId = hero.getCard().getCardId();
+        for (int distance = 1; distance < BitBoard.CELL_NUMBER; distance++) {
+            for (int index = 0; index < BitBoard.CELL_NUMBER; index++) {
+                Position position = new Position(BitBoard.getRow(index), BitBoard.getColumn(index));
+                if (Math.abs(position.getRow() - heroCell.getRow()) +
+                        Math.abs(position.getColumn() - heroCell.getColumn()) != distance) continue;
+                for (Card card : game.getPlayerTwo().getHand()) {
+                    String placement = card.getName() + "@" + index;
+                    if (FAILED_PLACEMENTS.contains(placement) || !game.canInsert(card.getCardId(), position)) continue;
+                    game.insert(Fixtures.PLAYER_TWO, card.getCardId(), position);
+                    if (game.canAttack(heroId, card.getCardId()) && game.canAttack(card.getCardId(), heroId)) {
+                        return true;
+                    }
+                    FAILED_PLACEMENTS.add(placement);
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Troop getDefender(Game game) {
+        for (Troop troop : game.getPlayerTwo().getTroops()) {
+            if (troop != game.getPlayerTwo().getHero()) return troop;
+        }
+        throw new IllegalStateException("player two has no minion");
+    }
+
+    private static MethodHandle findApplyBuff() {
+        try {
+            return MethodHandles.privateLookupIn(Game.class, MethodHandles.lookup())
+                    .findVirtual(Game.class, "applyBuff", MethodType.methodType(void.class, Buff.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SpellAction findAction() {
+        for (Card card : Fixtures.getServer().getOriginalCards().getSpells()) {
+            for (Spell spell : card.getSpells()) {
+                SpellAction action = spell.getAction();
+                if (action != null && (action.getApChange() != 0 || action.getHpChange() != 0)) {
+                    return action;
+                }
+            }
+        }
+        throw new IllegalStateException("no catalog spell changes hit points or attack power");
+    }
+
+    @Benchmark
+    public void attack(Fresh fresh) throws Exception {
+        fresh.game.attack(fresh.attacker, fresh.defender);
+    }
+
+    @Benchmark
+    public void applyBuff(Fresh fresh) throws Throwable {
+        APPLY_BUFF.invokeExact(fresh.game, fresh.buff);
+    }
+
+    @Benchmark
+    public void changeTurn(Fresh fresh) throws Exception {
+        fresh.game.changeTurn(Fixtures.PLAYER_ONE);
+    }
+
+    @Benchmark
+    public Troop[] attackableTroops() {
+        return game.getAttackableTroops(attacker.getCard().getCardId());
+    }
+
+    @Benchmark
+    public Cell[] spellableCells() {
+        return game.getSpellableCells(spellCardId, spellId);
+    }
+
+    @Benchmark
+    public long spellArea() {
+        long areas = 0;
+        for (int index = 0; index < BitBoard.CELL_NUMBER; index++) {
+            areas ^= BitBoard.getArea(index, SPELL_DIMENSIONS);
+        }
+        return areas;
+    }
+}
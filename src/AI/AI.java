@@ -1,10 +1,134 @@
 package AI;
 
 import server.models.game.Game;
+import server.models.game.TroopStore;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//Plays a turn one action at a time, each chosen by a root parallel Monte Carlo tree search over a TroopStore of the game.
+//Every worker grows its own tree until the decision's deadline and the most visited root action over all trees is played.
+//Searches run on the AI's ForkJoinPool; the game itself is only read and changed on the executor it is played on.
 public class AI {
+    private static final long DEFAULT_TURN_MILLIS = 500;
+    private static final int DEFAULT_ROOT_PARALLELISM = 4;
+    private static final int MAX_ACTIONS_PER_TURN = 16;
+
+    private final ForkJoinPool pool;
+    private final int rootParallelism;
+    private final long turnNanos;
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder playouts = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();//summed over workers
+
+    public AI() {
+        this(Runtime.getRuntime().availableProcessors(),
+                Math.min(DEFAULT_ROOT_PARALLELISM, Runtime.getRuntime().availableProcessors()), DEFAULT_TURN_MILLIS);
+    }
+
+    public AI(int threads, int rootParallelism, long turnMillis) {
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+        this.rootParallelism = Math.max(1, rootParallelism);
+        this.turnNanos = TimeUnit.MILLISECONDS.toNanos(turnMillis);
+    }
 
+    //for callers that own the game; the calling thread waits for the whole turn
     public void playCurrentTurn(Game game) {
+        playCurrentTurn(game, Runnable::run).join();
+    }
+
+    //gameExecutor runs the game's commands, e.g. its actor, so no game thread waits on a search
+    public CompletableFuture<Void> playCurrentTurn(Game game, Executor gameExecutor) {
+        return playNextAction(game, gameExecutor, System.nanoTime() + turnNanos, 0);
+    }
+
+    private CompletableFuture<Void> playNextAction(Game game, Executor gameExecutor, long deadline, int played) {
+        CompletableFuture<TroopStore> store = CompletableFuture.supplyAsync(game::makeTroopStore, gameExecutor);
+        return store.thenApplyAsync(root -> chooseAction(root, deadline, played), pool)
+                .thenComposeAsync(action -> {
+                    if (!play(game, store.join(), action)) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return playNextAction(game, gameExecutor, deadline, played + 1);
+                }, gameExecutor);
+    }
+
+    //false once the turn is over; an action the game rejects ends it, as the store does not know every rule of the game
+    private boolean play(Game game, TroopStore store, int action) {
+        try {
+            Action.apply(game, store, action);
+            return Action.getKind(action) != Action.END_TURN;
+        } catch (Exception e) {
+            if (Action.getKind(action) != Action.END_TURN) {
+                play(game, store, Action.make(Action.END_TURN, 0, 0));
+            }
+            return false;
+        }
+    }
+
+    //each decision gets half of what is left of the turn; runs on a worker of the pool, so invokeAll searches one tree
+    //on this thread and forks the rest to the same pool instead of blocking a worker on its siblings
+    private int chooseAction(TroopStore root, long deadline, int played) {
+        int endTurn = Action.make(Action.END_TURN, 0, 0);
+        long now = System.nanoTime();
+        if (played >= MAX_ACTIONS_PER_TURN || now >= deadline || root.getWinner() != 0) {
+            return endTurn;
+        }
+        int[] actions = new int[2];
+        if (Action.getActions(root, actions) == 1) {
+            return endTurn;
+        }
+        long decisionDeadline = now + (deadline - now) / 2;
+        ArrayList<Search> trees = new ArrayList<>();
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < rootParallelism; i++) {
+            Search search = new Search(root, decisionDeadline, now + i);
+            trees.add(search);
+            tasks.add(ForkJoinTask.adapt(search));
+        }
+        ForkJoinTask.invokeAll(tasks);
+        HashMap<Integer, Integer> visits = new HashMap<>();
+        for (Search tree : trees) {
+            tree.addRootVisits(visits);
+            playouts.add(tree.getPlayouts());
+            searchNanos.add(tree.getNanos());
+        }
+        searches.increment();
+        int best = endTurn;
+        int bestVisits = -1;
+        for (Map.Entry<Integer, Integer> entry : visits.entrySet()) {
+            if (entry.getValue() > bestVisits) {
+                bestVisits = entry.getValue();
+                best = entry.getKey();
+            }
+        }
+        return best;
+    }
+
+    public long getPlayouts() {
+        return playouts.sum();
+    }
+
+    //per worker thread, for sizing: the total rate is this times the threads kept busy
+    public long getPlayoutsPerSecond() {
+        long nanos = searchNanos.sum();
+        return nanos == 0 ? 0 : playouts.sum() * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
 
+    @Override
+    public String toString() {
+        return searches.sum() + " searches, " + getPlayouts() + " playouts, " + getPlayoutsPerSecond() +
+                " playouts/s per worker, " + pool.getParallelism() + " threads";
     }
-}
\ No newline at end of file
+}
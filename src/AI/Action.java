@@ -0,0 +1,103 @@
+package AI;
+
+import server.models.game.Game;
+import server.models.game.TroopStore;
+import server.models.map.BitBoard;
+import server.models.map.Position;
+
+//Actions are ints: the kind, the slot that acts and its target, a cell or the defender's slot.
+final class Action {
+    static final int END_TURN = 0, MOVE = 1, ATTACK = 2, INSERT = 3;
+    private static final int SLOT_SHIFT = 14, KIND_SHIFT = 28, MASK = (1 << SLOT_SHIFT) - 1;
+
+    private Action() {
+    }
+
+    static int make(int kind, int slot, int target) {
+        return kind << KIND_SHIFT | slot << SLOT_SHIFT | target;
+    }
+
+    static int getKind(int action) {
+        return action >>> KIND_SHIFT;
+    }
+
+    static int getSlot(int action) {
+        return (action >>> SLOT_SHIFT) & MASK;
+    }
+
+    static int getTarget(int action) {
+        return action & MASK;
+    }
+
+    //the legal actions of the current player; each troop moves once a turn and minions come in next to its own troops
+    static int getActions(TroopStore store, int[] actions) {
+        int count = 0;
+        actions[count++] = make(END_TURN, 0, 0);
+        int player = store.getCurrentPlayer();
+        long insertCells = 0;
+        for (long troops = store.getTroopMask(player); troops != 0; troops &= troops - 1) {
+            insertCells |= BitBoard.getNeighbours(Long.numberOfTrailingZeros(troops));
+        }
+        insertCells &= ~store.getOccupiedMask();
+        for (int slot = 0; slot < store.size(); slot++) {
+            if (store.getOwner(slot) != player) continue;
+            if (store.hasStatus(slot, TroopStore.IN_HAND)) {
+                count = addAll(actions, count, INSERT, slot, insertCells);
+                continue;
+            }
+            for (long targets = store.getAttackableMask(slot); targets != 0; targets &= targets - 1) {
+                count = add(actions, count, make(ATTACK, slot, store.getSlotAt(Long.numberOfTrailingZeros(targets))));
+            }
+            count = addAll(actions, count, MOVE, slot, store.getMovableMask(slot));
+        }
+        return count;
+    }
+
+    private static int addAll(int[] actions, int count, int kind, int slot, long cells) {
+        for (; cells != 0; cells &= cells - 1) {
+            count = add(actions, count, make(kind, slot, Long.numberOfTrailingZeros(cells)));
+        }
+        return count;
+    }
+
+    private static int add(int[] actions, int count, int action) {
+        if (count < actions.length) {
+            actions[count++] = action;
+        }
+        return count;
+    }
+
+    static boolean apply(TroopStore store, int action) {
+        switch (getKind(action)) {
+            case MOVE:
+                return store.move(getSlot(action), getTarget(action));
+            case ATTACK:
+                return store.attack(getSlot(action), getTarget(action));
+            case INSERT:
+                return store.insert(getSlot(action), getTarget(action));
+            default:
+                store.changeTurn();
+                return true;
+        }
+    }
+
+    //plays the action in the game the store was made from, by the same card ids
+    static void apply(Game game, TroopStore store, int action) throws Exception {
+        String username = game.getCurrentTurnPlayer().getUserName();
+        String cardId = store.getCardId(getSlot(action));
+        int target = getTarget(action);
+        switch (getKind(action)) {
+            case MOVE:
+                game.moveTroop(username, cardId, new Position(BitBoard.getRow(target), BitBoard.getColumn(target)));
+                break;
+            case ATTACK:
+                game.attack(username, cardId, store.getCardId(target));
+                break;
+            case INSERT:
+                game.insert(username, cardId, new Position(BitBoard.getRow(target), BitBoard.getColumn(target)));
+                break;
+            default:
+                game.changeTurn(username);
+        }
+    }
+}
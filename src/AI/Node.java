@@ -0,0 +1,35 @@
+package AI;
+
+import java.util.ArrayList;
+
+//A position in one search tree, reached by action; rewards are for the player who played it.
+class Node {
+    final Node parent;
+    final int action;
+    final int player;
+    final ArrayList<Node> children = new ArrayList<>();
+    int[] untriedActions;
+    int untriedCount;
+    int visits;
+    double reward;
+
+    Node(Node parent, int action, int player) {
+        this.parent = parent;
+        this.action = action;
+        this.player = player;
+    }
+
+    Node selectChild(double exploration) {
+        Node best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        double logVisits = Math.log(visits);
+        for (Node child : children) {
+            double value = child.reward / child.visits + exploration * Math.sqrt(logVisits / child.visits);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,138 @@
+package AI;
+
+import server.models.game.TroopStore;
+import server.models.map.BitBoard;
+
+import java.util.HashMap;
+import java.util.Random;
+
+//One tree of a root parallel search: UCT selection, one new node per iteration and a random playout from it.
+//Trees of different workers share nothing but the root store, which is only copied.
+class Search implements Runnable {
+    private static final int MAX_ACTIONS = 1024;
+    private static final int PLAYOUT_TURNS = 30;
+    private static final double EXPLORATION = 1.4;
+    private static final int HERO_WEIGHT = 2;
+
+    private final TroopStore root;
+    private final long deadline;
+    private final Random random;
+    private final Node rootNode = new Node(null, Action.make(Action.END_TURN, 0, 0), 0);
+    private final int[] actions = new int[MAX_ACTIONS];
+    private int playouts;
+    private long nanos;
+
+    Search(TroopStore root, long deadline, long seed) {
+        this.root = root;
+        this.deadline = deadline;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        expand(rootNode, root);
+        do {
+            iterate();
+            playouts++;
+        } while (System.nanoTime() < deadline);
+        nanos = System.nanoTime() - start;
+    }
+
+    private void iterate() {
+        TroopStore state = new TroopStore(root);
+        Node node = rootNode;
+        while (node.untriedCount == 0 && !node.children.isEmpty()) {
+            node = node.selectChild(EXPLORATION);
+            Action.apply(state, node.action);
+        }
+        if (node.untriedCount > 0) {
+            int index = random.nextInt(node.untriedCount);
+            int action = node.untriedActions[index];
+            node.untriedActions[index] = node.untriedActions[--node.untriedCount];
+            Node child = new Node(node, action, state.getCurrentPlayer());
+            Action.apply(state, action);
+            expand(child, state);
+            node.children.add(child);
+            node = child;
+        }
+        double result = playout(state);
+        for (; node != null; node = node.parent) {
+            node.visits++;
+            node.reward += node.player == 1 ? result : 1 - result;
+        }
+    }
+
+    private void expand(Node node, TroopStore state) {
+        if (state.getWinner() != 0) return;
+        int count = Action.getActions(state, actions);
+        node.untriedActions = new int[count];
+        System.arraycopy(actions, 0, node.untriedActions, 0, count);
+        node.untriedCount = count;
+    }
+
+    //every troop attacks when it can and moves or comes in half the time; returns player one's result
+    private double playout(TroopStore state) {
+        int lastTurn = state.getTurnNumber() + PLAYOUT_TURNS;
+        while (state.getWinner() == 0 && state.getTurnNumber() < lastTurn) {
+            int player = state.getCurrentPlayer();
+            for (int slot = 0; slot < state.size(); slot++) {
+                if (state.getOwner(slot) != player) continue;
+                if (state.hasStatus(slot, TroopStore.IN_HAND)) {
+                    long cells = ~state.getOccupiedMask() & BitBoard.ALL;
+                    if (cells != 0 && random.nextBoolean()) {
+                        state.insert(slot, pick(cells));
+                    }
+                    continue;
+                }
+                long targets = state.getAttackableMask(slot);
+                if (targets != 0) {
+                    state.attack(slot, state.getSlotAt(pick(targets)));
+                }
+                long cells = state.getMovableMask(slot);
+                if (cells != 0 && random.nextBoolean()) {
+                    state.move(slot, pick(cells));
+                }
+            }
+            state.changeTurn();
+        }
+        return evaluate(state);
+    }
+
+    private int pick(long mask) {
+        for (int skip = random.nextInt(Long.bitCount(mask)); skip > 0; skip--) {
+            mask &= mask - 1;
+        }
+        return Long.numberOfTrailingZeros(mask);
+    }
+
+    //a win is 1, otherwise the share of hit points on the board, heroes counting double
+    private static double evaluate(TroopStore state) {
+        int winner = state.getWinner();
+        if (winner != 0) {
+            return winner == 1 ? 1 : 0;
+        }
+        int[] hps = new int[3];
+        for (int slot = 0; slot < state.size(); slot++) {
+            if (!state.isAlive(slot) || state.getHp(slot) <= 0) continue;
+            int weight = state.hasStatus(slot, TroopStore.HERO) ? HERO_WEIGHT : 1;
+            hps[state.getOwner(slot)] += weight * state.getHp(slot);
+        }
+        if (hps[1] + hps[2] == 0) return 0.5;
+        return (double) hps[1] / (hps[1] + hps[2]);
+    }
+
+    void addRootVisits(HashMap<Integer, Integer> visits) {
+        for (Node child : rootNode.children) {
+            visits.merge(child.action, child.visits, Integer::sum);
+        }
+    }
+
+    int getPlayouts() {
+        return playouts;
+    }
+
+    long getNanos() {
+        return nanos;
+    }
+}
@@ -0,0 +1,50 @@
+import loadtest.InProcessTransport;
+import loadtest.LoadGenerator;
+import loadtest.SocketTransport;
+import loadtest.Transport;
+import server.Server;
+import server.network.WireFormat;
+
+public class LoadTestMain {
+	private static final int DEFAULT_CLIENTS = 100;
+	private static final int DEFAULT_SECONDS = 30;
+	private static final long DEFAULT_THINK_MILLIS = 500;
+	private static final int DEFAULT_PORT = 8000;
+	private static final String SERVER_NAME = "Server";
+
+	//usage: LoadTestMain [clients] [seconds] [in-process|socket|host:port] [think millis] [match share] [json]
+	//"socket" starts this process's server on the default port, host:port drives a running one; a fifth of the time warms up first
+	//in-process and socket runs register accounts in this directory's jsonData
+	public static void main(String[] args) throws Exception {
+		int clients = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CLIENTS;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+		String target = args.length > 2 ? args[2] : "in-process";
+		long thinkMillis = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_THINK_MILLIS;
+		WireFormat format = args.length > 5 && args[5].equalsIgnoreCase("json") ? WireFormat.JSON : WireFormat.BINARY;
+		Transport transport;
+		if (target.equalsIgnoreCase("in-process")) {
+			transport = new InProcessTransport(Server.getInstance());
+		} else if (target.equalsIgnoreCase("socket")) {
+			Server.getInstance().startSocketServer(DEFAULT_PORT, format);
+			transport = new SocketTransport("localhost", DEFAULT_PORT, format);
+		} else {
+			String[] address = target.split(":");
+			transport = new SocketTransport(address[0], Integer.parseInt(address[1]), format);
+		}
+		LoadGenerator generator = new LoadGenerator(transport, SERVER_NAME, clients, Runtime.getRuntime().availableProcessors());
+		generator.setThinkMillis(thinkMillis);
+		if (args.length > 4) {
+			generator.setMatchShare(Double.parseDouble(args[4]));
+		}
+		boolean localServer = target.equalsIgnoreCase("in-process") || target.equalsIgnoreCase("socket");
+		if (localServer) {
+			//the server's view of the same run, reset with the client stats when the warm up ends
+			generator.setWarmupListener(Server.getInstance()::resetDispatchStats);
+		}
+		System.out.println(generator.run(seconds * 200L, seconds * 1000L));
+		if (localServer) {
+			System.out.println(Server.getInstance().getDispatchStats());
+		}
+		System.exit(0);
+	}
+}
@@ -0,0 +1,19 @@
+import server.Server;
+import server.network.WireFormat;
+
+import java.io.IOException;
+
+public class ServerMain {
+	private static final int DEFAULT_PORT = 8000;
+
+	//usage: ServerMain [port] [json|binary] [stats seconds]    "json" turns the binary wire format off for debugging,
+	//a stats period prints the dispatch stats that often
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		WireFormat format = args.length > 1 && args[1].equalsIgnoreCase("json") ? WireFormat.JSON : WireFormat.BINARY;
+		Server.getInstance().startSocketServer(port, format);
+		if (args.length > 2) {
+			Server.getInstance().startStatsDump(Long.parseLong(args[2]) * 1000);
+		}
+	}
+}
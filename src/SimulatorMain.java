@@ -0,0 +1,37 @@
+import AI.AI;
+import server.models.game.GameType;
+import simulation.AiPolicy;
+import simulation.GreedyPolicy;
+import simulation.Policy;
+import simulation.RandomPolicy;
+import simulation.Simulator;
+
+import java.util.Locale;
+
+public class SimulatorMain {
+	private static final int DEFAULT_GAMES = 1000;
+	private static final long AI_TURN_MILLIS = 50;//games already run on every core, so each AI search uses one tree
+
+	//usage: SimulatorMain [games] [KILL_HERO|A_FLAG|SOME_FLAG] [policy one] [policy two] [threads]
+	//policies are random, greedy and ai
+	public static void main(String[] args) throws Exception {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+		GameType gameType = args.length > 1 ? GameType.valueOf(args[1].toUpperCase(Locale.ROOT)) : GameType.KILL_HERO;
+		Policy policyOne = makePolicy(args.length > 2 ? args[2] : "random");
+		Policy policyTwo = makePolicy(args.length > 3 ? args[3] : "random");
+		int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+		System.out.println(new Simulator(gameType, policyOne, policyTwo, threads).run(games));
+		System.exit(0);
+	}
+
+	private static Policy makePolicy(String name) {
+		switch (name.toLowerCase(Locale.ROOT)) {
+			case "greedy":
+				return new GreedyPolicy();
+			case "ai":
+				return new AiPolicy(new AI(Runtime.getRuntime().availableProcessors(), 1, AI_TURN_MILLIS));
+			default:
+				return new RandomPolicy();
+		}
+	}
+}
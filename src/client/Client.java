@@ -8,19 +8,28 @@ import client.models.game.Game;
 import client.models.map.Position;
 import client.models.menus.*;
 import client.models.message.Message;
+import client.models.message.MessageType;
 import server.Server;
 
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class Client {
     private Server server;
     private String clientName;
     private Account account;
     private ArrayList<Message> sendingMessages = new ArrayList<>();
-    private ArrayList<Message> receivingMessages = new ArrayList<>();
+    //the server's game actors add here too, e.g. the AI's turn, so it is read by polling
+    private ConcurrentLinkedQueue<Message> receivingMessages = new ConcurrentLinkedQueue<>();
     private Game game;
     private DeckInfo[] customDecks;
     private AccountInfo[] leaderBoard;
+    private int leaderBoardStart = 1;
+    private int leaderBoardSize;
+    private int rank;
+    //versions of the catalogs already received; the server omits them when they are unchanged
+    private String originalCardsVersion;
+    private String storiesVersion;
     private Menu currentMenu;
     private Card selected;
     private Position[] positions;
@@ -45,6 +54,36 @@ public class Client {
         this.sendMessages();
     }
 
+    public void updateLeaderBoard(String serverName, int startRank, int pageSize) {
+        this.addToSendingMessages(Message.makeGetLeaderBoardPageMessage(clientName, serverName, startRank, pageSize, 0));
+        this.sendMessages();
+    }
+
+    public void updateLeaderBoardAround(String serverName, String username, int pageSize) {
+        this.addToSendingMessages(Message.makeGetLeaderBoardAroundMessage(clientName, serverName, username, pageSize, 0));
+        this.sendMessages();
+    }
+
+    public int getLeaderBoardStart() {
+        return leaderBoardStart;
+    }
+
+    public int getLeaderBoardSize() {
+        return leaderBoardSize;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public String getOriginalCardsVersion() {
+        return originalCardsVersion;
+    }
+
+    public String getStoriesVersion() {
+        return storiesVersion;
+    }
+
     public AccountInfo[] getLeaderBoard() {
         return leaderBoard;
     }
@@ -86,13 +125,21 @@ public class Client {
         sendingMessages.add(message);
     }
 
+    //a delta is acknowledged once it is queued, since messages are applied in order; a player waiting for its turn
+    //sends no commands that could carry the ack, and every delta after it would repeat the changes since the last one
     public void addToReceivingMessages(String messageJson) {
-        receivingMessages.add(Message.convertJsonToMessage(messageJson));
+        Message message = Message.convertJsonToMessage(messageJson);
+        receivingMessages.add(message);
+        if (message.getMessageType() == MessageType.GAME_DELTA) {
+            server.addToReceivingMessages(Message.makeGameAckMessage(
+                    clientName, message.getSender(), message.getGameVersion(), 0).toJson());
+        }
     }
 
     public void receiveMessages() {
         validation = true;
-        for (Message message : receivingMessages) {
+        Message message;
+        while ((message = receivingMessages.poll()) != null) {
             switch (message.getMessageType()) {
                 case SEND_EXCEPTION:
                     validation = false;
@@ -102,20 +149,36 @@ public class Client {
                     account = new Account(message.getAccount());
                     break;
                 case GAME_COPY:
+                    message.getGame().setVersion(message.getGameVersion());
                     GameCommands.getInstance().setCurrentGame(message.getGame());
                     currentMenu = GameCommands.getInstance();
                     break;
+                case GAME_DELTA:
+                    Game game = GameCommands.getInstance().getCurrentGame();
+                    if (game != null) {
+                        game.applyChanges(message.getGameChanges(), message.getGameVersion());
+                    }
+                    break;
                 case ORIGINAL_CARDS_COPY:
-                    Shop.getInstance().setOriginalCards(message.getOriginalCards());
+                    if (message.getOriginalCards() != null) {
+                        Shop.getInstance().setOriginalCards(message.getOriginalCards());
+                        originalCardsVersion = message.getCatalogVersion();
+                    }
                     break;
                 case CUSTOM_DECKS_COPY:
                     customDecks = message.getCustomDecks();
                     break;
                 case LEADERBOARD_COPY:
                     leaderBoard = message.getLeaderBoard();
+                    leaderBoardStart = message.getStartRank();
+                    leaderBoardSize = message.getLeaderBoardSize();
+                    rank = message.getRank();
                     break;
                 case STORIES_COPY:
-                    StoryMenu.getInstance().setStories(message.getStories());
+                    if (message.getStories() != null) {
+                        StoryMenu.getInstance().setStories(message.getStories());
+                        storiesVersion = message.getCatalogVersion();
+                    }
                     break;
                 case POSITIONS_COPY:
                     positions = message.getPositions();
@@ -125,7 +188,6 @@ public class Client {
                     break;
             }
         }
-        receivingMessages.clear();
     }
 
     public void sendMessages() {
@@ -133,7 +195,7 @@ public class Client {
             server.addToReceivingMessages(message.toJson());
         }
         sendingMessages.clear();
-        server.receiveMessages();
+        server.receiveMessages().join();
         receiveMessages();
     }
 
@@ -4,6 +4,9 @@ public class AccountInfo {
     private String username;
     private int wins;
 
+    private AccountInfo() {
+    }
+
     public AccountInfo(Account account) {
         this.username = account.getUsername();
         this.wins = account.getWins();
@@ -10,6 +10,9 @@ public class Deck {
     private Card item;
     private ArrayList<Card> others = new ArrayList<>();
 
+    private Deck() {
+    }
+
     public Deck(TempDeck tempDeck, Collection collection) {
         this.deckName = tempDeck.getDeckName();
         this.hero = collection.findHero(tempDeck.getHeroId());
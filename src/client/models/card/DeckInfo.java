@@ -8,6 +8,9 @@ public class DeckInfo {
     private String HeroName;
     private GameType type;
 
+    private DeckInfo() {
+    }
+
     public DeckInfo(Story story) {
         this.deckName = story.getDeck().getName();
         this.HeroName = story.getDeck().getHero().getName();
@@ -7,6 +7,9 @@ public class AvailabilityType {
     private boolean specialPower;
     private boolean onStart;
 
+    private AvailabilityType() {
+    }
+
     public AvailabilityType(boolean onPut, boolean onAttack, boolean onDeath, boolean continuous, boolean specialPower, boolean onStart) {
         this.onPut = onPut;
         this.onAttack = onAttack;
@@ -5,6 +5,9 @@ public class CardAttackType {
     private boolean ranged;
     private boolean hybrid;
 
+    private CardAttackType() {
+    }
+
     public CardAttackType(boolean melee, boolean ranged, boolean hybrid) {
         this.melee = melee;
         this.ranged = ranged;
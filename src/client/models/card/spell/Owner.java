@@ -4,6 +4,9 @@ public class Owner {
     private boolean own;
     private boolean enemy;
 
+    private Owner() {
+    }
+
     public Owner(boolean own, boolean enemy) {
         this.own = own;
         this.enemy = enemy;
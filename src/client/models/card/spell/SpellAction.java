@@ -23,6 +23,9 @@ public class SpellAction {
     private int delay;
     private Spell carryingSpell;
 
+    private SpellAction() {
+    }
+
     public SpellAction(int enemyHitChanges, int apChange, int hpChange, int mpChange, boolean poison, boolean makeStun, boolean makeDisarm, boolean actionAtTheEndOfTurn, boolean noDisarm, boolean noPoison, boolean noStun, boolean noBadEffect, boolean noAttackFromWeakerOnes, boolean disableHolyBuff, boolean addSpell, boolean killsTarget, boolean isForGladiator, boolean durable, int removeBuffs, int duration, int delay, Spell carryingSpell) {
         this.enemyHitChanges = enemyHitChanges;
         this.apChange = apChange;
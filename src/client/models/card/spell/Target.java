@@ -14,6 +14,9 @@ public class Target {
     private TargetCardType cardType;
     private CardAttackType attackType;
 
+    private Target() {
+    }
+
     public Target(boolean isRelatedToCardOwnerPosition, boolean isForAroundOwnHero, Position dimensions, boolean isRandom, Owner owner, TargetCardType cardType, CardAttackType attackType, boolean isForDeckCards) {
         this.isRelatedToCardOwnerPosition = isRelatedToCardOwnerPosition;
         this.isForAroundOwnHero = isForAroundOwnHero;
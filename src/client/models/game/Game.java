@@ -6,6 +6,8 @@ import client.models.card.spell.Spell;
 import client.models.map.Cell;
 import client.models.map.GameMap;
 
+import java.util.ArrayList;
+
 public class Game {
     private GameType gameType;
     private Player playerOne;
@@ -14,6 +16,10 @@ public class Game {
     private int turnNumber;
     private int lastTurnChangingTime;
     private boolean finished = false;
+    private transient int version;
+
+    private Game() {
+    }
 
     protected Game(GameType gameType, Account account1, GameMap gameMap) {
 
@@ -51,6 +57,110 @@ public class Game {
         return this.turnNumber;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public void applyChanges(GameChange[] changes, int newVersion) {
+        for (GameChange change : changes) {
+            if (change.getVersion() <= version) continue;//already applied from an earlier delta
+            applyChange(change);
+        }
+        version = Math.max(version, newVersion);
+    }
+
+    private void applyChange(GameChange change) {
+        switch (change.getType()) {
+            case TROOP_HP:
+                for (Troop troop : findTroops(change.getCardId())) {
+                    troop.setCurrentHp(change.getNewValue());
+                }
+                break;
+            case TROOP_AP:
+                for (Troop troop : findTroops(change.getCardId())) {
+                    troop.setCurrentAp(change.getNewValue());
+                }
+                break;
+            case TO_MAP:
+                Cell cell = gameMap.getCell(change.getPosition());
+                ArrayList<Troop> troops = findTroops(change.getCardId());
+                if (troops.isEmpty()) {
+                    Player player = getPlayer(change.getUsername());
+                    player.getTroops().add(new Troop(change.getCard(), cell));
+                    if (player == playerOne) {
+                        gameMap.getPlayerOneTroops().add(new Troop(change.getCard(), cell));
+                    } else {
+                        gameMap.getPlayerTwoTroops().add(new Troop(change.getCard(), cell));
+                    }
+                } else {
+                    for (Troop troop : troops) {
+                        troop.setCell(cell);
+                    }
+                }
+                break;
+            case TO_HAND:
+                getPlayer(change.getUsername()).addToHand(change.getCard());
+                break;
+            case FROM_HAND:
+                getPlayer(change.getUsername()).removeFromHand(change.getCardId());
+                break;
+            case TURN:
+                turnNumber = change.getNewValue();
+                break;
+            case TO_NEXT:
+                getPlayer(change.getUsername()).setNextCard(change.getCard());
+                break;
+            case TO_GRAVEYARD:
+                toGraveyard(change.getUsername(), change.getCardId());
+                break;
+            case BUFF_ADDED:
+            case BUFF_REMOVED:
+                //buff effects arrive as troop changes; the client keeps no buff list
+                break;
+        }
+    }
+
+    private void toGraveyard(String username, String cardId) {
+        ArrayList<Troop> troops = findTroops(cardId);
+        if (troops.isEmpty()) return;
+        Player player = getPlayer(username);
+        for (Troop troop : troops) {
+            player.getTroops().remove(troop);
+            gameMap.getPlayerOneTroops().remove(troop);
+            gameMap.getPlayerTwoTroops().remove(troop);
+        }
+        player.addToGraveyard(troops.get(0).getCard());
+    }
+
+    //players and map hold separate copies of each troop after deserialization
+    private ArrayList<Troop> findTroops(String cardId) {
+        ArrayList<Troop> troops = new ArrayList<>();
+        addTroops(troops, playerOne.getTroops(), cardId);
+        addTroops(troops, playerTwo.getTroops(), cardId);
+        addTroops(troops, gameMap.getPlayerOneTroops(), cardId);
+        addTroops(troops, gameMap.getPlayerTwoTroops(), cardId);
+        return troops;
+    }
+
+    private void addTroops(ArrayList<Troop> result, ArrayList<Troop> troops, String cardId) {
+        for (Troop troop : troops) {
+            if (troop.getCard().getCardId().equalsIgnoreCase(cardId)) {
+                result.add(troop);
+            }
+        }
+    }
+
+    public Player getPlayer(String username) {
+        if (playerOne.getUserName().equalsIgnoreCase(username)) {
+            return playerOne;
+        }
+        return playerTwo;
+    }
+
     public void receiveMessage(String[] message) {
 
     }
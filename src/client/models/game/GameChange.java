@@ -0,0 +1,47 @@
+package client.models.game;
+
+import client.models.card.Card;
+import client.models.map.Position;
+
+public class GameChange {
+    private int version;
+    private GameChangeType type;
+    private String cardId;
+    private String[] cardIds;
+    private String username;
+    private int newValue;
+    private Position position;
+    private Card card;
+
+    public int getVersion() {
+        return version;
+    }
+
+    public GameChangeType getType() {
+        return type;
+    }
+
+    public String getCardId() {
+        return cardId;
+    }
+
+    public String[] getCardIds() {
+        return cardIds;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public int getNewValue() {
+        return newValue;
+    }
+
+    public Position getPosition() {
+        return position;
+    }
+
+    public Card getCard() {
+        return card;
+    }
+}
@@ -6,6 +6,7 @@ import client.models.card.CardType;
 import client.models.card.Deck;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class Player {
     private String userName;
@@ -18,6 +19,9 @@ public class Player {
     private ArrayList<Card> collectedItems;
     private ArrayList<Troop> flagCarriers = new ArrayList<>();
 
+    private Player() {
+    }
+
     public Player(Account account) {
 
     }
@@ -42,6 +46,24 @@ public class Player {
         return this.hand;
     }
 
+    void addToHand(Card card) {
+        Card[] newHand = Arrays.copyOf(hand, hand.length + 1);
+        newHand[hand.length] = card;
+        hand = newHand;
+    }
+
+    void removeFromHand(String cardId) {
+        for (int i = 0; i < hand.length; i++) {
+            if (hand[i].getCardId().equalsIgnoreCase(cardId)) {
+                Card[] newHand = new Card[hand.length - 1];
+                System.arraycopy(hand, 0, newHand, 0, i);
+                System.arraycopy(hand, i + 1, newHand, i, hand.length - i - 1);
+                hand = newHand;
+                return;
+            }
+        }
+    }
+
     public ArrayList<Troop> getTroops() {
         return this.troops;
     }
@@ -50,10 +72,21 @@ public class Player {
         return this.graveyard;
     }
 
+    public void addToGraveyard(Card card) {
+        if (graveyard == null) {
+            graveyard = new ArrayList<>();
+        }
+        graveyard.add(card);
+    }
+
     public Card getNextCard() {
         return this.nextCard;
     }
 
+    void setNextCard(Card nextCard) {
+        this.nextCard = nextCard;
+    }
+
     public ArrayList<Card> getCollectedItems() {
         return this.collectedItems;
     }
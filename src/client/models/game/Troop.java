@@ -20,8 +20,14 @@ public class Troop {
     private int enemyHitChanges;
     private Card flag;
 
-    public Troop(Card card, Cell cell) {
+    private Troop() {
+    }
 
+    public Troop(Card card, Cell cell) {
+        this.card = card;
+        this.cell = cell;
+        this.currentAp = card.getDefaultAp();
+        this.currentHp = card.getDefaultHp();
     }
 
     public Card getCard() {
@@ -40,6 +46,18 @@ public class Troop {
         return this.cell;
     }
 
+    void setCell(Cell cell) {
+        this.cell = cell;
+    }
+
+    void setCurrentAp(int currentAp) {
+        this.currentAp = currentAp;
+    }
+
+    void setCurrentHp(int currentHp) {
+        this.currentHp = currentHp;
+    }
+
     public boolean canMove() {
         return this.cantMove;
     }
@@ -31,6 +31,10 @@ public class GameMap {
         return collectibleItemCells;
     }
 
+    public Cell getCell(Position position) {
+        return cells[position.getRow()][position.getColumn()];
+    }
+
     public Troop getTroop(Cell cell) {
         return null;
     }
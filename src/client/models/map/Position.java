@@ -4,6 +4,9 @@ public class Position {
 	private int row;
 	private int column;
 
+	private Position() {
+	}
+
 	Position(Cell cell) {
 		this.row = cell.getRow();
 		this.column = cell.getColumn();
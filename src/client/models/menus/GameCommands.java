@@ -282,6 +282,10 @@ public class GameCommands extends Menu {
         //TODO: both clients will moveTroop to main menu.
     }
 
+    public Game getCurrentGame() {
+        return currentGame;
+    }
+
     public void setCurrentGame(Game currentGame) {
         this.currentGame = currentGame;
     }
@@ -16,16 +16,17 @@ public class Shop extends Menu {
     private Shop() {
     }
 
+    //asked on every visit; once the client has the cards the server only confirms its version
     public static Shop getInstance(Client client, String serverName) {
         if (SHOP == null) {
             SHOP = new Shop();
-            client.addToSendingMessages(
-                    Message.makeGetOriginalCardsMessage(
-                            client.getClientName(), serverName, 0
-                    )
-            );
-            client.sendMessages();
         }
+        client.addToSendingMessages(
+                Message.makeGetOriginalCardsMessage(
+                        client.getClientName(), serverName, client.getOriginalCardsVersion(), 0
+                )
+        );
+        client.sendMessages();
         return SHOP;
     }
 
@@ -13,16 +13,17 @@ public class StoryMenu extends Menu {
     private StoryMenu() {
     }
 
+    //asked on every visit; once the client has the stories the server only confirms its version
     public static StoryMenu getInstance(Client client, String serverName) {
         if (STORY_MENU == null) {
             STORY_MENU = new StoryMenu();
-            client.addToSendingMessages(
-                    Message.makeGetStoriesInfoMessage(
-                            client.getClientName(), serverName, 0
-                    )
-            );
-            client.sendMessages();
         }
+        client.addToSendingMessages(
+                Message.makeGetStoriesInfoMessage(
+                        client.getClientName(), serverName, client.getStoriesVersion(), 0
+                )
+        );
+        client.sendMessages();
         return STORY_MENU;
     }
 
@@ -36,6 +37,7 @@ public class StoryMenu extends Menu {
                         client.getClientName(), serverName, stage, 0
                 )
         );
+        client.sendMessages();
 
         if (!client.getValidation()) {
             throw new InputException(client.getErrorMessage());
@@ -8,6 +8,8 @@ import client.models.game.GameType;
 import client.models.map.Position;
 import client.models.account.TempAccount;
 import client.models.game.Game;
+import client.models.game.GameChange;
+import server.network.BinaryCodec;
 
 public class Message {
     private MessageType messageType;
@@ -27,6 +29,8 @@ public class Message {
     private String cardId;
     private String[] cardIds;
     private int turnNum;
+    private int gameVersion;
+    private GameChange[] gameChanges;
     private int numberOfFlags;
     private String cardName;
     private int newValue;
@@ -37,6 +41,15 @@ public class Message {
     private String opponentUserName;
     private GameType gameType;
     private String sudoCommand;
+    //leader board page: 1-based rank of its first entry, its length, the board size and the requester's rank
+    private int startRank;
+    private int pageSize;
+    private int leaderBoardSize;
+    private int rank;
+    private String catalogVersion;
+
+    private Message() {
+    }
 
     private Message(String sender, String receiver, int messageId) {
         this.sender = sender;
@@ -48,6 +61,10 @@ public class Message {
         return JsonConverter.fromJson(messageJson, Message.class);
     }
 
+    public static Message convertBinaryToMessage(byte[] messageBytes) {
+        return BinaryCodec.decode(messageBytes, Message.class);
+    }
+
     public static Message makeMoveTroopMessage(String sender, String receiver, String cardId, Position position, int messageId) {
         Message message = new Message(sender, receiver, messageId);
         message.cardId = cardId;
@@ -56,14 +73,16 @@ public class Message {
         return message;
     }
 
-    public static Message makeGetOriginalCardsMessage(String sender, String receiver, int messageId) {
+    public static Message makeGetOriginalCardsMessage(String sender, String receiver, String catalogVersion, int messageId) {
         Message message = new Message(sender, receiver, messageId);
+        message.catalogVersion = catalogVersion;
         message.messageType = MessageType.GET_ORIGINAL_CARDS;
         return message;
     }
 
-    public static Message makeGetStoriesInfoMessage(String sender, String receiver, int messageId) {
+    public static Message makeGetStoriesInfoMessage(String sender, String receiver, String catalogVersion, int messageId) {
         Message message = new Message(sender, receiver, messageId);
+        message.catalogVersion = catalogVersion;
         message.messageType = MessageType.GET_STORIES;
         return message;
     }
@@ -74,6 +93,21 @@ public class Message {
         return message;
     }
 
+    public static Message makeGetLeaderBoardPageMessage(String sender, String receiver, int startRank, int pageSize, int messageId) {
+        Message message = makeGetLeaderBoardMessage(sender, receiver, messageId);
+        message.startRank = startRank;
+        message.pageSize = pageSize;
+        return message;
+    }
+
+    //the page around username's rank
+    public static Message makeGetLeaderBoardAroundMessage(String sender, String receiver, String username, int pageSize, int messageId) {
+        Message message = makeGetLeaderBoardMessage(sender, receiver, messageId);
+        message.username = username;
+        message.pageSize = pageSize;
+        return message;
+    }
+
     public static Message makeCreateDeckMessage(String sender, String receiver, String deckName, String userName, int messageId) {
         Message message = new Message(sender, receiver, messageId);
         message.deckName = deckName;
@@ -136,6 +170,13 @@ public class Message {
         return message;
     }
 
+    public static Message makeGameAckMessage(String sender, String receiver, int gameVersion, int messageId) {
+        Message message = new Message(sender, receiver, messageId);
+        message.gameVersion = gameVersion;
+        message.messageType = MessageType.GAME_ACK;
+        return message;
+    }
+
     public static Message makeInsertMessage(String sender, String receiver, String cardId, Position position, int messageId) {
         Message message = new Message(sender, receiver, messageId);
         message.cardId = cardId;
@@ -234,6 +275,10 @@ public class Message {
         return JsonConverter.toJson(this);
     }
 
+    public byte[] toBinary() {
+        return BinaryCodec.encode(this);
+    }
+
     public MessageType getMessageType() {
         return messageType;
     }
@@ -274,6 +319,22 @@ public class Message {
         return leaderBoard;
     }
 
+    public int getStartRank() {
+        return startRank;
+    }
+
+    public int getLeaderBoardSize() {
+        return leaderBoardSize;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public String getCatalogVersion() {
+        return catalogVersion;
+    }
+
     public DeckInfo[] getStories() {
         return stories;
     }
@@ -290,6 +351,14 @@ public class Message {
         return cardId;
     }
 
+    public int getGameVersion() {
+        return gameVersion;
+    }
+
+    public GameChange[] getGameChanges() {
+        return gameChanges;
+    }
+
     public int getTurnNum() {
         return turnNum;
     }
@@ -40,5 +40,7 @@ public enum MessageType {
     NEW_STORY_GAME,
     SELECT_USER,
     SUDO,
-    GET_STORIES
+    GET_STORIES,
+    GAME_DELTA,
+    GAME_ACK
 }
\ No newline at end of file
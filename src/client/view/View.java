@@ -35,7 +35,7 @@ public class View {
     }
 
     public void showLeaderBoard(Client client) {
-        int counter = 1;
+        int counter = client.getLeaderBoardStart();
         for (AccountInfo account : client.getLeaderBoard()) {
             System.out.println(counter + "- UserName : " + account.getUsername() + " - Wins : " + account.getWins());
             counter++;
@@ -0,0 +1,71 @@
+package loadtest;
+
+import client.Client;
+import client.models.message.Message;
+import server.Server;
+
+import java.util.concurrent.locks.LockSupport;
+
+//Virtual clients are local Clients of this process's Server and exchange JSON with it the way Client does.
+//One thread drains the server's receiving queue, like the socket server's selector thread.
+public class InProcessTransport implements Transport, Runnable {
+    private static final long IDLE_PARK_NANOS = 100_000;
+
+    private final Server server;
+    private final Thread pumpThread = new Thread(this, "LoadTest-Pump");
+    private volatile boolean running = true;
+
+    public InProcessTransport(Server server) {
+        this.server = server;
+        pumpThread.setDaemon(true);
+        pumpThread.start();
+    }
+
+    //Server.addClient is not thread safe, so clients connect from one thread
+    @Override
+    public void connect(VirtualClient client) {
+        server.addClient(new LoadClient(client, server));
+    }
+
+    @Override
+    public void send(VirtualClient client, Message message) {
+        server.addToReceivingMessages(message.toJson());
+        LockSupport.unpark(pumpThread);
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            if (server.getReceivingQueue().getDepth() == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            } else {
+                server.receiveMessages();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(pumpThread);
+    }
+
+    @Override
+    public String toString() {
+        return "in-process";
+    }
+
+    private static class LoadClient extends Client {
+        private final VirtualClient virtualClient;
+
+        private LoadClient(VirtualClient virtualClient, Server server) {
+            super(virtualClient.getClientName(), server);
+            this.virtualClient = virtualClient;
+        }
+
+        @Override
+        public void addToReceivingMessages(String messageJson) {
+            virtualClient.receive(Message.convertJsonToMessage(messageJson));
+        }
+    }
+}
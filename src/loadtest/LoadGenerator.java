@@ -0,0 +1,198 @@
+package loadtest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//Runs N virtual clients against a server through a transport and collects their LoadStats.
+//Clients connect first, start over the ramp up time, and their stats are reset when the warm up ends.
+//Think times are exponential around the mean, like independent users; 0 makes every client send back to back.
+public class LoadGenerator {
+    private static final long DEFAULT_THINK_MILLIS = 500;
+    private static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+    private static final long DEFAULT_RAMP_UP_MILLIS = 1000;
+    private static final int DEFAULT_BROWSE_ACTIONS = 8;
+    private static final double DEFAULT_MATCH_SHARE = 0.3;
+    private static final int DEFAULT_MATCH_TURNS = 20;
+    private static final int MAX_THINK_FACTOR = 10;//a think time is at most this many means
+
+    private final Transport transport;
+    private final String serverName;
+    private final int clients;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ArrayList<VirtualClient> virtualClients = new ArrayList<>();
+    private final Object lobbyLock = new Object();
+    private VirtualClient waitingClient;
+    private volatile LoadStats stats;
+    private volatile boolean stopping;
+    private long thinkMillis = DEFAULT_THINK_MILLIS;
+    private long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+    private long rampUpMillis = DEFAULT_RAMP_UP_MILLIS;
+    private int browseActions = DEFAULT_BROWSE_ACTIONS;
+    private double matchShare = DEFAULT_MATCH_SHARE;
+    private int matchTurns = DEFAULT_MATCH_TURNS;
+    private Runnable warmupListener;
+    //browse requests: leaderboard pages, buying or selling, deck editing
+    private int leaderBoardWeight = 40;
+    private int shopWeight = 35;
+    private int deckWeight = 25;
+
+    public LoadGenerator(Transport transport, String serverName, int clients, int threads) {
+        this.transport = transport;
+        this.serverName = serverName;
+        this.clients = Math.max(1, clients);
+        scheduler = new ScheduledThreadPoolExecutor(Math.max(1, threads));
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    public void setThinkMillis(long thinkMillis) {
+        this.thinkMillis = Math.max(0, thinkMillis);
+    }
+
+    public void setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = Math.max(1, timeoutMillis);
+    }
+
+    public void setRampUpMillis(long rampUpMillis) {
+        this.rampUpMillis = Math.max(0, rampUpMillis);
+    }
+
+    public void setBrowseActions(int browseActions) {
+        this.browseActions = Math.max(0, browseActions);
+    }
+
+    public void setMatchShare(double matchShare) {
+        this.matchShare = Math.max(0, Math.min(1, matchShare));
+    }
+
+    public void setMatchTurns(int matchTurns) {
+        this.matchTurns = Math.max(1, matchTurns);
+    }
+
+    //runs when the warm up ends and the stats are reset
+    public void setWarmupListener(Runnable warmupListener) {
+        this.warmupListener = warmupListener;
+    }
+
+    public void setMix(int leaderBoardWeight, int shopWeight, int deckWeight) {
+        this.leaderBoardWeight = Math.max(0, leaderBoardWeight);
+        this.shopWeight = Math.max(0, shopWeight);
+        this.deckWeight = Math.max(0, deckWeight);
+        if (getTotalWeight() == 0) {
+            this.leaderBoardWeight = 1;
+        }
+    }
+
+    public LoadStats run(long warmupMillis, long durationMillis) throws IOException, InterruptedException {
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        stats = new LoadStats(clients, transport.toString());
+        for (int i = 0; i < clients; i++) {
+            VirtualClient client = new VirtualClient(this, "load" + runId + "_" + i, serverName);
+            transport.connect(client);
+            virtualClients.add(client);
+        }
+        for (VirtualClient client : virtualClients) {
+            client.start(rampUpMillis == 0 ? 0 : ThreadLocalRandom.current().nextLong(rampUpMillis));
+        }
+        Thread.sleep(warmupMillis);
+        LoadStats measured = new LoadStats(clients, transport.toString());
+        stats = measured;
+        if (warmupListener != null) {
+            warmupListener.run();
+        }
+        Thread.sleep(durationMillis);
+        measured.finish();
+        stopping = true;
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        transport.close();
+        return measured;
+    }
+
+    //the first client to ask waits for the next one
+    VirtualClient findOpponent(VirtualClient client) {
+        synchronized (lobbyLock) {
+            if (waitingClient == null || waitingClient == client) {
+                waitingClient = client;
+                return null;
+            }
+            VirtualClient opponent = waitingClient;
+            waitingClient = null;
+            return opponent;
+        }
+    }
+
+    //null once the run is over; a scheduled future would swallow what the task throws
+    ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+        if (stopping) return null;
+        try {
+            return scheduler.schedule(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    void execute(Runnable task) {
+        schedule(task, 0);
+    }
+
+    long nextThinkMillis() {
+        if (thinkMillis == 0) return 0;
+        double think = -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * thinkMillis;
+        return (long) Math.min(think, MAX_THINK_FACTOR * thinkMillis);
+    }
+
+    boolean isStopping() {
+        return stopping;
+    }
+
+    Transport getTransport() {
+        return transport;
+    }
+
+    LoadStats getStats() {
+        return stats;
+    }
+
+    int getClients() {
+        return clients;
+    }
+
+    long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    int getBrowseActions() {
+        return browseActions;
+    }
+
+    double getMatchShare() {
+        return matchShare;
+    }
+
+    int getMatchTurns() {
+        return matchTurns;
+    }
+
+    int getShopWeight() {
+        return shopWeight;
+    }
+
+    int getDeckWeight() {
+        return deckWeight;
+    }
+
+    int getTotalWeight() {
+        return leaderBoardWeight + shopWeight + deckWeight;
+    }
+}
@@ -0,0 +1,109 @@
+package loadtest;
+
+import client.models.message.MessageType;
+import server.stats.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//Requests sent and their outcomes by MessageType; latency runs from sending a request to its reply, exceptions included.
+public class LoadStats {
+    private static final MessageType[] MESSAGE_TYPES = MessageType.values();
+
+    private final int clients;
+    private final String transport;
+    private final LatencyHistogram[] latencies = new LatencyHistogram[MESSAGE_TYPES.length];
+    private final LongAdder[] sent = new LongAdder[MESSAGE_TYPES.length];
+    private final LongAdder[] successes = new LongAdder[MESSAGE_TYPES.length];
+    private final LongAdder[] exceptions = new LongAdder[MESSAGE_TYPES.length];
+    private final LongAdder[] timeouts = new LongAdder[MESSAGE_TYPES.length];
+    private final LongAdder matches = new LongAdder();
+    private final long start = System.nanoTime();
+    private volatile long end;
+
+    LoadStats(int clients, String transport) {
+        this.clients = clients;
+        this.transport = transport;
+        for (int i = 0; i < MESSAGE_TYPES.length; i++) {
+            latencies[i] = new LatencyHistogram();
+            sent[i] = new LongAdder();
+            successes[i] = new LongAdder();
+            exceptions[i] = new LongAdder();
+            timeouts[i] = new LongAdder();
+        }
+    }
+
+    void addSent(MessageType type) {
+        sent[type.ordinal()].increment();
+    }
+
+    void addSuccess(MessageType type, long nanos) {
+        successes[type.ordinal()].increment();
+        latencies[type.ordinal()].record(nanos);
+    }
+
+    void addException(MessageType type, long nanos) {
+        exceptions[type.ordinal()].increment();
+        latencies[type.ordinal()].record(nanos);
+    }
+
+    void addTimeout(MessageType type) {
+        timeouts[type.ordinal()].increment();
+    }
+
+    void addMatch() {
+        matches.increment();
+    }
+
+    void finish() {
+        end = System.nanoTime();
+    }
+
+    public double getSeconds() {
+        return ((end == 0 ? System.nanoTime() : end) - start) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    public long getSent(MessageType type) {
+        return sent[type.ordinal()].sum();
+    }
+
+    public long getReplies(MessageType type) {
+        return successes[type.ordinal()].sum() + exceptions[type.ordinal()].sum();
+    }
+
+    public LatencyHistogram getLatencies(MessageType type) {
+        return latencies[type.ordinal()];
+    }
+
+    public long getTotalReplies() {
+        long replies = 0;
+        for (MessageType type : MESSAGE_TYPES) {
+            replies += getReplies(type);
+        }
+        return replies;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(String.format(
+                "%d clients over %s for %.1f s: %d replies, %.0f replies/s, %d matches%n",
+                clients, transport, getSeconds(), getTotalReplies(), getTotalReplies() / getSeconds(), matches.sum()));
+        builder.append(String.format("%-20s %9s %9s %9s %8s %10s %9s %9s %9s %9s%n", "type", "sent", "ok",
+                "exception", "timeout", "replies/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        for (MessageType type : MESSAGE_TYPES) {
+            int i = type.ordinal();
+            if (getSent(type) == 0) continue;
+            LatencyHistogram histogram = latencies[i];
+            builder.append(String.format("%-20s %9d %9d %9d %8d %10.1f %9.3f %9.3f %9.3f %9.3f%n", type,
+                    sent[i].sum(), successes[i].sum(), exceptions[i].sum(), timeouts[i].sum(),
+                    getReplies(type) / getSeconds(), toMillis(histogram.getValueAtPercentile(50)),
+                    toMillis(histogram.getValueAtPercentile(99)), toMillis(histogram.getValueAtPercentile(99.9)),
+                    toMillis(histogram.getMax())));
+        }
+        return builder.toString();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1e6;
+    }
+}
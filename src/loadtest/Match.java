@@ -0,0 +1,43 @@
+package loadtest;
+
+//Two virtual clients playing one game over the protocol. The host asked for the game, so it is player one and
+//moves first; a player's turn starts once its copy of the game has the other player's END_TURN.
+//The server has no rule that ends a game yet, so a match is over when a hero is dead or after maxTurns turns.
+class Match {
+    private final LoadGenerator generator;
+    private final VirtualClient host;
+    private final VirtualClient guest;
+    private final int maxTurns;
+    private int turns;
+    private boolean over;
+
+    Match(LoadGenerator generator, VirtualClient host, VirtualClient guest, int maxTurns) {
+        this.generator = generator;
+        this.host = host;
+        this.guest = guest;
+        this.maxTurns = maxTurns;
+    }
+
+    //the other client is reached through the scheduler, so no client lock is taken while another is held
+    synchronized void endTurn(VirtualClient player, int gameVersion, boolean heroDead) {
+        if (over) return;
+        turns++;
+        if (heroDead || turns >= maxTurns) {
+            finish(true);
+        } else {
+            VirtualClient opponent = player == host ? guest : host;
+            generator.execute(() -> opponent.startTurn(gameVersion));
+        }
+    }
+
+    //played is false when the game could not be made
+    synchronized void finish(boolean played) {
+        if (over) return;
+        over = true;
+        if (played) {
+            generator.getStats().addMatch();
+        }
+        generator.execute(host::leaveMatch);
+        generator.execute(guest::leaveMatch);
+    }
+}
@@ -0,0 +1,228 @@
+package loadtest;
+
+import client.models.message.Message;
+import server.network.Frames;
+import server.network.WireFormat;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+//Every virtual client has its own connection to a SocketServer, with SocketServer's framing and preamble.
+//All connections are multiplexed on one selector thread rather than blocking a thread per connection.
+public class SocketTransport implements Transport, Runnable {
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    private final InetSocketAddress address;
+    private final WireFormat requestedFormat;
+    private final Map<VirtualClient, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final Queue<Endpoint> pendingRegistrations = new ConcurrentLinkedQueue<>();
+    private final Queue<Endpoint> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final Selector selector;
+    private final Thread selectorThread = new Thread(this, "LoadTest-Selector");
+    private volatile boolean running = true;
+
+    public SocketTransport(String host, int port, WireFormat requestedFormat) throws IOException {
+        this.address = new InetSocketAddress(host, port);
+        this.requestedFormat = requestedFormat;
+        selector = Selector.open();
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    //the preamble is exchanged blocking, then the channel joins the selector
+    @Override
+    public void connect(VirtualClient client) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+        ByteBuffer preamble = ByteBuffer.wrap(new byte[]{requestedFormat.getPreamble()});
+        while (preamble.hasRemaining()) {
+            channel.write(preamble);
+        }
+        preamble.clear();
+        if (channel.read(preamble) != 1) {
+            channel.close();
+            throw new IOException("Connection Was Closed By Server.");
+        }
+        WireFormat wireFormat = WireFormat.fromPreamble(preamble.get(0));
+        if (wireFormat == null) {
+            channel.close();
+            throw new IOException("Invalid Wire Format From Server.");
+        }
+        channel.configureBlocking(false);
+        Endpoint endpoint = new Endpoint(client, channel, wireFormat);
+        endpoints.put(client, endpoint);
+        pendingRegistrations.add(endpoint);
+        selector.wakeup();
+    }
+
+    @Override
+    public void send(VirtualClient client, Message message) {
+        Endpoint endpoint = endpoints.get(client);
+        if (endpoint == null) return;
+        byte[] body;
+        if (endpoint.wireFormat == WireFormat.BINARY) {
+            body = message.toBinary();
+        } else {
+            body = message.toJson().getBytes(StandardCharsets.UTF_8);
+        }
+        endpoint.writeQueue.add(Frames.encode(body));
+        pendingWrites.add(endpoint);
+        selector.wakeup();
+    }
+
+    //the keys and the selector are only touched here, so close() leaves closing them to this thread
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                registerPending();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Endpoint endpoint = (Endpoint) key.attachment();
+                    if (key.isValid() && key.isReadable()) {
+                        read(endpoint);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        write(endpoint);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (running) e.printStackTrace();
+        } finally {
+            for (Endpoint endpoint : endpoints.values()) {
+                close(endpoint);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void registerPending() throws IOException {
+        Endpoint endpoint;
+        while ((endpoint = pendingRegistrations.poll()) != null) {
+            endpoint.key = endpoint.channel.register(selector, SelectionKey.OP_READ, endpoint);
+        }
+        while ((endpoint = pendingWrites.poll()) != null) {
+            if (endpoint.key != null && endpoint.key.isValid() && !endpoint.writeQueue.isEmpty()) {
+                endpoint.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            } else if (endpoint.key == null) {
+                pendingWrites.add(endpoint);//registered with the next wakeup
+                break;
+            }
+        }
+    }
+
+    private void read(Endpoint endpoint) {
+        try {
+            if (!endpoint.readBuffer.hasRemaining()) {
+                ByteBuffer newBuffer = ByteBuffer.allocate(Math.min(endpoint.readBuffer.capacity() * 2,
+                        Frames.HEADER_SIZE + Frames.MAX_FRAME_SIZE));
+                endpoint.readBuffer.flip();
+                newBuffer.put(endpoint.readBuffer);
+                endpoint.readBuffer = newBuffer;
+            }
+            if (endpoint.channel.read(endpoint.readBuffer) == -1) {
+                close(endpoint);
+                return;
+            }
+            endpoint.readBuffer.flip();
+            byte[] body;
+            while ((body = Frames.decode(endpoint.readBuffer)) != null) {
+                Message message;
+                try {
+                    if (endpoint.wireFormat == WireFormat.BINARY) {
+                        message = Message.convertBinaryToMessage(body);
+                    } else {
+                        message = Message.convertJsonToMessage(new String(body, StandardCharsets.UTF_8));
+                    }
+                } catch (RuntimeException e) {
+                    message = null;
+                }
+                if (message == null) {
+                    System.out.println("Load Test Received An Invalid Message.");//the request times out
+                    continue;
+                }
+                endpoint.client.receive(message);
+            }
+            endpoint.readBuffer.compact();
+        } catch (IOException | Frames.InvalidFrameException e) {
+            System.out.println("Load Test Connection Was Closed: " + e.getMessage());
+            close(endpoint);
+        }
+    }
+
+    private void write(Endpoint endpoint) {
+        try {
+            ByteBuffer buffer;
+            while ((buffer = endpoint.writeQueue.peek()) != null) {
+                endpoint.channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    return;
+                }
+                endpoint.writeQueue.poll();
+            }
+            endpoint.key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            close(endpoint);
+        }
+    }
+
+    private void close(Endpoint endpoint) {
+        endpoints.remove(endpoint.client, endpoint);
+        if (endpoint.key != null) {
+            endpoint.key.cancel();
+        }
+        try {
+            endpoint.channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "socket " + address.getHostString() + ":" + address.getPort() + " (" + requestedFormat + ")";
+    }
+
+    private static class Endpoint {
+        private final VirtualClient client;
+        private final SocketChannel channel;
+        private final WireFormat wireFormat;
+        private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+        private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private SelectionKey key;
+
+        private Endpoint(VirtualClient client, SocketChannel channel, WireFormat wireFormat) {
+            this.client = client;
+            this.channel = channel;
+            this.wireFormat = wireFormat;
+        }
+    }
+}
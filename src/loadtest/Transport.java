@@ -0,0 +1,14 @@
+package loadtest;
+
+import client.models.message.Message;
+
+import java.io.IOException;
+
+//How virtual clients reach the server; every message for a client is handed to its receive method.
+public interface Transport {
+    void connect(VirtualClient client) throws IOException;
+
+    void send(VirtualClient client, Message message);
+
+    void close();
+}
@@ -0,0 +1,613 @@
+package loadtest;
+
+import client.models.account.Account;
+import client.models.account.Collection;
+import client.models.card.AttackType;
+import client.models.card.Card;
+import client.models.card.CardType;
+import client.models.card.Deck;
+import client.models.game.Game;
+import client.models.game.GameType;
+import client.models.game.Player;
+import client.models.game.Troop;
+import client.models.map.Cell;
+import client.models.map.Position;
+import client.models.message.Message;
+import client.models.message.MessageType;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+//One scripted user. A session signs in, asks for the card catalog with the version it has, then browses the
+//leaderboard, shops and edits decks; some sessions build a deck and play a match against another virtual client.
+//A request waits for its reply or the timeout, and the next one goes out after a think time.
+//LOG_OUT and GAME_ACK get no reply. An account that played a match stays in its game, so the next session registers a new one.
+public class VirtualClient {
+    private static final String PASSWORD = "password";
+    private static final String MATCH_DECK = "match";
+    private static final String SCRATCH_DECK = "scratch";
+    private static final int DECK_SIZE = 20;
+    private static final int LEADERBOARD_PAGE_SIZE = 20;
+    private static final int MAX_INSERTS_PER_TURN = 2;
+
+    private enum Phase {SIGN_IN, CATALOG, BROWSE, BUILD_DECK, LOBBY, MATCH, SIGN_OUT}
+
+    private final LoadGenerator generator;
+    private final String clientName;
+    private final String serverName;
+    private Phase phase = Phase.SIGN_IN;
+    private int accountNumber;
+    private boolean registered;
+    private boolean playedMatch;
+    private int browseLeft;
+    private boolean wantsMatch;
+    private Account account;
+    private Collection catalog;
+    private String catalogVersion;
+    private Match match;
+    private Game game;
+    private int ackedVersion;
+    private boolean myTurn;
+    private int awaitedVersion = -1;//the turn starts once the game copy has this version
+    private final HashSet<String> triedThisTurn = new HashSet<>();
+    private int insertsThisTurn;
+    private int messageId;
+    private MessageType pendingType;//of the request waiting for its reply
+    private int pendingId;
+    private long pendingStart;
+    private LoadStats pendingStats;//replies count in the stats their request was sent in, not a later window
+    private ScheduledFuture<?> pendingTimeout;
+
+    VirtualClient(LoadGenerator generator, String clientName, String serverName) {
+        this.generator = generator;
+        this.clientName = clientName;
+        this.serverName = serverName;
+    }
+
+    public String getClientName() {
+        return clientName;
+    }
+
+    private String getUsername() {
+        return clientName + "_" + accountNumber;
+    }
+
+    void start(long delayMillis) {
+        generator.schedule(this::step, delayMillis);
+    }
+
+    private void scheduleStep() {
+        generator.schedule(this::step, generator.nextThinkMillis());
+    }
+
+    private synchronized void step() {
+        if (pendingType != null || generator.isStopping()) return;
+        Message request = nextRequest();
+        if (request == null) return;//waiting for an opponent or its turn
+        if (isGameRequest(request.getMessageType())) {
+            acknowledge();
+        }
+        send(request);
+        if (!expectsReply(request.getMessageType())) {
+            scheduleStep();
+        }
+    }
+
+    private void send(Message message) {
+        MessageType type = message.getMessageType();
+        generator.getStats().addSent(type);
+        if (expectsReply(type)) {
+            int id = message.getMessageId();
+            pendingType = type;
+            pendingId = id;
+            pendingStart = System.nanoTime();
+            pendingStats = generator.getStats();
+            pendingTimeout = generator.schedule(() -> timeout(id), generator.getTimeoutMillis());
+        }
+        generator.getTransport().send(this, message);
+    }
+
+    private synchronized void timeout(int id) {
+        if (pendingType == null || id != pendingId) return;
+        pendingStats.addTimeout(pendingType);
+        finishRequest(pendingType, null);
+    }
+
+    //called on the transport's thread
+    synchronized void receive(Message message) {
+        if (message == null || message.getMessageType() == null) return;
+        update(message);
+        MessageType type = pendingType;
+        if (type != null && isReply(type, message)) {
+            if (pendingTimeout != null) {
+                pendingTimeout.cancel(false);
+            }
+            long nanos = System.nanoTime() - pendingStart;
+            if (message.getMessageType() == MessageType.SEND_EXCEPTION) {
+                pendingStats.addException(type, nanos);
+            } else {
+                pendingStats.addSuccess(type, nanos);
+            }
+            finishRequest(type, message);
+        }
+        if (awaitedVersion >= 0 && game != null && game.getVersion() >= awaitedVersion) {
+            awaitedVersion = -1;
+            scheduleStep();
+        }
+    }
+
+    private void update(Message message) {
+        switch (message.getMessageType()) {
+            case ACCOUNT_COPY:
+                account = new Account(message.getAccount());
+                break;
+            case ORIGINAL_CARDS_COPY:
+                if (message.getOriginalCards() != null) {
+                    catalog = message.getOriginalCards();
+                    catalogVersion = message.getCatalogVersion();
+                }
+                break;
+            case GAME_COPY:
+                game = message.getGame();
+                game.setVersion(message.getGameVersion());
+                //the server counts a copy as acknowledged; the last game's version would hold back every ack of this one
+                ackedVersion = message.getGameVersion();
+                break;
+            case GAME_DELTA:
+                if (game != null) {
+                    game.applyChanges(message.getGameChanges(), message.getGameVersion());
+                    //a client waiting for its turn sends no commands to carry the ack, and each delta would grow;
+                    //the ack is sent through the scheduler, not from the thread that delivered the delta
+                    if (!myTurn) {
+                        generator.execute(this::acknowledgeWhileWaiting);
+                    }
+                }
+                break;
+        }
+    }
+
+    private synchronized void acknowledgeWhileWaiting() {
+        if (!myTurn) {
+            acknowledge();
+        }
+    }
+
+    private void acknowledge() {
+        if (game != null && ackedVersion < game.getVersion()) {
+            ackedVersion = game.getVersion();
+            send(Message.makeGameAckMessage(clientName, serverName, ackedVersion, ++messageId));
+        }
+    }
+
+    //reply is null after a timeout
+    private void finishRequest(MessageType type, Message reply) {
+        pendingType = null;
+        pendingTimeout = null;
+        boolean failed = reply == null || reply.getMessageType() == MessageType.SEND_EXCEPTION;
+        switch (type) {
+            case NEW_MULTIPLAYER_GAME:
+                if (failed || game == null) {
+                    match.finish(false);
+                    return;
+                }
+                resetTurn();
+                break;
+            case END_TURN:
+                if (match != null) {
+                    match.endTurn(this, game == null ? 0 : game.getVersion(), isHeroDead());
+                }
+                return;
+            case BUY_CARD:
+            case ADD_TO_DECK:
+            case CREATE_DECK:
+            case SELECT_DECK:
+                if (failed && phase == Phase.BUILD_DECK) {
+                    phase = Phase.SIGN_OUT;
+                }
+                break;
+        }
+        if (phase == Phase.MATCH && !myTurn) return;
+        scheduleStep();
+    }
+
+    synchronized void startTurn(int gameVersion) {
+        resetTurn();
+        if (game != null && game.getVersion() >= gameVersion) {
+            scheduleStep();
+        } else {
+            awaitedVersion = gameVersion;
+        }
+    }
+
+    private void resetTurn() {
+        myTurn = true;
+        triedThisTurn.clear();
+        insertsThisTurn = 0;
+    }
+
+    synchronized void joinMatch(Match match) {
+        this.match = match;
+        phase = Phase.MATCH;
+    }
+
+    synchronized void leaveMatch() {
+        match = null;
+        game = null;
+        myTurn = false;
+        awaitedVersion = -1;
+        playedMatch = true;
+        phase = Phase.SIGN_OUT;
+        if (pendingType == null) {
+            scheduleStep();
+        }
+    }
+
+    private Message nextRequest() {
+        switch (phase) {
+            case SIGN_IN:
+                phase = Phase.CATALOG;
+                if (registered) {
+                    return Message.makeLogInMessage(clientName, serverName, getUsername(), PASSWORD, ++messageId);
+                }
+                registered = true;
+                return Message.makeRegisterMessage(clientName, serverName, getUsername(), PASSWORD, ++messageId);
+            case CATALOG:
+                if (account == null) {//sign in failed, try a new account
+                    accountNumber++;
+                    registered = false;
+                    phase = Phase.SIGN_IN;
+                    return nextRequest();
+                }
+                phase = Phase.BROWSE;
+                browseLeft = generator.getBrowseActions();
+                wantsMatch = ThreadLocalRandom.current().nextDouble() < generator.getMatchShare();
+                return Message.makeGetOriginalCardsMessage(clientName, serverName, catalogVersion, ++messageId);
+            case BROWSE:
+                if (browseLeft-- > 0) {
+                    return makeBrowseRequest(ThreadLocalRandom.current());
+                }
+                phase = wantsMatch && catalog != null ? Phase.BUILD_DECK : Phase.SIGN_OUT;
+                return nextRequest();
+            case BUILD_DECK:
+                Message deckRequest = makeDeckRequest();
+                if (deckRequest != null) {
+                    return deckRequest;
+                }
+                phase = Phase.LOBBY;
+                VirtualClient opponent = generator.findOpponent(this);
+                if (opponent == null) {
+                    return null;
+                }
+                match = new Match(generator, this, opponent, generator.getMatchTurns());
+                phase = Phase.MATCH;
+                Match newMatch = match;
+                generator.execute(() -> opponent.joinMatch(newMatch));
+                return Message.makeNewMultiPlayerGameMessage(clientName, serverName, GameType.KILL_HERO, 0,
+                        opponent.getUsername(), ++messageId);
+            case MATCH:
+                return myTurn && game != null ? makeTurnRequest() : null;
+            case SIGN_OUT:
+                phase = Phase.SIGN_IN;
+                account = null;
+                if (playedMatch) {
+                    accountNumber++;
+                    registered = false;
+                    playedMatch = false;
+                }
+                return Message.makeLogOutMessage(clientName, serverName, ++messageId);
+            default:
+                return null;
+        }
+    }
+
+    private Message makeBrowseRequest(Random random) {
+        int roll = random.nextInt(generator.getTotalWeight());
+        Message request = null;
+        if (roll < generator.getShopWeight()) {
+            request = random.nextBoolean() ? makeBuyRequest(random) : makeSellRequest(random);
+        } else if (roll < generator.getShopWeight() + generator.getDeckWeight()) {
+            request = makeDeckEditRequest(random);
+        }
+        if (request != null) {
+            return request;
+        }
+        switch (random.nextInt(4)) {
+            case 0:
+                return Message.makeGetLeaderBoardPageMessage(clientName, serverName,
+                        1 + random.nextInt(Math.max(1, generator.getClients())), LEADERBOARD_PAGE_SIZE, ++messageId);
+            case 1:
+                return Message.makeGetLeaderBoardAroundMessage(clientName, serverName,
+                        getUsername(), LEADERBOARD_PAGE_SIZE, ++messageId);
+            default:
+                return Message.makeGetLeaderBoardMessage(clientName, serverName, ++messageId);
+        }
+    }
+
+    //leaves enough money for a match deck
+    private Message makeBuyRequest(Random random) {
+        if (catalog == null) return null;
+        int budget = account.getMoney() - getMatchDeckPrice();
+        ArrayList<Card> affordable = new ArrayList<>();
+        for (List<Card> cards : getShopLists(catalog)) {
+            for (Card card : cards) {
+                if (card.getPrice() <= budget) affordable.add(card);
+            }
+        }
+        if (affordable.isEmpty()) return null;
+        Card card = affordable.get(random.nextInt(affordable.size()));
+        return Message.makeBuyCardMessage(clientName, serverName, card.getName(), ++messageId);
+    }
+
+    private Message makeSellRequest(Random random) {
+        ArrayList<Card> unused = new ArrayList<>();
+        for (List<Card> cards : getShopLists(account.getCollection())) {
+            for (Card card : cards) {
+                if (!isInDeck(card)) unused.add(card);
+            }
+        }
+        if (unused.isEmpty()) return null;
+        Card card = unused.get(random.nextInt(unused.size()));
+        return Message.makeSellCardMessage(clientName, serverName, card.getCardId(), ++messageId);
+    }
+
+    private Message makeDeckEditRequest(Random random) {
+        Deck deck = findDeck(SCRATCH_DECK);
+        if (deck == null) {
+            return Message.makeCreateDeckMessage(clientName, serverName, SCRATCH_DECK, getUsername(), ++messageId);
+        }
+        int roll = random.nextInt(10);
+        if (roll < 5) {
+            Card card = findUnusedCard(random.nextBoolean() ? getMinions(account.getCollection()) :
+                    getSpells(account.getCollection()));
+            if (card != null) {
+                return Message.makeAddCardToDeckMessage(clientName, serverName, SCRATCH_DECK, card.getCardId(),
+                        getUsername(), ++messageId);
+            }
+        }
+        if (roll < 9 && !deck.getOthers().isEmpty()) {
+            Card card = deck.getOthers().get(random.nextInt(deck.getOthers().size()));
+            return Message.makeRemoveCardFromDeckMessage(clientName, serverName, SCRATCH_DECK, card.getCardId(),
+                    getUsername(), ++messageId);
+        }
+        return Message.makeRemoveDeckMessage(clientName, serverName, SCRATCH_DECK, getUsername(), ++messageId);
+    }
+
+    //the cheapest hero and minions, bought one request at a time; null once the deck is the valid main deck
+    private Message makeDeckRequest() {
+        Deck deck = findDeck(MATCH_DECK);
+        if (deck == null) {
+            return Message.makeCreateDeckMessage(clientName, serverName, MATCH_DECK, getUsername(), ++messageId);
+        }
+        if (deck.getHero() == null || deck.getOthers().size() < DECK_SIZE) {
+            boolean needsHero = deck.getHero() == null;
+            List<Card> owned = needsHero ? getHeroes(account.getCollection()) : getMinions(account.getCollection());
+            Card card = findUnusedCard(owned);
+            if (card != null) {
+                return Message.makeAddCardToDeckMessage(clientName, serverName, MATCH_DECK, card.getCardId(),
+                        getUsername(), ++messageId);
+            }
+            Card cheapest = findCheapest(needsHero ? getHeroes(catalog) : getMinions(catalog));
+            if (cheapest == null) {
+                phase = Phase.SIGN_OUT;
+                return nextRequest();
+            }
+            return Message.makeBuyCardMessage(clientName, serverName, cheapest.getName(), ++messageId);
+        }
+        if (account.getMainDeck() == null || !account.getMainDeck().areSame(MATCH_DECK)) {
+            return Message.makeSelectDeckMessage(clientName, serverName, MATCH_DECK, getUsername(), ++messageId);
+        }
+        return null;
+    }
+
+    //brings minions in next to the enemy hero, walks troops toward it and attacks what is in range, then ends the turn
+    private Message makeTurnRequest() {
+        Player me = game.getPlayer(account.getUsername());
+        Player enemy = me == game.getPlayerOne() ? game.getPlayerTwo() : game.getPlayerOne();
+        Troop enemyHero = enemy.getHero();
+        if (enemyHero != null && me.getHero() != null) {
+            if (insertsThisTurn < MAX_INSERTS_PER_TURN && me.getHand() != null) {
+                for (Card card : me.getHand()) {
+                    if (card.getType() != CardType.MINION || !triedThisTurn.add("insert " + card.getCardId())) continue;
+                    Position position = findEmptyPosition(enemyHero.getCell());
+                    if (position == null) break;
+                    insertsThisTurn++;
+                    return Message.makeInsertMessage(clientName, serverName, card.getCardId(), position, ++messageId);
+                }
+            }
+            for (Troop troop : me.getTroops()) {
+                if (!triedThisTurn.add("move " + troop.getCard().getCardId())) continue;
+                Position position = findStepToward(troop.getCell(), enemyHero.getCell());
+                if (position != null) {
+                    return Message.makeMoveTroopMessage(clientName, serverName, troop.getCard().getCardId(),
+                            position, ++messageId);
+                }
+            }
+            for (Troop troop : me.getTroops()) {
+                if (!triedThisTurn.add("attack " + troop.getCard().getCardId())) continue;
+                Troop target = findTarget(troop, enemy, enemyHero);
+                if (target != null) {
+                    return Message.makeAttackMessage(clientName, serverName, troop.getCard().getCardId(),
+                            target.getCard().getCardId(), ++messageId);
+                }
+            }
+        }
+        myTurn = false;
+        return Message.makeEndTurnMessage(clientName, serverName, ++messageId);
+    }
+
+    private boolean isHeroDead() {
+        return game == null || game.getPlayerOne().getHero() == null || game.getPlayerTwo().getHero() == null;
+    }
+
+    private Position findEmptyPosition(Cell target) {
+        Cell[][] cells = game.getGameMap().getCells();
+        Cell best = null;
+        for (Cell[] row : cells) {
+            for (Cell cell : row) {
+                if (isEmpty(cell) && (best == null || cell.manhattanDistance(target) < best.manhattanDistance(target))) {
+                    best = cell;
+                }
+            }
+        }
+        return best == null ? null : new Position(best.getRow(), best.getColumn());
+    }
+
+    private Position findStepToward(Cell from, Cell target) {
+        Cell[][] cells = game.getGameMap().getCells();
+        int[][] steps = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+        for (int[] step : steps) {
+            int row = from.getRow() + step[0];
+            int column = from.getColumn() + step[1];
+            if (row < 0 || row >= cells.length || column < 0 || column >= cells[row].length) continue;
+            Cell cell = cells[row][column];
+            if (cell.manhattanDistance(target) < from.manhattanDistance(target) && isEmpty(cell)) {
+                return new Position(row, column);
+            }
+        }
+        return null;
+    }
+
+    private boolean isEmpty(Cell cell) {
+        for (Player player : new Player[]{game.getPlayerOne(), game.getPlayerTwo()}) {
+            for (Troop troop : player.getTroops()) {
+                if (troop.getCell().getRow() == cell.getRow() && troop.getCell().getColumn() == cell.getColumn()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    //the enemy hero if it is in range, else the weakest troop in range
+    private Troop findTarget(Troop attacker, Player enemy, Troop enemyHero) {
+        if (isInRange(attacker, enemyHero)) return enemyHero;
+        Troop best = null;
+        for (Troop troop : enemy.getTroops()) {
+            if (isInRange(attacker, troop) && (best == null || troop.getCurrentHp() < best.getCurrentHp())) {
+                best = troop;
+            }
+        }
+        return best;
+    }
+
+    private boolean isInRange(Troop attacker, Troop defender) {
+        Cell from = attacker.getCell();
+        Cell to = defender.getCell();
+        AttackType attackType = attacker.getCard().getAttackType();
+        if (attackType == AttackType.MELEE) {
+            return from.isNextTo(to);
+        } else if (attackType == AttackType.RANGED) {
+            return !from.isNextTo(to) && from.manhattanDistance(to) <= attacker.getCard().getRange();
+        }
+        return from.manhattanDistance(to) <= attacker.getCard().getRange();
+    }
+
+    private Deck findDeck(String deckName) {
+        for (Deck deck : account.getDecks()) {
+            if (deck.areSame(deckName)) return deck;
+        }
+        return null;
+    }
+
+    //Card.equals throws on null, and a deck has no item or hero until one is added
+    private boolean isInDeck(Card card) {
+        for (Deck deck : account.getDecks()) {
+            if (isSameCard(card, deck.getHero()) || isSameCard(card, deck.getItem())) return true;
+            for (Card other : deck.getOthers()) {
+                if (isSameCard(card, other)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSameCard(Card card, Card other) {
+        return other != null && card.getCardId().equals(other.getCardId());
+    }
+
+    private Card findUnusedCard(List<Card> cards) {
+        for (Card card : cards) {
+            if (!isInDeck(card)) return card;
+        }
+        return null;
+    }
+
+    private int getMatchDeckPrice() {
+        Card hero = findCheapest(getHeroes(catalog));
+        Card minion = findCheapest(getMinions(catalog));
+        return (hero == null ? 0 : hero.getPrice()) + (minion == null ? 0 : DECK_SIZE * minion.getPrice());
+    }
+
+    private static Card findCheapest(List<Card> cards) {
+        Card cheapest = null;
+        for (Card card : cards) {
+            if (cheapest == null || card.getPrice() < cheapest.getPrice()) cheapest = card;
+        }
+        return cheapest;
+    }
+
+    //the shop sells everything but collectible items
+    private static List<List<Card>> getShopLists(Collection collection) {
+        List<List<Card>> lists = new ArrayList<>();
+        lists.add(getHeroes(collection));
+        lists.add(getMinions(collection));
+        lists.add(getSpells(collection));
+        ArrayList<Card> items = new ArrayList<>();
+        for (Card item : orEmpty(collection.getItems())) {
+            if (item.getType() != CardType.COLLECTIBLE_ITEM) items.add(item);
+        }
+        lists.add(items);
+        return lists;
+    }
+
+    private static List<Card> getHeroes(Collection collection) {
+        return orEmpty(collection.getHeroes());
+    }
+
+    private static List<Card> getMinions(Collection collection) {
+        return orEmpty(collection.getMinions());
+    }
+
+    private static List<Card> getSpells(Collection collection) {
+        return orEmpty(collection.getSpells());
+    }
+
+    private static List<Card> orEmpty(List<Card> cards) {
+        return cards == null ? new ArrayList<>() : cards;
+    }
+
+    private static boolean expectsReply(MessageType type) {
+        return type != MessageType.LOG_OUT && type != MessageType.GAME_ACK;
+    }
+
+    private static boolean isGameRequest(MessageType type) {
+        switch (type) {
+            case INSERT:
+            case ATTACK:
+            case END_TURN:
+            case COMBO:
+            case USE_SPECIAL_POWER:
+            case MOVE_TROOP:
+            case NEW_MULTIPLAYER_GAME:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    //game requests are answered by the game's changes, others by a copy; both may be answered by an exception
+    private static boolean isReply(MessageType requestType, Message message) {
+        switch (message.getMessageType()) {
+            case SEND_EXCEPTION:
+                return true;
+            case GAME_COPY:
+            case GAME_DELTA:
+                return isGameRequest(requestType);
+            default:
+                return !isGameRequest(requestType);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package server;
 
+import AI.AI;
 import client.Client;
 import server.models.JsonConverter;
 import server.models.account.Account;
@@ -12,17 +13,34 @@ import server.models.card.Deck;
 import server.models.game.*;
 import server.models.map.GameMap;
 import server.models.map.Position;
+import server.dispatch.Dispatcher;
+import server.dispatch.MessageQueue;
+import server.models.message.CatalogSnapshot;
 import server.models.message.Message;
-import server.models.sorter.LeaderBoardSorter;
+import server.models.message.MessageType;
+import server.network.SocketServer;
+import server.network.WireFormat;
+import server.persistence.AccountPersister;
+import server.persistence.AccountStore;
+import server.registry.AccountRegistry;
+import server.registry.LeaderBoard;
+import server.registry.Session;
+import server.stats.DispatchStats;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class Server {
-    private static final String ACCOUNTS_PATH = "jsonData/accounts";
+    private static final String ACCOUNTS_PATH = "jsonData/accounts";//legacy files, imported into the store once
+    private static final String ACCOUNT_STORE_PATH = "jsonData/accountStore";
+    public static final String ACCOUNT_STORE_PROPERTY = "server.accountStore";//moves the store, e.g. for benchmarks
     private static final String[] CARDS_PATHS = {
             "jsonData/heroCards",
             "jsonData/minionCards",
@@ -35,23 +53,48 @@ public class Server {
 
     private static Server server;
     private String serverName;
-    private HashMap<Account, String> accounts = new HashMap<>();//Account -> ClientName
-    private HashMap<String, Account> clients = new HashMap<>();//clientName -> Account
-    private HashMap<Account, Game> onlineGames = new HashMap<>();//Account -> Game
+    private static final int ACCOUNT_THREADS = 1;//accounts aren't safe for concurrent writers
+    private static final int RECEIVING_QUEUE_CAPACITY = 1 << 14;
+    private static final int SENDING_QUEUE_CAPACITY = 1 << 16;
+    private static final int DEFAULT_DRAIN_BATCH_SIZE = 256;
+    private static final long DEFAULT_DURABILITY_WINDOW_MILLIS = 200;
+    private static final int ACCOUNT_CACHE_CAPACITY = 1024;
+    private static final int DEFAULT_LEADERBOARD_PAGE_SIZE = 50;
+    private static final int MAX_LEADERBOARD_PAGE_SIZE = 500;
+    private static final String AI_USERNAME = "AI";//reserved, so a player never shares a name with the AI
+    private static final int STORY_NUMBER_OF_FLAGS = 7;
+    private static final int LOADER_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    private AccountRegistry registry = new AccountRegistry(this::loadAccount, ACCOUNT_CACHE_CAPACITY);
+    private Map<Account, Game> onlineGames = new ConcurrentHashMap<>();//Account -> Game
+    private Map<Game, Integer> aiGames = new ConcurrentHashMap<>();//single player game -> turn the AI last started
     private ArrayList<Client> onlineClients = new ArrayList<>();
     private Collection originalCards = new Collection(); // TODO: collectibles may be in a different field
     private Card originalFlag;
     private ArrayList<Deck> customDecks = new ArrayList<>();
     private ArrayList<Story> stories = new ArrayList<>();
-    private Account[] leaderBoard;
-    private ArrayList<Message> sendingMessages = new ArrayList<>();
-    private ArrayList<Message> receivingMessages = new ArrayList<>();
+    private CatalogSnapshot originalCardsSnapshot;
+    private CatalogSnapshot storiesSnapshot;
+    private MessageQueue<Message> sendingMessages = new MessageQueue<>(SENDING_QUEUE_CAPACITY);
+    private MessageQueue<Message> receivingMessages = new MessageQueue<>(RECEIVING_QUEUE_CAPACITY);
+    private int drainBatchSize = DEFAULT_DRAIN_BATCH_SIZE;
+    private final Object sendLock = new Object();
+    private SocketServer socketServer;
+    private Dispatcher dispatcher = new Dispatcher(Runtime.getRuntime().availableProcessors(), ACCOUNT_THREADS);
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+    private Map<String, CompletableFuture<Void>> lastCommands = new ConcurrentHashMap<>();//clientName -> its last command
+    private AccountStore accountStore;
+    private AccountPersister accountPersister;
+    private AI ai = new AI();
+    private volatile DispatchStats dispatchStats = new DispatchStats();
+    private Thread statsDump;
 
     private Server(String serverName) {
-        readAccounts();
-        readOriginalCards();
-        readStories();
+        loadData();
+        accountPersister.start();
+        registry.setPinned(account -> onlineGames.containsKey(account) || accountPersister.isDirty(account));
         this.serverName = serverName;
+        makeCatalogSnapshots();
         serverPrint("Server Was Created!");
     }
 
@@ -61,129 +104,320 @@ public class Server {
         return server;
     }
 
+    public Collection getOriginalCards() {
+        return originalCards;
+    }
+
+    public Card getOriginalFlag() {
+        return originalFlag;
+    }
+
+    public List<Story> getStories() {
+        return Collections.unmodifiableList(stories);
+    }
+
     public void addClient(Client client) {
         if (client == null || client.getClientName().length() < 2) {
             serverPrint("Invalid Client Was Not Added.");
-        } else if (clients.containsKey(client.getClientName())) {
+        } else if (!registry.addSession(new Session(client.getClientName(), client))) {
             serverPrint("Client Name Was Duplicate.");
         } else {
             onlineClients.add(client);
-            clients.put(client.getClientName(), null);
             serverPrint("Client:" + client.getClientName() + " Was Added!");
         }
     }
 
+    public void startSocketServer(int port) throws IOException {
+        startSocketServer(port, WireFormat.BINARY);
+    }
+
+    public void startSocketServer(int port, WireFormat preferredFormat) throws IOException {
+        if (socketServer != null) {
+            serverPrint("Socket Server Was Started Before.");
+            return;
+        }
+        socketServer = new SocketServer(this, port, preferredFormat);
+        socketServer.start();
+    }
+
+    public boolean addRemoteClient(String clientName) {
+        if (clientName == null || clientName.length() < 2) {
+            serverPrint("Invalid Client Was Not Added.");
+            return false;
+        } else if (!registry.addSession(new Session(clientName, null))) {
+            serverPrint("Client Name Was Duplicate.");
+            return false;
+        }
+        serverPrint("Remote Client:" + clientName + " Was Added!");
+        return true;
+    }
+
+    public void removeRemoteClient(String clientName) {
+        registry.removeSession(clientName);
+        serverPrint("Remote Client:" + clientName + " Was Removed.");
+    }
+
     private void addToSendingMessages(Message message) {
-        sendingMessages.add(message);
+        while (!sendingMessages.offer(message)) {
+            sendMessages();
+        }
+    }
+
+    //local clients hand over json strings, so their bytes in are chars
+    public boolean addToReceivingMessages(String messageJson) {
+        long start = System.nanoTime();
+        Message message = Message.convertJsonToMessage(messageJson);
+        if (message != null) {
+            dispatchStats.recordParse(message.getMessageType(), System.nanoTime() - start, messageJson.length());
+        }
+        return addToReceivingMessages(message);
+    }
+
+    public boolean addToReceivingMessages(Message message) {
+        if (message == null) {
+            serverPrint("invalid message");
+            return false;
+        }
+        if (!receivingMessages.offer(message)) {
+            serverPrint("Receiving Queue Is Full.");
+            return false;
+        }
+        return true;
     }
 
-    public void addToReceivingMessages(String messageJson) {
-        receivingMessages.add(Message.convertJsonToMessage(messageJson));
+    public void setDrainBatchSize(int drainBatchSize) {
+        this.drainBatchSize = Math.max(1, drainBatchSize);
     }
 
-    public void receiveMessages() {
-        for (Message message : receivingMessages) {
-            if (message == null) {
+    public MessageQueue<Message> getReceivingQueue() {
+        return receivingMessages;
+    }
+
+    public MessageQueue<Message> getSendingQueue() {
+        return sendingMessages;
+    }
+
+    //hands every queued message to the dispatcher and returns without waiting for them: a sender's commands run one
+    //after another, on the account thread or its game's actor, and each command's replies are flushed as it completes;
+    //the result completes once every drained command has, local clients wait for it before reading their replies
+    public synchronized CompletableFuture<Void> receiveMessages() {
+        ArrayList<CompletableFuture<Void>> results = new ArrayList<>();
+        int depth;
+        while ((depth = receivingMessages.getDepth()) > 0 && receivingMessages.drain(message -> {
+            if (message.getMessageType() == null || message.getSender() == null) {
+                dispatchStats.countInvalidMessage();
                 serverPrint("invalid message");
-                continue;
-            }
-            if (!message.getReceiver().equals(serverName)) {
+            } else if (!serverName.equals(message.getReceiver())) {
+                dispatchStats.countInvalidMessage();
                 serverPrint("Message's Receiver Was Not This Server.");
-                continue;
-            }
-            switch (message.getMessageType()) {
-                case REGISTER:
-                    register(message);
-                    break;
-                case LOG_IN:
-                    login(message);
-                    break;
-                case LOG_OUT:
-                    logout(message);
-                    break;
-                case GET_LEADERBOARD:
-                    sendLeaderBoard(message);
-                    break;
-                case GET_ORIGINAL_CARDS:
-                    sendOriginalCards(message);
-                    break;
-                case GET_STORIES:
-                    sendStories(message);
-                    break;
-                case BUY_CARD:
-                    buyCard(message);
-                    break;
-                case SELL_CARD:
-                    sellCard(message);
-                    break;
-                case CREATE_DECK:
-                    createDeck(message);
-                    break;
-                case REMOVE_DECK:
-                    removeDeck(message);
-                    break;
-                case ADD_TO_DECK:
-                    addToDeck(message);
-                    break;
-                case REMOVE_FROM_DECK:
-                    removeFromDeck(message);
-                    break;
-                case SELECT_DECK:
-                    selectDeck(message);
-                    break;
-                case NEW_MULTIPLAYER_GAME:
-                    newMultiplayerGame(message);
-                    break;
-                case NEW_STORY_GAME:
-
-                    break;
-                case NEW_DECK_GAME:
-
-                    break;
-                case INSERT:
-                    insertCard(message);
-                    break;
-                case ATTACK:
-                    attack(message);
-                    break;
-                case END_TURN:
-                    endTurn(message);
-                    break;
-                case COMBO:
-                    combo(message);
-                    break;
-                case USE_SPECIAL_POWER:
-                    useSpecialPower(message);
-                    break;
-                case MOVE_TROOP:
-                    moveTroop(message);
-                    break;
-                case SUDO:
-                    sudo(message);
-                    break;
-                case SELECT_USER:
-                    selectUserForMultiPlayer(message);
-                    break;
-                default:
-                    sendException("Invalid Message Type!", message.getSender(), message.getMessageId());
-                    serverPrint("Invalid Message Type!");
-                    break;
-            }
-        }
-        receivingMessages.clear();
-        sendMessages();
+            } else {
+                results.add(dispatchInOrder(message));
+            }
+        }, drainBatchSize) > 0) {
+            dispatchStats.recordQueueDepth(depth);
+        }
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]));
+    }
+
+    //the returned future never fails, so a failed command doesn't stop the sender's later ones
+    private CompletableFuture<Void> dispatchInOrder(Message message) {
+        String sender = message.getSender();
+        CompletableFuture<Void> result = lastCommands.getOrDefault(sender, DONE)
+                .thenCompose(ignored -> dispatch(message))
+                .handle((ignored, e) -> {
+                    if (e != null) {
+                        (e instanceof CompletionException ? e.getCause() : e).printStackTrace();
+                    }
+                    sendMessages();
+                    return null;
+                });
+        lastCommands.put(sender, result);
+        result.thenRun(() -> lastCommands.remove(sender, result));
+        return result;
+    }
+
+    //runs once the sender's earlier commands are done
+    private CompletableFuture<Void> dispatch(Message message) {
+        if (!isGameCommand(message.getMessageType())) {
+            CompletableFuture<Void> result = dispatcher.submitAccountCommand(() -> handleMessage(message));
+            if (message.getMessageType() == MessageType.LOG_IN) {
+                return result.thenCompose(ignored -> resendGame(message));
+            }
+            return result;
+        }
+        Game game = findGame(message.getSender());
+        if (game != null) {
+            return submitGameCommand(game, message);
+        }
+        //games are made on the account thread, so one made by an opponent's earlier message is found there
+        return dispatcher.supplyAccountCommand(() -> findGame(message.getSender()))
+                .thenCompose(createdGame -> createdGame == null
+                        ? dispatcher.submitAccountCommand(() -> handleMessage(message))
+                        : submitGameCommand(createdGame, message));
+    }
+
+    //a client that logged back in to its game lost its copy, the game's actor sends a new one
+    private CompletableFuture<Void> resendGame(Message login) {
+        Account account = registry.getLoggedInAccount(login.getSender());
+        Game game = account == null ? null : onlineGames.get(account);
+        if (login.isFailed() || game == null) {
+            return DONE;
+        }
+        return dispatcher.submitGameCommand(game, () -> sendGameSnapshot(
+                game, login.getSender(), account.getUsername(), login.getMessageId()));
+    }
+
+    private CompletableFuture<Void> submitGameCommand(Game game, Message message) {
+        return dispatcher.submitGameCommand(game, () -> {
+            handleMessage(message);
+            if (message.getMessageType() != MessageType.GAME_ACK) {
+                sendGameChanges(game);
+            }
+            playAiTurn(game);
+        });
+    }
+
+    private boolean isGameCommand(MessageType messageType) {
+        switch (messageType) {
+            case INSERT:
+            case ATTACK:
+            case END_TURN:
+            case COMBO:
+            case USE_SPECIAL_POWER:
+            case MOVE_TROOP:
+            case GAME_ACK:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    //handler time and outcome go to the stats that were current when it started
+    private void handleMessage(Message message) {
+        DispatchStats stats = dispatchStats;
+        long start = System.nanoTime();
+        handle(message);
+        stats.recordHandler(message.getMessageType(), System.nanoTime() - start, message.isFailed());
+    }
+
+    private void handle(Message message) {
+        switch (message.getMessageType()) {
+            case REGISTER:
+                register(message);
+                break;
+            case LOG_IN:
+                login(message);
+                break;
+            case LOG_OUT:
+                logout(message);
+                break;
+            case GET_LEADERBOARD:
+                sendLeaderBoard(message);
+                break;
+            case GET_ORIGINAL_CARDS:
+                sendOriginalCards(message);
+                break;
+            case GET_STORIES:
+                sendStories(message);
+                break;
+            case BUY_CARD:
+                buyCard(message);
+                break;
+            case SELL_CARD:
+                sellCard(message);
+                break;
+            case CREATE_DECK:
+                createDeck(message);
+                break;
+            case REMOVE_DECK:
+                removeDeck(message);
+                break;
+            case ADD_TO_DECK:
+                addToDeck(message);
+                break;
+            case REMOVE_FROM_DECK:
+                removeFromDeck(message);
+                break;
+            case SELECT_DECK:
+                selectDeck(message);
+                break;
+            case NEW_MULTIPLAYER_GAME:
+                newMultiplayerGame(message);
+                break;
+            case NEW_STORY_GAME:
+                newStoryGame(message);
+                break;
+            case NEW_DECK_GAME:
+                newCustomGame(message);
+                break;
+            case INSERT:
+                insertCard(message);
+                break;
+            case ATTACK:
+                attack(message);
+                break;
+            case END_TURN:
+                endTurn(message);
+                break;
+            case COMBO:
+                combo(message);
+                break;
+            case USE_SPECIAL_POWER:
+                useSpecialPower(message);
+                break;
+            case MOVE_TROOP:
+                moveTroop(message);
+                break;
+            case SUDO:
+                sudo(message);
+                break;
+            case SELECT_USER:
+                selectUserForMultiPlayer(message);
+                break;
+            case GAME_ACK:
+                acknowledgeGameVersion(message);
+                break;
+            default:
+                sendException("Invalid Message Type!", message);
+                serverPrint("Invalid Message Type!");
+                break;
+        }
     }
 
     private void sendMessages() {
-        for (Message message : sendingMessages) {
-            Client client = getClient(message.getReceiver());
-            if (client == null) {
+        synchronized (sendLock) {
+            sendingMessages.drain(this::sendMessage, Integer.MAX_VALUE);
+        }
+    }
+
+    private void sendMessage(Message message) {
+        for (String receiver : message.getReceivers()) {
+            Client client = getClient(receiver);
+            if (client != null) {
+                String messageJson = encodeJson(message);
+                dispatchStats.recordSent(message.getMessageType(), messageJson.length());
+                client.addToReceivingMessages(messageJson);
+            } else if (socketServer == null || !socketServer.send(receiver, message)) {
                 serverPrint("Message's Client Was Not Found.");
-                continue;
             }
-            client.addToReceivingMessages(message.toJson());
         }
-        sendingMessages.clear();
+    }
+
+    //a message caches its encodings, so only the call that builds one is timed
+    public String encodeJson(Message message) {
+        if (message.hasJson()) return message.toJson();
+        long start = System.nanoTime();
+        String messageJson = message.toJson();
+        dispatchStats.recordSerialize(message.getMessageType(), System.nanoTime() - start);
+        return messageJson;
+    }
+
+    public byte[] encodeBinary(Message message) {
+        if (message.hasBinary()) return message.toBinary();
+        long start = System.nanoTime();
+        byte[] messageBinary = message.toBinary();
+        dispatchStats.recordSerialize(message.getMessageType(), System.nanoTime() - start);
+        return messageBinary;
     }
 
     private Account getAccount(String username) {
@@ -191,12 +425,7 @@ public class Server {
             serverPrint("Null Username In getAccount.");
             return null;
         }
-        for (Map.Entry<Account, String> map : accounts.entrySet()) {
-            if (map.getKey().getUsername().equalsIgnoreCase(username)) {
-                return map.getKey();
-            }
-        }
-        return null;
+        return registry.getAccount(username);
     }
 
     private Client getClient(String clientName) {
@@ -204,34 +433,47 @@ public class Server {
             serverPrint("Null ClientName In getClient.");
             return null;
         }
-        for (Client client : onlineClients) {
-            if (client.getClientName().equalsIgnoreCase(clientName))
-                return client;
+        Session session = registry.getSession(clientName);
+        if (session == null)
+            return null;
+        return session.getClient();
+    }
+
+    private Game findGame(String clientName) {
+        Account account = registry.getLoggedInAccount(clientName);
+        if (account == null) {
+            return null;
         }
-        return null;
+        return onlineGames.get(account);
     }
 
     private String getClientName(String username) {
-        Account account = getAccount(username);
-        if (account == null)
-            return null;
-        return accounts.get(account);
+        return registry.getClientName(username);
     }
 
-    private void sendException(String exceptionString, String receiver, int messageId) {
+    //marks the request, so its handler's outcome is known even when a game actor sends the exception
+    private void sendException(String exceptionString, Message request) {
+        sendException(exceptionString, request, request.getMessageId());
+    }
+
+    private void sendException(String exceptionString, Message request, int messageId) {
+        request.markFailed();
         addToSendingMessages(Message.makeExceptionMessage(
-                serverName, receiver, exceptionString, messageId));
+                serverName, request.getSender(), exceptionString, messageId));
     }
 
     private void register(Message message) {
-        if (getAccount(message.getUsername()) != null) {
-            sendException("Invalid Username!", message.getSender(), message.getMessageId());
+        if (message.getUsername() == null || registry.hasAccount(message.getUsername())
+                || message.getUsername().equalsIgnoreCase(AI_USERNAME)) {
+            sendException("Invalid Username!", message);
         } else if (message.getPassword() == null || message.getPassword().length() < 4) {
-            sendException("Invalid Password!", message.getSender(), message.getMessageId());
+            sendException("Invalid Password!", message);
         } else {
             Account account = new Account(message.getUsername(), message.getPassword());
-            accounts.put(account, null);
-            onlineGames.put(account, null);
+            if (!registry.addAccount(account)) {
+                sendException("Invalid Username!", message);
+                return;
+            }
             saveAccount(account);
             serverPrint(message.getUsername() + " Is Created!");
             login(message);
@@ -240,21 +482,19 @@ public class Server {
 
     private void login(Message message) {
         Account account = getAccount(message.getUsername());
-        Client client = getClient(message.getSender());
-        if (client == null) {
+        Session session = registry.getSession(message.getSender());
+        if (session == null) {
             serverPrint("Client Wasn't Added!");
-            sendException("Client Wasn't Added!", message.getSender(), message.getMessageId());
+            sendException("Client Wasn't Added!", message);
         } else if (account == null) {
-            sendException("Username Not Found!", message.getSender(), message.getMessageId());
+            sendException("Username Not Found!", message);
         } else if (!account.getPassword().equals(message.getPassword())) {
-            sendException("Incorrect PassWord!", message.getSender(), message.getMessageId());
-        } else if (accounts.get(account) != null) {
-            sendException("Online Account!", message.getSender(), message.getMessageId());
-        } else if (clients.get(message.getSender()) != null) {
-            sendException("Client Was Logged In!", message.getSender(), message.getMessageId());
+            sendException("Incorrect PassWord!", message);
+        } else if (session.isLoggedIn()) {
+            sendException("Client Was Logged In!", message);
+        } else if (!registry.login(session, account)) {
+            sendException("Online Account!", message);
         } else {
-            accounts.replace(account, message.getSender());
-            clients.replace(message.getSender(), account);
             addToSendingMessages(Message.makeAccountCopyMessage(
                     serverName, message.getSender(), account, message.getMessageId()));
             serverPrint(message.getSender() + " Is Logged In");
@@ -262,12 +502,13 @@ public class Server {
     }
 
     private boolean loginCheck(Message message) {
-        if (!clients.containsKey(message.getSender())) {
+        Session session = registry.getSession(message.getSender());
+        if (session == null) {
             serverPrint("Client Wasn't Added!");
-            sendException("Client Wasn't Added!", message.getSender(), message.getMessageId());
+            sendException("Client Wasn't Added!", message);
             return false;
-        } else if (clients.get(message.getSender()) == null) {
-            sendException("Client Was Not LoggedIn", message.getSender(), message.getMessageId());
+        } else if (!session.isLoggedIn()) {
+            sendException("Client Was Not LoggedIn", message);
             return false;
         } else {
             return true;
@@ -276,51 +517,48 @@ public class Server {
 
     private void logout(Message message) {
         if (loginCheck(message)) {
-            accounts.replace(clients.get(message.getSender()), null);
-            clients.replace(message.getSender(), null);
+            registry.logout(message.getSender());
             serverPrint(message.getSender() + " Is Logged Out.");
         }
     }
 
     private void createDeck(Message message) {
         if (loginCheck(message)) {
-            Account account = clients.get(message.getSender());
+            Account account = registry.getLoggedInAccount(message.getSender());
             if (!account.hasDeck(message.getDeckName())) {
                 account.addDeck(message.getDeckName());
                 addToSendingMessages(Message.makeAccountCopyMessage(
                         serverName, message.getSender(), account, message.getMessageId()));
                 saveAccount(account);
             } else {
-                addToSendingMessages(Message.makeExceptionMessage(
-                        serverName, message.getSender(), "deck's name was duplicate.", message.getMessageId()));
+                sendException("deck's name was duplicate.", message);
             }
         }
     }
 
     private void removeDeck(Message message) {
         if (loginCheck(message)) {
-            Account account = clients.get(message.getSender());
+            Account account = registry.getLoggedInAccount(message.getSender());
             if (account.hasDeck(message.getDeckName())) {
                 account.deleteDeck(message.getDeckName());
                 addToSendingMessages(Message.makeAccountCopyMessage(
                         serverName, message.getSender(), account, message.getMessageId()));
                 saveAccount(account);
             } else {
-                addToSendingMessages(Message.makeExceptionMessage(
-                        serverName, message.getSender(), "deck was not found.", message.getMessageId()));
+                sendException("deck was not found.", message);
             }
         }
     }
 
     private void addToDeck(Message message) {
         if (loginCheck(message)) {
-            Account account = clients.get(message.getSender());
+            Account account = registry.getLoggedInAccount(message.getSender());
             if (!account.hasDeck(message.getDeckName())) {
-                sendException("deck was not found.", message.getSender(), message.getMessageId());
+                sendException("deck was not found.", message);
             } else if (!account.getCollection().hasCard(message.getCardId())) {
-                sendException("invalid cardid.", message.getSender(), message.getMessageId());
+                sendException("invalid cardid.", message);
             } else if (account.getDeck(message.getDeckName()).hasCard(message.getCardId())) {
-                sendException("deck had this card.", message.getSender(), message.getMessageId());
+                sendException("deck had this card.", message);
             } else {
                 account.addCardToDeck(message.getCardId(), message.getDeckName());
                 addToSendingMessages(Message.makeAccountCopyMessage(
@@ -332,11 +570,11 @@ public class Server {
 
     private void removeFromDeck(Message message) {
         if (loginCheck(message)) {
-            Account account = clients.get(message.getSender());
+            Account account = registry.getLoggedInAccount(message.getSender());
             if (!account.hasDeck(message.getDeckName())) {
-                sendException("deck was not found.", message.getSender(), message.getMessageId());
+                sendException("deck was not found.", message);
             } else if (!account.getDeck(message.getDeckName()).hasCard(message.getCardId())) {
-                sendException("deck didn't have this card.", message.getSender(), message.getMessageId());
+                sendException("deck didn't have this card.", message);
             } else {
                 account.removeCardFromDeck(message.getCardId(), message.getDeckName());
                 addToSendingMessages(Message.makeAccountCopyMessage(
@@ -348,12 +586,12 @@ public class Server {
 
     private void selectDeck(Message message) {
         if (loginCheck(message)) {
-            Account account = clients.get(message.getSender());
+            Account account = registry.getLoggedInAccount(message.getSender());
             if (!account.hasDeck(message.getDeckName())) {
-                sendException("deck was not found", message.getSender(), message.getMessageId());
+                sendException("deck was not found", message);
 
             } else if (account.getMainDeck() != null && account.getMainDeck().getDeckName().equals(message.getDeckName())) {
-                sendException("deck was already the main deck.", message.getSender(), message.getMessageId());
+                sendException("deck was already the main deck.", message);
 
             } else {
                 account.selectDeck(message.getDeckName());
@@ -366,11 +604,11 @@ public class Server {
 
     private void buyCard(Message message) {
         if (loginCheck(message)) {
-            Account account = clients.get(message.getSender());
+            Account account = registry.getLoggedInAccount(message.getSender());
             if (!originalCards.hasCard(message.getCardName()) || originalCards.getCard(message.getCardName()).getType() == CardType.COLLECTIBLE_ITEM) { // TODO
-                sendException("invalid card name", message.getSender(), message.getMessageId());
+                sendException("invalid card name", message);
             } else if (account.getMoney() < originalCards.getCard(message.getCardName()).getPrice()) {
-                sendException("account's money isn't enough.", message.getSender(), message.getMessageId());
+                sendException("account's money isn't enough.", message);
             } else {
                 account.buyCard(message.getCardName(), originalCards.getCard(message.getCardName()).getPrice(), originalCards);
                 addToSendingMessages(Message.makeAccountCopyMessage(
@@ -382,9 +620,9 @@ public class Server {
 
     private void sellCard(Message message) {
         if (loginCheck(message)) {
-            Account account = clients.get(message.getSender());
+            Account account = registry.getLoggedInAccount(message.getSender());
             if (!account.getCollection().hasCard(message.getCardId())) {
-                sendException("invalid card id", message.getSender(), message.getMessageId());
+                sendException("invalid card id", message);
             } else {
                 account.sellCard(message.getCardId());
                 addToSendingMessages(Message.makeAccountCopyMessage(
@@ -396,39 +634,44 @@ public class Server {
 
     private void sendStories(Message message) {
         if (loginCheck(message)) {
-            addToSendingMessages(Message.makeStoriesCopyMessage
-                    (serverName, message.getSender(), stories.toArray(Story[]::new), message.getMessageId()));
+            addToSendingMessages(storiesSnapshot.makeReply(message.getSender(), message.getCatalogVersion(), message.getMessageId()));
         }
     }
 
     private void sendOriginalCards(Message message) {
         if (loginCheck(message)) {
-            addToSendingMessages(Message.makeOriginalCardsCopyMessage(
-                    serverName, message.getSender(), originalCards, message.getMessageId()));
+            addToSendingMessages(originalCardsSnapshot.makeReply(message.getSender(), message.getCatalogVersion(), message.getMessageId()));
         }
     }
 
     private void sendLeaderBoard(Message message) {//Check
-        if (accounts.size() == 0) {
-            addToSendingMessages(Message.makeExceptionMessage(serverName, message.getSender(), "leader board is empty", 0));
-            sendMessages();
+        LeaderBoard board = registry.getLeaderBoard();
+        if (board.size() == 0) {
+            sendException("leader board is empty", message, 0);
+            return;
         }
-        leaderBoard = new Account[accounts.size()];
-        int counter = 0;
-        for (Account account : accounts.keySet()) {
-            leaderBoard[counter] = account;
-            counter++;
+        int pageSize = message.getPageSize() <= 0 ? DEFAULT_LEADERBOARD_PAGE_SIZE : Math.min(message.getPageSize(), MAX_LEADERBOARD_PAGE_SIZE);
+        int startRank = Math.max(1, message.getStartRank());
+        if (message.getUsername() != null) {
+            AccountInfo accountInfo = registry.getAccountInfo(message.getUsername());
+            if (accountInfo == null) {
+                sendException("invalid username", message);
+                return;
+            }
+            startRank = Math.max(1, board.getRank(accountInfo) - pageSize / 2);
         }
-        Arrays.sort(leaderBoard, new LeaderBoardSorter());
-        addToSendingMessages(Message.makeLeaderBoardCopyMessage(serverName, message.getSender(), leaderBoard, 0));
+        Account account = registry.getLoggedInAccount(message.getSender());
+        int rank = account == null ? 0 : board.getRank(registry.getAccountInfo(account.getUsername()));
+        addToSendingMessages(Message.makeLeaderBoardCopyMessage(serverName, message.getSender(),
+                board.getPage(startRank, pageSize), startRank, board.size(), rank, message.getMessageId()));
     }
 
     private void selectUserForMultiPlayer(Message message) {
         Account account = getAccount(message.getOpponentUserName());
         if (account == null) {
-            sendException("second player is not valid", message.getSender(), 0);
+            sendException("second player is not valid", message, 0);
         } else if (!account.hasValidMainDeck()) {
-            sendException("selected deck for second player is not valid", message.getSender(), 0);
+            sendException("selected deck for second player is not valid", message, 0);
         } else {
             AccountInfo accountInfo = new AccountInfo(account);
             addToSendingMessages(
@@ -436,12 +679,11 @@ public class Server {
                             serverName, message.getSender(), accountInfo, 0
                     )
             );
-            sendMessages();
         }
     }
 
     private Game getGame(String clientName) throws Exception {
-        Account account = clients.get(clientName);
+        Account account = registry.getLoggedInAccount(clientName);
         if (account == null) {
             throw new Exception("your client hasn't logged in!");
         }
@@ -454,16 +696,16 @@ public class Server {
 
     private boolean isOpponentAccountValid(Message message) {
         if (message.getOpponentUserName() == null) {
-            sendException("invalid opponentAccount!", message.getSender(), message.getMessageId());
+            sendException("invalid opponentAccount!", message);
             return false;
         }
         Account opponentAccount = getAccount(message.getOpponentUserName());
         if (opponentAccount == null) {
-            sendException("invalid opponentAccount!", message.getSender(), message.getMessageId());
+            sendException("invalid opponentAccount!", message);
             return false;
         }
-        /*if (accounts.get(opponentAccount) == null) {
-            sendException("opponentAccount has not logged in!", message.getSender(), message.getMessageId());
+        /*if (registry.getSession(opponentAccount) == null) {
+            sendException("opponentAccount has not logged in!", message);
             return false;
         }*/
         return true;
@@ -471,58 +713,159 @@ public class Server {
 
     private void newMultiplayerGame(Message message) {
         if (loginCheck(message) && isOpponentAccountValid(message)) {
-            Account myAccount = clients.get(message.getSender());
+            Account myAccount = registry.getLoggedInAccount(message.getSender());
             Account opponentAccount = getAccount(message.getOpponentUserName());
             if (!myAccount.hasValidMainDeck()) {
-                sendException("you don't have valid main deck!", message.getSender(), message.getMessageId());
+                sendException("you don't have valid main deck!", message);
                 return;
             }
             if (!opponentAccount.hasValidMainDeck()) {
-                sendException("opponent doesn't have valid main deck!", message.getSender(), message.getMessageId());
+                sendException("opponent doesn't have valid main deck!", message);
                 return;
             }
             if (onlineGames.get(myAccount) != null) {
-                sendException("you have online game!", message.getSender(), message.getMessageId());
+                sendException("you have online game!", message);
                 return;
             }
             if (onlineGames.get(opponentAccount) != null) {
-                sendException("opponent has online game!", message.getSender(), message.getMessageId());
+                sendException("opponent has online game!", message);
                 return;
             }
-            //Should be removed
-            accounts.replace(opponentAccount, onlineClients.get(1).getClientName());
-            clients.replace(onlineClients.get(1).getClientName(), opponentAccount);
-            Game game = null;
-            GameMap gameMap = new GameMap(originalCards.getItems(), message.getNumberOfFlags(), originalFlag);
-            if (message.getGameType() == null) {
-                sendException("invalid gameType!", message.getSender(), message.getMessageId());
+            if (registry.getSession(opponentAccount) == null) {
+                //Should be removed: the second local client plays an opponent that has not logged in
+                if (onlineClients.size() < 2) {
+                    sendException("opponentAccount has not logged in!", message);
+                    return;
+                }
+                registry.bind(registry.getSession(onlineClients.get(1).getClientName()), opponentAccount);
+            }
+            Game game = makeGame(message.getGameType(), myAccount, opponentAccount, message.getNumberOfFlags());
+            if (game == null) {
+                sendException("invalid gameType!", message);
                 return;
             }
-            switch (message.getGameType()) {
-                case KILL_HERO:
-                    game = new KillHeroBattle(message.getGameType(), myAccount, opponentAccount, gameMap);
-                    break;
-                case A_FLAG:
-                    game = new SingleFlagBattle(message.getGameType(), myAccount, opponentAccount, gameMap);
-                    break;
-                case SOME_FLAG:
-                    game = new MultiFlagBattle(message.getGameType(), myAccount, opponentAccount, gameMap);
-                    break;
-            }
-            if (onlineGames.containsKey(myAccount)) {
-                onlineGames.replace(myAccount, game);
-            } else {
-                onlineGames.put(myAccount, game);
+            sendGameSnapshot(game, message.getSender(), myAccount.getUsername(), message.getMessageId());
+            sendGameSnapshot(game, getClientName(opponentAccount.getUsername()), opponentAccount.getUsername(), 0);
+            onlineGames.put(myAccount, game);
+            onlineGames.put(opponentAccount, game);
+        }
+    }
+
+    private Game makeGame(GameType gameType, Account playerOne, Account playerTwo, int numberOfFlags) {
+        if (gameType == null) return null;
+        GameMap gameMap = new GameMap(originalCards.getItems(), numberOfFlags, originalFlag);
+        switch (gameType) {
+            case KILL_HERO:
+                return new KillHeroBattle(gameType, playerOne, playerTwo, gameMap);
+            case A_FLAG:
+                return new SingleFlagBattle(gameType, playerOne, playerTwo, gameMap);
+            case SOME_FLAG:
+                return new MultiFlagBattle(gameType, playerOne, playerTwo, gameMap);
+            default:
+                return null;
+        }
+    }
+
+    private void newStoryGame(Message message) {
+        if (!loginCheck(message)) return;
+        if (message.getStage() < 1 || message.getStage() > stories.size()) {
+            sendException("invalid stage!", message);
+            return;
+        }
+        Story story = stories.get(message.getStage() - 1);
+        int numberOfFlags = story.getGameType() == GameType.A_FLAG ? 1 : STORY_NUMBER_OF_FLAGS;
+        newSinglePlayerGame(message, story.getDeck(), story.getGameType(), numberOfFlags);
+    }
+
+    private void newCustomGame(Message message) {
+        if (!loginCheck(message)) return;
+        for (Deck deck : customDecks) {
+            if (deck.getDeckName().equals(message.getDeckName())) {
+                newSinglePlayerGame(message, deck, message.getGameType(), message.getNumberOfFlags());
+                return;
             }
-            if (onlineGames.containsKey(opponentAccount)) {
-                onlineGames.replace(opponentAccount, game);
-            } else {
-                onlineGames.put(opponentAccount, game);
+        }
+        sendException("invalid deck!", message);
+    }
+
+    //the AI plays player two with a copy of aiDeck; its account is never saved or logged in
+    private void newSinglePlayerGame(Message message, Deck aiDeck, GameType gameType, int numberOfFlags) {
+        Account myAccount = registry.getLoggedInAccount(message.getSender());
+        if (!myAccount.hasValidMainDeck()) {
+            sendException("you don't have valid main deck!", message);
+            return;
+        }
+        if (onlineGames.get(myAccount) != null) {
+            sendException("you have online game!", message);
+            return;
+        }
+        Game game = makeGame(gameType, myAccount, new Account(AI_USERNAME, aiDeck), numberOfFlags);
+        if (game == null) {
+            sendException("invalid gameType!", message);
+            return;
+        }
+        sendGameSnapshot(game, message.getSender(), myAccount.getUsername(), message.getMessageId());
+        aiGames.put(game, 0);
+        onlineGames.put(myAccount, game);
+    }
+
+    //runs on the game's actor after every command; the search picks actions off the actor and queues each on it
+    private void playAiTurn(Game game) {
+        Integer startedTurn = aiGames.get(game);
+        int turn = game.getTurnNumber();
+        if (startedTurn == null || turn % 2 == 1 || startedTurn == turn) return;
+        aiGames.put(game, turn);
+        ai.playCurrentTurn(game, command -> dispatcher.submitGameCommand(game, command))
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        serverPrint("AI Turn Failed: " + e.getMessage());
+                    }
+                    dispatcher.submitGameCommand(game, () -> {
+                        sendGameChanges(game);
+                        sendMessages();
+                    });
+                });
+    }
+
+    //runs on the game's actor, or before the game is in onlineGames: the copy is encoded here, while nothing else
+    //changes the game, since it is sent later from whichever thread flushes the sending queue
+    private void sendGameSnapshot(Game game, String clientName, String username, int messageId) {
+        Message message = Message.makeGameCopyMessage(serverName, clientName, game, messageId);
+        encodeJson(message);
+        encodeBinary(message);
+        message.dropGame();
+        addToSendingMessages(message);
+        game.getChangeLog().acknowledge(username, game.getChangeLog().getVersion());
+    }
+
+    //flushes everything one command changed; each player gets the changes since its own acknowledged version,
+    //players at the same version share one frame
+    private void sendGameChanges(Game game) {
+        GameChangeLog changeLog = game.getChangeLog();
+        LinkedHashMap<Integer, ArrayList<String>> receiversByVersion = new LinkedHashMap<>(2);
+        for (Player player : new Player[]{game.getPlayerOne(), game.getPlayerTwo()}) {
+            String clientName = getClientName(player.getUserName());
+            if (clientName == null) continue;
+
+            int acknowledged = changeLog.getAcknowledgedVersion(player.getUserName());
+            if (!changeLog.canSendChanges(player.getUserName())) {
+                sendGameSnapshot(game, clientName, player.getUserName(), 0);
+            } else if (acknowledged < changeLog.getVersion()) {
+                receiversByVersion.computeIfAbsent(acknowledged, version -> new ArrayList<>(2)).add(clientName);
             }
-            addToSendingMessages(Message.makeGameCopyMessage
-                    (serverName, message.getSender(), game, message.getMessageId()));
-            addToSendingMessages(Message.makeGameCopyMessage
-                    (serverName, accounts.get(opponentAccount), game, 0));
+        }
+        for (Map.Entry<Integer, ArrayList<String>> entry : receiversByVersion.entrySet()) {
+            addToSendingMessages(Message.makeGameDeltaMessage(serverName, entry.getValue().toArray(new String[0]),
+                    changeLog.getChangesSince(entry.getKey()), changeLog.getVersion(), 0));
+        }
+    }
+
+    private void acknowledgeGameVersion(Message message) {
+        try {
+            Game game = getGame(message.getSender());
+            game.getChangeLog().acknowledge(registry.getLoggedInAccount(message.getSender()).getUsername(), message.getGameVersion());
+        } catch (Exception e) {
+            sendException(e.getMessage(), message);
         }
     }
 
@@ -531,12 +874,12 @@ public class Server {
         try {
             game = getGame(message.getSender());
             try {
-                game.insert(clients.get(message.getSender()).getUsername(), message.getCardId(), message.getPosition());
+                game.insert(registry.getLoggedInAccount(message.getSender()).getUsername(), message.getCardId(), message.getPosition());
             } catch (Exception e) {
-                sendException(e.getMessage(), message.getSender(), message.getMessageId());
+                sendException(e.getMessage(), message);
             }
         } catch (Exception e) {
-            sendException(e.getMessage(), message.getSender(), message.getMessageId());
+            sendException(e.getMessage(), message);
         }
     }
 
@@ -545,12 +888,12 @@ public class Server {
         try {
             game = getGame(message.getSender());
             try {
-                game.attack(clients.get(message.getSender()).getUsername(), message.getCardIds()[0], message.getCardIds()[1]);
+                game.attack(registry.getLoggedInAccount(message.getSender()).getUsername(), message.getCardIds()[0], message.getCardIds()[1]);
             } catch (Exception e) {
-                sendException(e.getMessage(), message.getSender(), message.getMessageId());
+                sendException(e.getMessage(), message);
             }
         } catch (Exception e) {
-            sendException(e.getMessage(), message.getSender(), message.getMessageId());
+            sendException(e.getMessage(), message);
         }
     }
 
@@ -559,12 +902,12 @@ public class Server {
         try {
             game = getGame(message.getSender());
             try {
-                game.comboAttack(clients.get(message.getSender()).getUsername(), message.getCardIds(), message.getCardId());
+                game.comboAttack(registry.getLoggedInAccount(message.getSender()).getUsername(), message.getCardIds(), message.getCardId());
             } catch (Exception e) {
-                sendException(e.getMessage(), message.getSender(), message.getMessageId());
+                sendException(e.getMessage(), message);
             }
         } catch (Exception e) {
-            sendException(e.getMessage(), message.getSender(), message.getMessageId());
+            sendException(e.getMessage(), message);
         }
     }
 
@@ -573,12 +916,12 @@ public class Server {
         try {
             game = getGame(message.getSender());
             try {
-                game.useSpecialPower(clients.get(message.getSender()).getUsername(), message.getCardId(), message.getPosition());
+                game.useSpecialPower(registry.getLoggedInAccount(message.getSender()).getUsername(), message.getCardId(), message.getPosition());
             } catch (Exception e) {
-                sendException(e.getMessage(), message.getSender(), message.getMessageId());
+                sendException(e.getMessage(), message);
             }
         } catch (Exception e) {
-            sendException(e.getMessage(), message.getSender(), message.getMessageId());
+            sendException(e.getMessage(), message);
         }
     }
 
@@ -587,12 +930,12 @@ public class Server {
         try {
             game = getGame(message.getSender());
             try {
-                game.moveTroop(clients.get(message.getSender()).getUsername(), message.getCardId(), message.getPosition());
+                game.moveTroop(registry.getLoggedInAccount(message.getSender()).getUsername(), message.getCardId(), message.getPosition());
             } catch (Exception e) {
-                sendException(e.getMessage(), message.getSender(), message.getMessageId());
+                sendException(e.getMessage(), message);
             }
         } catch (Exception e) {
-            sendException(e.getMessage(), message.getSender(), message.getMessageId());
+            sendException(e.getMessage(), message);
         }
     }
 
@@ -601,185 +944,217 @@ public class Server {
         try {
             game = getGame(message.getSender());
             try {
-                game.changeTurn(clients.get(message.getSender()).getUsername());
+                game.changeTurn(registry.getLoggedInAccount(message.getSender()).getUsername());
             } catch (Exception e) {
-                sendException(e.getMessage(), message.getSender(), message.getMessageId());
+                sendException(e.getMessage(), message);
             }
         } catch (Exception e) {
-            sendException(e.getMessage(), message.getSender(), message.getMessageId());
+            sendException(e.getMessage(), message);
         }
     }
 
     private void sudo(Message message) {
         String command = message.getSudoCommand().toLowerCase();
+        if (command.contains("queue")) {
+            serverPrint("receiving: " + receivingMessages);
+            serverPrint("sending: " + sendingMessages);
+        }
+        if (command.contains("persist")) {
+            serverPrint("accounts: " + accountPersister);
+        }
         if (command.contains("account")) {
-            for (Map.Entry<Account, String> account : accounts.entrySet()) {
-                serverPrint(account.getKey().getUsername() + " " + account.getKey().getPassword());
+            for (AccountInfo account : registry.getAccountInfos()) {
+                serverPrint(account.getUsername() + " " + account.getWins());
             }
         }
-
-    }
-
-    private void checkGameAccountsClient(String client1, String client2) throws Exception {
-        if (client1 == null) {
-            throw new Exception("Player1 has logged out!");
-        }
-        if (client2 == null) {
-            throw new Exception("Player2 has logged out!");
+        if (command.contains("cache")) {
+            serverPrint("registry: " + registry);
+        }
+        if (command.contains("ai")) {
+            serverPrint("ai: " + ai);
+        }
+        if (command.contains("stats")) {
+            serverPrint(dispatchStats.toString());
+            if (command.contains("reset")) {
+                resetDispatchStats();
+            }
         }
-    }
-
-    public void sendAddToHandMessage(Game game, String cardId) throws Exception {
-        String client1 = getClientName(game.getPlayerOne().getUserName());
-        String client2 = getClientName(game.getPlayerTwo().getUserName());
-        checkGameAccountsClient(client1, client2);
-        addToSendingMessages(Message.makeToHandMessage
-                (serverName, client1, cardId, 0));
-        addToSendingMessages(Message.makeToHandMessage
-                (serverName, client2, cardId, 0));
-    }
 
-    public void sendAddToNextMessage(Game game, String cardId) throws Exception {
-        String client1 = getClientName(game.getPlayerOne().getUserName());
-        String client2 = getClientName(game.getPlayerTwo().getUserName());
-        checkGameAccountsClient(client1, client2);
-        addToSendingMessages(Message.makeToNextMessage
-                (serverName, client1, cardId, 0));
-        addToSendingMessages(Message.makeToNextMessage
-                (serverName, client2, cardId, 0));
     }
 
-    public void sendAddToGraveyardMessage(Game game, String cardId) throws Exception {
-        String client1 = getClientName(game.getPlayerOne().getUserName());
-        String client2 = getClientName(game.getPlayerTwo().getUserName());
-        checkGameAccountsClient(client1, client2);
-        addToSendingMessages(Message.makeToGraveYardMessage
-                (serverName, client1, cardId, 0));
-        addToSendingMessages(Message.makeToGraveYardMessage
-                (serverName, client2, cardId, 0));
+    //every file is parsed on the loader pool while the account store is opened on this thread;
+    //cards are indexed in file order, and stories and legacy accounts are resolved once the catalog is complete
+    private void loadData() {
+        long start = System.nanoTime();
+        ExecutorService loader = Executors.newFixedThreadPool(LOADER_THREADS);
+        try {
+            ArrayList<CompletableFuture<Card>> cards = new ArrayList<>();
+            for (String path : CARDS_PATHS) {
+                cards.addAll(parseFiles(loader, path, Card.class));
+            }
+            CompletableFuture<Card> flag = parseFile(loader, new File(FLAG_PATH), Card.class);
+            List<CompletableFuture<TempStory>> stories = parseFiles(loader, STORIES_PATH, TempStory.class);
+            //a loader task only waits for tasks submitted before it, so any pool size is deadlock free
+            CompletableFuture<Void> catalog = CompletableFuture.runAsync(() -> readOriginalCards(cards, flag, start), loader);
+            CompletableFuture<Void> story = catalog.thenRunAsync(() -> readStories(stories, start), loader);
+            readAccounts(loader, catalog, start);
+            story.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Server Data Could Not Be Loaded.", e.getCause());
+        } finally {
+            loader.shutdown();
+        }
+        serverPrint("Data loaded in " + millisSince(start) + " ms");
     }
 
-    public void sendAddToMapMessage(Game game, String cardId, Position position) throws Exception {
-        String client1 = getClientName(game.getPlayerOne().getUserName());
-        String client2 = getClientName(game.getPlayerTwo().getUserName());
-        checkGameAccountsClient(client1, client2);
-        addToSendingMessages(Message.makeToMapMessage
-                (serverName, client1, cardId, position, 0));
-        addToSendingMessages(Message.makeToMapMessage
-                (serverName, client2, cardId, position, 0));
+    private void readAccounts(ExecutorService loader, CompletableFuture<Void> catalog, long start) {
+        try {
+            accountStore = new AccountStore(System.getProperty(ACCOUNT_STORE_PROPERTY, ACCOUNT_STORE_PATH));
+            if (accountStore.size() == 0) {
+                importAccountFiles(loader, catalog);
+            }
+            for (String username : accountStore.getUsernames()) {
+                registry.addToDirectory(username, accountStore.getWins(username));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Account Store Could Not Be Opened.", e);
+        }
+        accountPersister = new AccountPersister(accountStore, DEFAULT_DURABILITY_WINDOW_MILLIS);
+        serverPrint("Accounts loaded in " + millisSince(start) + " ms");
     }
 
-    public void sendTroopPositionMessage(Game game, String cardId, Position position) throws Exception {
-        String client1 = getClientName(game.getPlayerOne().getUserName());
-        String client2 = getClientName(game.getPlayerTwo().getUserName());
-        checkGameAccountsClient(client1, client2);
-        addToSendingMessages(Message.makeTroopPositionMessage
-                (serverName, client1, cardId, position, 0));
-        addToSendingMessages(Message.makeTroopPositionMessage
-                (serverName, client2, cardId, position, 0));
+    private Account loadAccount(String username) {
+        try {
+            String accountJson = accountStore.get(username);
+            if (accountJson == null) return null;
+            TempAccount account = JsonConverter.fromJson(accountJson, TempAccount.class);
+            return account == null ? null : new Account(account, originalCards);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
     }
 
-    public void sendAddToCollectedItemsMessage(Game game, String cardId, String username) throws Exception {
-        String client1 = getClientName(game.getPlayerOne().getUserName());
-        String client2 = getClientName(game.getPlayerTwo().getUserName());
-        checkGameAccountsClient(client1, client2);
-        addToSendingMessages(Message.makeToCollectedItemsMessage
-                (serverName, client1, cardId, username, 0));
-        addToSendingMessages(Message.makeToCollectedItemsMessage
-                (serverName, client2, cardId, username, 0));
+    //legacy accounts are built from the card catalog
+    private void importAccountFiles(ExecutorService loader, CompletableFuture<Void> catalog) throws IOException {
+        List<CompletableFuture<TempAccount>> files = parseFiles(loader, ACCOUNTS_PATH, TempAccount.class);
+        if (files.isEmpty()) return;
+        catalog.join();
+        for (CompletableFuture<TempAccount> file : files) {
+            TempAccount account = file.join();
+            if (account == null) continue;
+
+            accountStore.put(account.getUsername(), account.getWins(),
+                    JsonConverter.toJson(TempAccount.makeStoredAccount(new Account(account, originalCards))));
+        }
+        accountStore.sync();
+        serverPrint(files.size() + " Account Files Imported.");
     }
 
-    public void sendHPMessage(Game game, String cardId, int newValue) throws Exception {
-        String client1 = getClientName(game.getPlayerOne().getUserName());
-        String client2 = getClientName(game.getPlayerTwo().getUserName());
-        checkGameAccountsClient(client1, client2);
-        addToSendingMessages(Message.makeChangeHPMessage
-                (serverName, client1, cardId, newValue, 0));
-        addToSendingMessages(Message.makeChangeHPMessage
-                (serverName, client2, cardId, newValue, 0));
-    }
+    private void readOriginalCards(List<CompletableFuture<Card>> files, CompletableFuture<Card> flag, long start) {
+        for (CompletableFuture<Card> file : files) {
+            Card card = file.join();
+            if (card == null) continue;
 
-    public void sendAPMessage(Game game, String cardId, int newValue) throws Exception {
-        String client1 = getClientName(game.getPlayerOne().getUserName());
-        String client2 = getClientName(game.getPlayerTwo().getUserName());
-        checkGameAccountsClient(client1, client2);
-        addToSendingMessages(Message.makeChangeAPMessage
-                (serverName, client1, cardId, newValue, 0));
-        addToSendingMessages(Message.makeChangeAPMessage
-                (serverName, client2, cardId, newValue, 0));
+            originalCards.addCard(card);
+        }
+        originalFlag = flag.join();
+        serverPrint("Original Cards loaded in " + millisSince(start) + " ms");
     }
 
-    public void sendChangeTurnMessage(Game game, int newTurn) throws Exception {
-        String client1 = getClientName(game.getPlayerOne().getUserName());
-        String client2 = getClientName(game.getPlayerTwo().getUserName());
-        checkGameAccountsClient(client1, client2);
-        addToSendingMessages(Message.makeEndTurnMessage
-                (serverName, client1, newTurn, 0));
-        addToSendingMessages(Message.makeEndTurnMessage
-                (serverName, client2, newTurn, 0));
-    }
-
-    private void readAccounts() {
-        File[] files = new File(ACCOUNTS_PATH).listFiles();
-        if (files != null) {
-            for (File file : files) {
-                TempAccount account = loadFile(file, TempAccount.class);
-                if (account == null) continue;
+    private void readStories(List<CompletableFuture<TempStory>> files, long start) {
+        for (CompletableFuture<TempStory> file : files) {
+            TempStory story = file.join();
+            if (story == null) continue;
 
-                accounts.put(new Account(account), null);
-            }
+            stories.add(new Story(story, originalCards));
         }
-        serverPrint("Accounts loaded");
+        serverPrint("Stories loaded in " + millisSince(start) + " ms");
     }
 
-    private void readOriginalCards() {
-        for (String path : CARDS_PATHS) {
-            File[] files = new File(path).listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    Card card = loadFile(file, Card.class);
-                    if (card == null) continue;
-
-                    originalCards.addCard(card);
-                }
-            }
-        }
-        originalFlag = loadFile(new File(FLAG_PATH), Card.class);
-        serverPrint("Original Cards loaded");
+    //cards and stories never change after loading, so their copies are serialized once
+    private void makeCatalogSnapshots() {
+        originalCardsSnapshot = new CatalogSnapshot(
+                Message.makeOriginalCardsCopyMessage(serverName, null, originalCards, 0));
+        storiesSnapshot = new CatalogSnapshot(
+                Message.makeStoriesCopyMessage(serverName, null, stories.toArray(Story[]::new), 0));
     }
 
-    private void readStories() {
-        File[] files = new File(STORIES_PATH).listFiles();
+    private <T> List<CompletableFuture<T>> parseFiles(ExecutorService loader, String path, Class<T> classOfT) {
+        ArrayList<CompletableFuture<T>> results = new ArrayList<>();
+        File[] files = new File(path).listFiles();
         if (files != null) {
+            Arrays.sort(files);//listFiles has no defined order
             for (File file : files) {
-                TempStory story = loadFile(file, TempStory.class);
-                if (story == null) continue;
-
-                stories.add(new Story(story, originalCards));
+                results.add(parseFile(loader, file, classOfT));
             }
         }
-        serverPrint("Stories loaded");
+        return results;
+    }
+
+    private <T> CompletableFuture<T> parseFile(ExecutorService loader, File file, Class<T> classOfT) {
+        return CompletableFuture.supplyAsync(() -> loadFile(file, classOfT), loader);
     }
 
     private <T> T loadFile(File file, Class<T> classOfT) {
-        try {
-            return JsonConverter.fromJson(new BufferedReader(new FileReader(file)), classOfT);
-        } catch (IOException e) {
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return JsonConverter.fromJson(reader, classOfT);
+        } catch (IOException | RuntimeException e) {
+            serverPrint("File " + file.getPath() + " Could Not Be Loaded.");
             e.printStackTrace();
             return null;
         }
     }
 
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
     private void saveAccount(Account account) {
-        String accountJson = JsonConverter.toJson(new TempAccount(account));
+        registry.updateDirectory(account);
+        accountPersister.markDirty(account);
+    }
 
-        try {
-            FileWriter writer = new FileWriter(ACCOUNTS_PATH + "/" + account.getUsername() + ".account.json");
-            writer.write(accountJson);
-            writer.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+    public void setDurabilityWindow(long durabilityWindowMillis) {
+        accountPersister.setDurabilityWindow(durabilityWindowMillis);
+    }
+
+    public void setAccountCacheCapacity(int accountCacheCapacity) {
+        registry.setCacheCapacity(accountCacheCapacity);
+    }
+
+    public DispatchStats getDispatchStats() {
+        return dispatchStats;
+    }
+
+    public void resetDispatchStats() {
+        dispatchStats = new DispatchStats();
+    }
+
+    //prints the stats every period, each dump covers the time since the one before
+    public void startStatsDump(long periodMillis) {
+        if (statsDump != null) {
+            serverPrint("Stats Dump Was Started Before.");
+            return;
         }
+        statsDump = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(Math.max(1, periodMillis));
+                } catch (InterruptedException e) {
+                    return;
+                }
+                DispatchStats stats = dispatchStats;
+                resetDispatchStats();
+                serverPrint(stats.toString());
+            }
+        }, "StatsDump");
+        statsDump.setDaemon(true);
+        statsDump.start();
+    }
+
+    public void flushAccounts() {
+        accountPersister.flush();
     }
 
     public String getServerName() {
@@ -0,0 +1,51 @@
+package server.dispatch;
+
+import server.models.game.Game;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class Dispatcher {
+    private final ExecutorService gamePool;
+    private final ExecutorService accountPool;
+    //weak keys: an actor goes away with its game, and the server has no point where a game ends yet
+    private final Map<Game, GameActor> gameActors = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public Dispatcher(int gameThreads, int accountThreads) {
+        gamePool = Executors.newFixedThreadPool(gameThreads, threadFactory("GameWorker"));
+        accountPool = Executors.newFixedThreadPool(accountThreads, threadFactory("AccountWorker"));
+    }
+
+    public CompletableFuture<Void> submitGameCommand(Game game, Runnable command) {
+        return gameActors.computeIfAbsent(game, key -> new GameActor(gamePool)).submit(command);
+    }
+
+    public CompletableFuture<Void> submitAccountCommand(Runnable command) {
+        return CompletableFuture.runAsync(command, accountPool);
+    }
+
+    public <T> CompletableFuture<T> supplyAccountCommand(Supplier<T> command) {
+        return CompletableFuture.supplyAsync(command, accountPool);
+    }
+
+    public void shutdown() {
+        gamePool.shutdown();
+        accountPool.shutdown();
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
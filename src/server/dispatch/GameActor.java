@@ -0,0 +1,54 @@
+package server.dispatch;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//Runs the commands of one game in order, never on two threads at once.
+class GameActor implements Runnable {
+    private static final int THROUGHPUT = 64;
+
+    private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Executor executor;
+
+    GameActor(Executor executor) {
+        this.executor = executor;
+    }
+
+    CompletableFuture<Void> submit(Runnable command) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        mailbox.add(() -> {
+            try {
+                command.run();
+                result.complete(null);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        schedule();
+        return result;
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        Runnable command;
+        int processed = 0;
+        while (processed < THROUGHPUT && (command = mailbox.poll()) != null) {
+            command.run();
+            processed++;
+        }
+        scheduled.set(false);
+        if (!mailbox.isEmpty()) {
+            schedule();
+        }
+    }
+}
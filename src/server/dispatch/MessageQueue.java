@@ -0,0 +1,168 @@
+package server.dispatch;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+//Bounded ring buffer for many producers and one consumer.
+//Producers claim a slot with one CAS on tail; each slot's sequence tells whether it is free or published.
+//poll and drain must only be called by one thread at a time.
+//Every slot keeps the time its element was offered, so poll measures how long elements waited in the queue;
+//drain time is the consumer's time per batch, not a wait.
+public class MessageQueue<E> {
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLongArray offerNanos;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    private final LongAdder offeredCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final AtomicLong drainedCount = new AtomicLong();
+    private final AtomicLong drainCount = new AtomicLong();
+    private final AtomicLong totalDrainNanos = new AtomicLong();
+    private final AtomicLong maxDrainNanos = new AtomicLong();
+    private final AtomicLong polledCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public MessageQueue(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity Should Be A Power Of Two.");
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        this.offerNanos = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+            } else if (difference < 0) {
+                rejectedCount.increment();
+                return false;
+            }
+        }
+        buffer.set(index, element);
+        offerNanos.set(index, System.nanoTime());
+        sequences.set(index, position + 1);
+        offeredCount.increment();
+        return true;
+    }
+
+    public E poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = buffer.get(index);
+        long wait = System.nanoTime() - offerNanos.get(index);
+        buffer.set(index, null);
+        sequences.set(index, position + capacity);
+        head = position + 1;
+        //only the consumer writes these, so plain sets are enough
+        polledCount.lazySet(polledCount.get() + 1);
+        totalWaitNanos.lazySet(totalWaitNanos.get() + wait);
+        if (wait > maxWaitNanos.get()) {
+            maxWaitNanos.lazySet(wait);
+        }
+        return element;
+    }
+
+    public int drain(Consumer<E> consumer, int maxBatchSize) {
+        long start = System.nanoTime();
+        int count = 0;
+        E element;
+        while (count < maxBatchSize && (element = poll()) != null) {
+            consumer.accept(element);
+            count++;
+        }
+        if (count > 0) {
+            long nanos = System.nanoTime() - start;
+            drainedCount.addAndGet(count);
+            drainCount.incrementAndGet();
+            totalDrainNanos.addAndGet(nanos);
+            maxDrainNanos.accumulateAndGet(nanos, Math::max);
+        }
+        return count;
+    }
+
+    public int getDepth() {
+        long depth = tail.get() - head;
+        return (int) Math.max(0, Math.min(depth, capacity));
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getOfferedCount() {
+        return offeredCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long getDrainedCount() {
+        return drainedCount.get();
+    }
+
+    public long getDrainCount() {
+        return drainCount.get();
+    }
+
+    public long getTotalDrainNanos() {
+        return totalDrainNanos.get();
+    }
+
+    public long getMaxDrainNanos() {
+        return maxDrainNanos.get();
+    }
+
+    public long getPolledCount() {
+        return polledCount.get();
+    }
+
+    public long getTotalWaitNanos() {
+        return totalWaitNanos.get();
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        long drains = getDrainCount();
+        long polled = getPolledCount();
+        return "depth=" + getDepth() + "/" + capacity +
+                " offered=" + getOfferedCount() +
+                " rejected=" + getRejectedCount() +
+                " drained=" + getDrainedCount() +
+                " drains=" + drains +
+                " avgDrainMicros=" + (drains == 0 ? 0 : getTotalDrainNanos() / drains / 1000) +
+                " maxDrainMicros=" + getMaxDrainNanos() / 1000 +
+                " avgWaitMicros=" + (polled == 0 ? 0 : getTotalWaitNanos() / polled / 1000) +
+                " maxWaitMicros=" + getMaxWaitNanos() / 1000;
+    }
+}
@@ -12,6 +12,7 @@ public class Account {
     private String password;
     private Collection collection;
     private ArrayList<Deck> decks = new ArrayList<>();
+    private ArrayList<CardHandle> missingCards = new ArrayList<>();//owned cards whose template isn't in the catalog
     private Deck mainDeck;
     private ArrayList<MatchHistory> matchHistories = new ArrayList<>();
     private int money;
@@ -24,10 +25,34 @@ public class Account {
         this.collection = new Collection();
     }
 
-    public Account(TempAccount account) {
+    //a player that is never saved, e.g. a simulated one; its only deck is the main deck
+    public Account(String username, Deck mainDeck) {
+        this(username, "");
+        this.decks.add(mainDeck);
+        this.mainDeck = mainDeck;
+    }
+
+    public Account(TempAccount account, Collection originalCards) {
         this.username = account.getUsername();
         this.password = account.getPassword();
-        this.collection = account.getCollection();
+        this.collection = new Collection();
+        if (account.getCards() != null) {
+            for (CardHandle card : account.getCards()) {
+                Card template = originalCards.getCard(card.getTemplateId());
+                if (template != null) {
+                    collection.addCard(new Card(template, card.getCardId()));
+                } else {//kept, so saving the account doesn't lose it
+                    Server.getInstance().serverPrint("Card " + card.getCardId() + " Of " + username +
+                            " Has No Template " + card.getTemplateId() + "!");
+                    missingCards.add(card);
+                }
+            }
+        } else if (account.getCollection() != null) {//old format with full cards
+            for (Card card : account.getCollection().getAllCards()) {
+                Card template = originalCards.getCard(card.getTemplateId());
+                collection.addCard(template == null ? card : new Card(template, card.getCardId()));
+            }
+        }
         if (account.getDecks() != null) {
             for (TempDeck deck : account.getDecks()) {
                 this.decks.add(new Deck(deck, collection));
@@ -47,10 +72,14 @@ public class Account {
         return false;
     }
 
-    public void changeMoney(int change) {
+    public synchronized void changeMoney(int change) {
         money += change;
     }
 
+    ArrayList<CardHandle> getMissingCards() {
+        return missingCards;
+    }
+
     public Deck getDeck(String deckName) {
         for (Deck deck : decks) {
             if (deck.getDeckName().equals(deckName)) {
@@ -60,7 +89,7 @@ public class Account {
         return null;
     }
 
-    public void addDeck(String deckName) {
+    public synchronized void addDeck(String deckName) {
         if (hasDeck(deckName)) {
             Server.getInstance().serverPrint("Error");
             return;
@@ -68,7 +97,7 @@ public class Account {
         decks.add(new Deck(deckName));
     }
 
-    public void deleteDeck(String deckName) {
+    public synchronized void deleteDeck(String deckName) {
         if (!hasDeck(deckName)) {
             Server.getInstance().serverPrint("Error");
             return;
@@ -76,7 +105,7 @@ public class Account {
         decks.remove(getDeck(deckName));
     }
 
-    public void buyCard(String cardName, int price, Collection originalCards) {
+    public synchronized void buyCard(String cardName, int price, Collection originalCards) {
         if (price > money || !originalCards.hasCard(cardName)) {
             Server.getInstance().serverPrint("Error");
             return;
@@ -85,7 +114,7 @@ public class Account {
         money -= price;
     }
 
-    public void sellCard(String cardId) {
+    public synchronized void sellCard(String cardId) {
         if (!collection.hasCard(cardId)) {
             Server.getInstance().serverPrint("Error");
             return;
@@ -100,7 +129,7 @@ public class Account {
         }
     }
 
-    public void addCardToDeck(String cardId, String deckName) {
+    public synchronized void addCardToDeck(String cardId, String deckName) {
         if (!hasDeck(deckName)) {
             Server.getInstance().serverPrint("Error");
         } else if (!collection.hasCard(cardId)) {
@@ -110,7 +139,7 @@ public class Account {
         }
     }
 
-    public void removeCardFromDeck(String cardId, String deckName) {
+    public synchronized void removeCardFromDeck(String cardId, String deckName) {
         if (!hasDeck(deckName)) {
             Server.getInstance().serverPrint("Error");
         } else {
@@ -118,7 +147,7 @@ public class Account {
         }
     }
 
-    public void selectDeck(String deckName) {
+    public synchronized void selectDeck(String deckName) {
         if (!hasDeck(deckName)) {
             Server.getInstance().serverPrint("Error");
         } else {
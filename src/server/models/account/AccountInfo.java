@@ -4,8 +4,24 @@ public class AccountInfo {
     private String username;
     private int wins;
 
+    private AccountInfo() {
+    }
+
     public AccountInfo(Account account) {
         this.username = account.getUsername();
         this.wins = account.getWins();
     }
+
+    public AccountInfo(String username, int wins) {
+        this.username = username;
+        this.wins = wins;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public int getWins() {
+        return wins;
+    }
 }
@@ -0,0 +1,24 @@
+package server.models.account;
+
+import server.models.card.Card;
+
+public class CardHandle {//stored form of an owned card
+    private String cardId;
+    private String templateId;
+
+    private CardHandle() {
+    }
+
+    CardHandle(Card card) {
+        this.cardId = card.getCardId();
+        this.templateId = card.getTemplateId();
+    }
+
+    public String getCardId() {
+        return cardId;
+    }
+
+    public String getTemplateId() {
+        return templateId;
+    }
+}
@@ -5,6 +5,9 @@ import server.models.card.Card;
 import server.models.card.CardType;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
 
 public class Collection {
     private ArrayList<Card> heroes = new ArrayList<>();
@@ -12,37 +15,48 @@ public class Collection {
     private ArrayList<Card> spells = new ArrayList<>();
     private ArrayList<Card> items = new ArrayList<>();
 
-    public boolean hasCard(String cardId) {
-        return hasCard(cardId, heroes) || hasCard(cardId, minions) || hasCard(cardId, spells) || hasCard(cardId, items);
+    private transient HashMap<String, Card> cardsById;//lower-cased cardId -> Card
+    private transient HashMap<String, Integer> lastNumbers;//lower-cased "username_cardName_" -> highest copy number
+
+    //the indexes are transient, so collections made by gson build them on first use
+    private HashMap<String, Card> getCardsById() {
+        if (cardsById == null) {
+            cardsById = new HashMap<>();
+            lastNumbers = new HashMap<>();
+            for (ArrayList<Card> cards : Arrays.asList(heroes, minions, spells, items)) {
+                for (Card card : cards) {
+                    addToIndex(card);
+                }
+            }
+        }
+        return cardsById;
     }
 
-    private boolean hasCard(String cardId, ArrayList<Card> cards) {
-        for (Card card : cards) {
-            if (cardId == null) continue;
-            if (card.getCardId().equalsIgnoreCase(cardId))
-                return true;
+    private void addToIndex(Card card) {
+        String cardId = card.getCardId().toLowerCase(Locale.ROOT);
+        cardsById.put(cardId, card);
+        int separator = cardId.lastIndexOf('_');
+        if (separator >= 0) {
+            try {
+                int number = Integer.parseInt(cardId.substring(separator + 1));
+                lastNumbers.merge(cardId.substring(0, separator + 1), number, Math::max);
+            } catch (NumberFormatException ignored) {
+            }
         }
-        return false;
     }
 
-    public Card getCard(String cardId) {
-        if (hasCard(cardId, heroes))
-            return getCard(cardId, heroes);
-        if (hasCard(cardId, minions))
-            return getCard(cardId, minions);
-        if (hasCard(cardId, spells))
-            return getCard(cardId, spells);
-        if (hasCard(cardId, items))
-            return getCard(cardId, items);
-        return null;
+    private void removeFromIndex(Card card) {
+        getCardsById().remove(card.getCardId().toLowerCase(Locale.ROOT));
     }
 
-    private Card getCard(String cardId, ArrayList<Card> cards) {
-        for (Card card : cards) {
-            if (card.getCardId().equalsIgnoreCase(cardId))
-                return card;
-        }
-        return null;
+    public boolean hasCard(String cardId) {
+        if (cardId == null) return false;
+        return getCardsById().containsKey(cardId.toLowerCase(Locale.ROOT));
+    }
+
+    public Card getCard(String cardId) {
+        if (cardId == null) return null;
+        return getCardsById().get(cardId.toLowerCase(Locale.ROOT));
     }
 
     public void addCard(String cardName, Collection originalCards, String username) {//for account collections
@@ -50,11 +64,10 @@ public class Collection {
             Server.getInstance().serverPrint("Invalid CardName!");
             return;
         }
-        int number = 1;
         String cardId = (username + "_" + cardName + "_").replaceAll(" ", "");
-        while (hasCard(cardId + number))
-            number++;
-        Card newCard = new Card(originalCards.getCard(cardName), username, number);
+        getCardsById();
+        int number = lastNumbers.getOrDefault(cardId.toLowerCase(Locale.ROOT), 0) + 1;//never lowered, so always free
+        Card newCard = new Card(originalCards.getCard(cardName), cardId + number);
         addCard(newCard);
     }
 
@@ -83,11 +96,22 @@ public class Collection {
                 break;
             case FLAG:
                 Server.getInstance().serverPrint("Error");
-                break;
+                return;
         }
+        addToIndex(card);
+    }
+
+    public ArrayList<Card> getAllCards() {
+        ArrayList<Card> cards = new ArrayList<>(heroes.size() + minions.size() + spells.size() + items.size());
+        cards.addAll(heroes);
+        cards.addAll(minions);
+        cards.addAll(spells);
+        cards.addAll(items);
+        return cards;
     }
 
     public void removeCard(Card card) {
+        removeFromIndex(card);
         heroes.remove(card);
         minions.remove(card);
         spells.remove(card);
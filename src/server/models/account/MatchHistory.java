@@ -6,6 +6,9 @@ public class MatchHistory {
     private String loserAccount;
     private int occurrenceTime;
 
+    private MatchHistory() {
+    }
+
     public MatchHistory(String winnerAccount, String loserAccount) {
 
     }
@@ -1,5 +1,6 @@
 package server.models.account;
 
+import server.models.card.Card;
 import server.models.card.Deck;
 import server.models.card.TempDeck;
 
@@ -8,13 +9,17 @@ import java.util.ArrayList;
 public class TempAccount {
     private String username;
     private String password;
-    private Collection collection;
+    private Collection collection;//full cards, for clients
+    private ArrayList<CardHandle> cards;//for the account store
     private ArrayList<TempDeck> decks = new ArrayList<>();
     private String mainDeckName;
     private ArrayList<MatchHistory> matchHistories;
     private int money;
     private int wins;
 
+    private TempAccount() {
+    }
+
     public TempAccount(Account account) {
         this.username = account.getUsername();
         this.password = account.getPassword();
@@ -30,6 +35,17 @@ public class TempAccount {
         this.wins = account.getWins();
     }
 
+    public static TempAccount makeStoredAccount(Account account) {
+        TempAccount storedAccount = new TempAccount(account);
+        storedAccount.collection = null;
+        storedAccount.cards = new ArrayList<>();
+        for (Card card : account.getCollection().getAllCards()) {
+            storedAccount.cards.add(new CardHandle(card));
+        }
+        storedAccount.cards.addAll(account.getMissingCards());
+        return storedAccount;
+    }
+
     public String getUsername() {
         return username;
     }
@@ -42,6 +58,10 @@ public class TempAccount {
         return collection;
     }
 
+    public ArrayList<CardHandle> getCards() {
+        return cards;
+    }
+
     public ArrayList<TempDeck> getDecks() {
         return decks;
     }
@@ -18,11 +18,30 @@ public class Card {
     private int range;
     private boolean hasCombo;
 
+    private Card() {
+    }
+
     public Card(Card referenceCard, String username, int number) {
         this(referenceCard);
         this.cardId = (username + "_" + referenceCard.name + "_" + number).replaceAll(" ", "");
     }
 
+    //owned cards share the catalog card's spells; games work on copies made by Card(Card)
+    public Card(Card template, String cardId) {
+        this.name = template.name;
+        this.description = template.description;
+        this.cardId = cardId;
+        this.type = template.type;
+        this.spells = template.spells;
+        this.defaultAp = template.defaultAp;
+        this.defaultHp = template.defaultHp;
+        this.mannaPoint = template.mannaPoint;
+        this.price = template.price;
+        this.attackType = template.attackType;
+        this.hasCombo = template.hasCombo;
+        this.range = template.range;
+    }
+
     //dangerous
     public Card(Card referenceCard){//TODO:Should be private
         this.name = referenceCard.name;
@@ -79,6 +98,10 @@ public class Card {
         return this.cardId;
     }
 
+    public String getTemplateId() {//the catalog card's id
+        return name.replace(" ", "");
+    }
+
     public void setCardId(String cardId) {//TODO:Should be removed!
         this.cardId = cardId;
     }
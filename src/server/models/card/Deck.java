@@ -4,19 +4,27 @@ import server.Server;
 import server.models.account.Collection;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 
 public class Deck {
     private String deckName;
     private Card hero;
     private Card item;
     private ArrayList<Card> others = new ArrayList<>();
+    private transient HashMap<String, Card> cardsById;//lower-cased cardId -> Card
+
+    private Deck() {
+    }
 
     //ERROR:This uses same reference!
-    public Deck(String deckName, Card hero, Card item, ArrayList<Card> others) {
+    public Deck(String deckName, Card hero, Card item, List<Card> others) {
         this.deckName = deckName;
         this.hero = hero;
         this.item = item;
-        this.others = others;
+        this.others = new ArrayList<>(others);
     }
 
     public Deck(Deck deck) {
@@ -38,7 +46,10 @@ public class Deck {
         this.hero = collection.getCard(tempDeck.getHeroId());
         this.item = collection.getCard(tempDeck.getItemId());
         for (String cardId : tempDeck.getOthersIds()) {
-            others.add(collection.getCard(cardId));
+            Card card = collection.getCard(cardId);
+            if (card != null) {//its template may be missing from the catalog
+                others.add(card);
+            }
         }
     }
 
@@ -46,16 +57,24 @@ public class Deck {
         this.deckName = deckName;
     }
 
-    public boolean hasCard(String cardId) {
-        if (hero != null && hero.getCardId().equalsIgnoreCase(cardId))
-            return true;
-        if (item != null && item.getCardId().equalsIgnoreCase(cardId))
-            return true;
-        for (Card card : others) {
-            if (card.getCardId().equalsIgnoreCase(cardId))
-                return true;
+    //built on first use and dropped whenever the cards are replaced wholesale
+    private HashMap<String, Card> getCardsById() {
+        if (cardsById == null) {
+            cardsById = new HashMap<>();
+            if (hero != null)
+                cardsById.put(hero.getCardId().toLowerCase(Locale.ROOT), hero);
+            if (item != null)
+                cardsById.put(item.getCardId().toLowerCase(Locale.ROOT), item);
+            for (Card card : others) {
+                cardsById.put(card.getCardId().toLowerCase(Locale.ROOT), card);
+            }
         }
-        return false;
+        return cardsById;
+    }
+
+    public boolean hasCard(String cardId) {
+        if (cardId == null) return false;
+        return getCardsById().containsKey(cardId.toLowerCase(Locale.ROOT));
     }
 
     public void addCard(String cardId, Collection collection) {
@@ -69,10 +88,14 @@ public class Deck {
     private void addCard(Card card) {
         switch (card.getType()) {
             case HERO:
+                if (hero != null)
+                    getCardsById().remove(hero.getCardId().toLowerCase(Locale.ROOT));
                 hero = card;
                 break;
             case USABLE_ITEM:
             case COLLECTIBLE_ITEM:
+                if (item != null)
+                    getCardsById().remove(item.getCardId().toLowerCase(Locale.ROOT));
                 item = card;
                 break;
             case MINION:
@@ -81,8 +104,9 @@ public class Deck {
                 break;
             default:
                 Server.getInstance().serverPrint("Error!");
-                break;
+                return;
         }
+        getCardsById().put(card.getCardId().toLowerCase(Locale.ROOT), card);
     }
 
     public void removeCard(Card card) {
@@ -95,6 +119,7 @@ public class Deck {
         if (item == card)
             item = null;
         others.remove(card);
+        getCardsById().remove(card.getCardId().toLowerCase(Locale.ROOT));
     }
 
     public boolean isValid() {//TODO:reCode
@@ -114,6 +139,7 @@ public class Deck {
             card.setCardId(makeId(card, numberOf(card.getName()) + 1));
             others.add(card);
         }
+        cardsById = null;
     }
 
     private String makeId(Card card, int number) {//TODO:reCode
@@ -140,16 +166,15 @@ public class Deck {
     }
 
     public Card getCardFromOthers(String cardId){
-        for (Card card :
-                others) {
-            if (cardId.equals(card.getCardId())){
-                return card;
-            }
+        Card card = getCardsById().get(cardId.toLowerCase(Locale.ROOT));
+        if (card == null || card == hero || card == item || !cardId.equals(card.getCardId())) {
+            return null;
         }
-        return null;
+        return card;
     }
-    public ArrayList<Card> getOthers() {
-        return others;
+    //read only, cards are added and removed through the deck so its index stays right
+    public List<Card> getOthers() {
+        return Collections.unmodifiableList(others);
     }
 
     public Card getItem() {
@@ -8,6 +8,9 @@ public class TempDeck {
     private String itemId;
     private ArrayList<String> othersIds = new ArrayList<>();
 
+    private TempDeck() {
+    }
+
     public TempDeck(Deck deck) {
         this.deckName = deck.getDeckName();
         if (deck.getHero() != null) {
@@ -7,6 +7,9 @@ public class AvailabilityType {
     private boolean specialPower;
     private boolean onStart;
 
+    private AvailabilityType() {
+    }
+
     public AvailabilityType(AvailabilityType availabilityType) {
         this.onPut = availabilityType.onPut;
         this.onAttack = availabilityType.onAttack;
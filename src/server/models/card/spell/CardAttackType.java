@@ -5,6 +5,9 @@ public class CardAttackType {
     private boolean ranged;
     private boolean hybrid;
 
+    private CardAttackType() {
+    }
+
     public CardAttackType(CardAttackType attackType) {
         this.melee = attackType.melee;
         this.ranged = attackType.ranged;
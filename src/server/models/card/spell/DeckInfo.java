@@ -9,6 +9,9 @@ public class DeckInfo {
     private String HeroName;
     private GameType type;
 
+    private DeckInfo() {
+    }
+
     public DeckInfo(Story story) {
         this.deckName = story.getDeck().getDeckName();
         this.HeroName = story.getDeck().getHero().getName();
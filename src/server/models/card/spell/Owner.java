@@ -4,6 +4,9 @@ public class Owner {
     private boolean own;
     private boolean enemy;
 
+    private Owner() {
+    }
+
     public Owner(Owner referenceOwner) {
         this.own = referenceOwner.own;
         this.enemy = referenceOwner.enemy;
@@ -9,6 +9,9 @@ public class Spell {
     private int mannaPoint;
     private int lastTurnUsed;
 
+    private Spell() {
+    }
+
     public Spell(String spellId, SpellAction action, Target target, AvailabilityType availabilityType, int coolDown, int mannaPoint) {
         this.spellId = spellId;
         this.action = action;
@@ -24,6 +24,9 @@ public class SpellAction {
     private int delay;
     private Spell carryingSpell;
 
+    private SpellAction() {
+    }
+
     public SpellAction(SpellAction referenceAction) { // copy constructor
         this.enemyHitChanges = referenceAction.enemyHitChanges;
         this.apChange = referenceAction.apChange;
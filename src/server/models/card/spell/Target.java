@@ -12,6 +12,9 @@ public class Target {
     private TargetCardType cardType;
     private CardAttackType attackType;
 
+    private Target() {
+    }
+
     public Target(Target referenceTarget) {
         this.isRelatedToCardOwnerPosition = referenceTarget.isRelatedToCardOwnerPosition;
         this.isForAroundOwnHero = referenceTarget.isForAroundOwnHero;
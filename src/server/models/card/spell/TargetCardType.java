@@ -6,6 +6,9 @@ public class TargetCardType {
     private boolean minion;
     private boolean player;
 
+    private TargetCardType() {
+    }
+
     public TargetCardType(TargetCardType targetCardType) {
         this.cell = targetCardType.cell;
         this.hero = targetCardType.hero;
@@ -3,9 +3,11 @@ package server.models.game;
 import server.models.card.spell.SpellAction;
 
 public class Buff {
+    private int id;
     private SpellAction action;
     private TargetData target;
     private boolean positive;
+    private int dueTurn;
 
     Buff(SpellAction action, TargetData target) {
         this.action = new SpellAction(action);
@@ -30,6 +32,22 @@ public class Buff {
         return weight >= 0;
     }
 
+    void setId(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    void setDueTurn(int dueTurn) {
+        this.dueTurn = dueTurn;
+    }
+
+    int getDueTurn() {
+        return dueTurn;
+    }
+
     public SpellAction getAction() {
         return action;
     }
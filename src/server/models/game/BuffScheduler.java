@@ -0,0 +1,69 @@
+package server.models.game;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+
+//Timing wheel of buffs keyed by the turn they are next applied in; a turn only touches its own slot.
+//Buffs due more than WHEEL_SIZE turns ahead wait in their slot until their round comes.
+//Removed buffs are dropped from the live set at once and skipped when their slot comes up.
+class BuffScheduler {
+    private static final int WHEEL_SIZE = 64;//power of two
+
+    private final ArrayList<ArrayList<Buff>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private final LinkedHashMap<Integer, Buff> buffs = new LinkedHashMap<>();//id -> live Buff
+    private ArrayList<Buff> appliedBuffs = new ArrayList<>();//not durable, reverted when the turn ends
+
+    BuffScheduler() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayList<>());
+        }
+    }
+
+    void add(Buff buff) {
+        buffs.put(buff.getId(), buff);
+    }
+
+    boolean remove(Buff buff) {
+        return buffs.remove(buff.getId(), buff);
+    }
+
+    boolean isLive(Buff buff) {
+        return buffs.get(buff.getId()) == buff;
+    }
+
+    void schedule(Buff buff, int turnNumber) {
+        buff.setDueTurn(turnNumber);
+        wheel.get(turnNumber & (WHEEL_SIZE - 1)).add(buff);
+    }
+
+    ArrayList<Buff> pollDue(int turnNumber) {
+        ArrayList<Buff> slot = wheel.get(turnNumber & (WHEEL_SIZE - 1));
+        ArrayList<Buff> dueBuffs = new ArrayList<>();
+        int kept = 0;
+        for (Buff buff : slot) {
+            if (!isLive(buff)) continue;
+            if (buff.getDueTurn() == turnNumber) {
+                dueBuffs.add(buff);
+            } else {
+                slot.set(kept++, buff);
+            }
+        }
+        slot.subList(kept, slot.size()).clear();
+        return dueBuffs;
+    }
+
+    void addApplied(Buff buff) {
+        appliedBuffs.add(buff);
+    }
+
+    ArrayList<Buff> takeApplied() {
+        ArrayList<Buff> applied = appliedBuffs;
+        appliedBuffs = new ArrayList<>();
+        return applied;
+    }
+
+    Collection<Buff> getBuffs() {
+        return buffs.values();
+    }
+}
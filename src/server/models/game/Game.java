@@ -1,12 +1,11 @@
 package server.models.game;
 
-import server.Server;
 import server.models.account.Account;
-import server.models.card.AttackType;
 import server.models.card.Card;
 import server.models.card.CardType;
 import server.models.card.spell.Spell;
 import server.models.card.spell.SpellAction;
+import server.models.map.BitBoard;
 import server.models.map.Cell;
 import server.models.map.GameMap;
 import server.models.map.Position;
@@ -17,11 +16,14 @@ public abstract class Game {
     private GameType gameType;
     private Player playerOne;
     private Player playerTwo;
-    private ArrayList<Buff> buffs;
+    private transient BuffScheduler buffs = new BuffScheduler();
+    private int lastBuffId;
     private GameMap gameMap;
     private int turnNumber;
     private int lastTurnChangingTime;
     private boolean finished = false;
+    private transient GameChangeLog changeLog = new GameChangeLog();
+    private transient boolean simulating;//changes are not recorded for the clients
 
     protected Game(GameType gameType, Account accountOne, Account accountTwo, GameMap gameMap) {
         this.gameType = gameType;
@@ -56,6 +58,42 @@ public abstract class Game {
         return playerTwo;
     }
 
+    public int getTurnNumber() {
+        return turnNumber;
+    }
+
+    //a struct of arrays copy of the board and the minions in hand for simulation; later changes to either side are not shared
+    public TroopStore makeTroopStore() {
+        TroopStore store = new TroopStore(playerOne.getTroops().size() + playerTwo.getTroops().size() +
+                playerOne.getHand().size() + playerTwo.getHand().size() + 2, turnNumber);
+        addToStore(store, playerOne, 1);
+        addToStore(store, playerTwo, 2);
+        return store;
+    }
+
+    private void addToStore(TroopStore store, Player player, int playerNumber) {
+        for (Troop troop : player.getTroops()) {
+            store.add(troop, playerNumber);
+        }
+        for (Card card : player.getHand()) {
+            if (card.getType() == CardType.MINION) {
+                store.add(card, playerNumber, TroopStore.IN_HAND);
+            }
+        }
+        if (player.getNextCard() != null && player.getNextCard().getType() == CardType.MINION) {
+            store.add(player.getNextCard(), playerNumber, TroopStore.NEXT_CARD);
+        }
+    }
+
+    //while simulating nothing is recorded for the clients
+    public void startSimulation() {
+        simulating = true;
+    }
+
+    public void stopSimulation() {
+        simulating = false;
+    }
+
     public Player getCurrentTurnPlayer() {
         if (turnNumber % 2 == 1) {
             return playerOne;
@@ -79,37 +117,49 @@ public abstract class Game {
 
     public void changeTurn(String username) throws Exception {
         if (canCommand(username)) {
-            getCurrentTurnPlayer().addNextCardToHand();
+            Player player = getCurrentTurnPlayer();
+            Card newCard = player.addNextCardToHand();
+            if (newCard != null) {
+                record(GameChange.makeToHandChange(player.getUserName(), newCard));
+                if (player.getNextCard() != null) {
+                    record(GameChange.makeToNextChange(player.getUserName(), player.getNextCard()));
+                }
+            }
             revertNotDurableBuffs();
             turnNumber++;
-            Server.getInstance().sendChangeTurnMessage(this, turnNumber);
-            applyAllBuffs();
-            allTroopsCanAttack();
+            record(GameChange.makeTurnChange(turnNumber));
+            applyDueBuffs();
+            startTroopsTurn();
         } else {
             throw new Exception("it isn't your turn!");
         }
     }
 
-    private void allTroopsCanAttack() {
+    private void startTroopsTurn() {
         for (Troop troop : playerOne.getTroops()) {
-            troop.setCanAttack(true);
+            startTurn(troop);
         }
         for (Troop troop : playerTwo.getTroops()) {
-            troop.setCanAttack(true);
+            startTurn(troop);
         }
     }
 
-    private void applyAllBuffs() {
-        for (Buff buff : buffs) {
+    //every troop may attack and move once a turn
+    private void startTurn(Troop troop) {
+        troop.setCanAttack(true);
+        troop.setMoved(false);
+    }
+
+    private void applyDueBuffs() {
+        for (Buff buff : buffs.pollDue(turnNumber)) {
             applyBuff(buff);
         }
     }
 
+    //not durable effects last until the end of the turn they were applied in
     private void revertNotDurableBuffs() {
-        for (Buff buff : buffs) {
-            if (!buff.getAction().isDurable()) {
-                revertBuff(buff);
-            }
+        for (Buff buff : buffs.takeApplied()) {
+            revertBuff(buff);
         }
     }
 
@@ -120,9 +170,9 @@ public abstract class Game {
             if (!(buff.isPositive() || troop.canGiveBadEffect())) continue;
 
             troop.changeEnemyHit(-action.getEnemyHitChanges());
-            troop.changeCurrentAp(-action.getApChange());
+            changeAp(troop, -action.getApChange());
             if (!action.isPoison() || troop.canGetPoison()) {
-                troop.changeCurrentHp(-action.getHpChange());
+                changeHp(troop, -action.getHpChange());
                 if (troop.getCurrentHp() <= 0) {
                     killTroop(troop);
                 }
@@ -155,19 +205,42 @@ public abstract class Game {
     }
 
     public void moveTroop(String username, String cardId, Position position) throws Exception {
-
+        if (!canCommand(username)) {
+            throw new Exception("its not your turn");
+        }
+        Troop troop = getCurrentTurnPlayer().getTroop(cardId);
+        if (troop == null) {
+            throw new Exception("card id is not valid");
+        }
+        Cell cell = gameMap.getCell(position.getRow(), position.getColumn());
+        if (!BitBoard.contains(getMovableMask(troop), cell)) {
+            throw new Exception("troop can not move to this cell");
+        }
+        gameMap.moveTroop(troop, cell);
+        troop.setMoved(true);
+        record(GameChange.makeToMapChange(username, troop, cell));
     }
 
     public void insert(String username, String cardId, Position position) throws Exception {
         if (!canCommand(username)) {
             throw new Exception("its not your turn");
         }
-        put(2 - (turnNumber % 2), getCurrentTurnPlayer().insert(cardId, gameMap.getCellWithPosition(position)), gameMap.getCellWithPosition(position));
+        if (gameMap.hasTroop(gameMap.getCellWithPosition(position))) {
+            throw new Exception("cell is not empty");
+        }
+        Troop troop = getCurrentTurnPlayer().insert(cardId, gameMap.getCellWithPosition(position));
+        if (troop == null) {
+            throw new Exception("card id is not valid");
+        }
+        record(GameChange.makeFromHandChange(username, cardId));
+        put(2 - (turnNumber % 2), troop, gameMap.getCellWithPosition(position));
     }
 
     public void put(int playerNumber, Troop troop, Cell cell) {
         troop.setCell(cell);
         gameMap.addTroop(playerNumber, troop);
+        Player player = (playerNumber == 1) ? playerOne : playerTwo;
+        record(GameChange.makeToMapChange(player.getUserName(), troop, cell));
         for (Spell spell :
                 troop.getCard().getSpells()) {
             if (spell.getAvailabilityType().isOnPut())
@@ -198,19 +271,8 @@ public abstract class Game {
             throw new Exception("attacker can not attack");
         }
 
-        if (attackerTroop.getCard().getAttackType() == AttackType.MELEE) {
-            if (!attackerTroop.getCell().isNextTo(defenderTroop.getCell())) {
-                throw new Exception("can not attack to this target");
-            }
-        } else if (attackerTroop.getCard().getAttackType() == AttackType.RANGED) {
-            if (attackerTroop.getCell().isNextTo(defenderTroop.getCell()) ||
-                    attackerTroop.getCell().manhattanDistance(defenderTroop.getCell()) > attackerTroop.getCard().getRange()) {
-                throw new Exception("can not attack to this target");
-            }
-        } else { // HYBRID
-            if (attackerTroop.getCell().manhattanDistance(defenderTroop.getCell()) > attackerTroop.getCard().getRange()) {
-                throw new Exception("can not attack to this target");
-            }
+        if (!BitBoard.contains(getAttackMask(attackerTroop), defenderTroop.getCell())) {
+            throw new Exception("can not attack to this target");
         }
 
         if (defenderTroop.canGiveBadEffect() &&
@@ -219,8 +281,12 @@ public abstract class Game {
             if (!attackerTroop.isHolyBuffDisabling() || defenderTroop.getEnemyHitChanges() > 0) {
                 attackPower += defenderTroop.getEnemyHitChanges();
             }
-            defenderTroop.changeCurrentHp(attackPower);
+            changeHp(defenderTroop, -attackPower);
             attackerTroop.setCanAttack(false);
+            if (defenderTroop.getCurrentHp() <= 0) {
+                killTroop(defenderTroop);
+                return;
+            }
             counterAttack(defenderTroop, attackerTroop);
         }
     }
@@ -230,19 +296,8 @@ public abstract class Game {
             throw new Exception("defender is disarm");
         }
 
-        if (defenderTroop.getCard().getAttackType() == AttackType.MELEE) {
-            if (!defenderTroop.getCell().isNextTo(attackerTroop.getCell())) {
-                throw new Exception("can not counter attack to this target");
-            }
-        } else if (defenderTroop.getCard().getAttackType() == AttackType.RANGED) {
-            if (defenderTroop.getCell().isNextTo(attackerTroop.getCell()) ||
-                    defenderTroop.getCell().manhattanDistance(attackerTroop.getCell()) > defenderTroop.getCard().getRange()) {
-                throw new Exception("can not counter attack to this target");
-            }
-        } else { // HYBRID
-            if (defenderTroop.getCell().manhattanDistance(attackerTroop.getCell()) > defenderTroop.getCard().getRange()) {
-                throw new Exception("can not counter attack to this target");
-            }
+        if (!BitBoard.contains(getAttackMask(defenderTroop), attackerTroop.getCell())) {
+            throw new Exception("can not counter attack to this target");
         }
 
         if (attackerTroop.canGiveBadEffect() &&
@@ -251,7 +306,10 @@ public abstract class Game {
             if (!defenderTroop.isHolyBuffDisabling() || attackerTroop.getEnemyHitChanges() > 0) {
                 attackPower += attackerTroop.getEnemyHitChanges();
             }
-            attackerTroop.changeCurrentHp(attackPower);
+            changeHp(attackerTroop, -attackPower);
+            if (attackerTroop.getCurrentHp() <= 0) {
+                killTroop(attackerTroop);
+            }
         }
     }
 
@@ -266,45 +324,164 @@ public abstract class Game {
     public abstract void finishCheck();
 
     public Troop[] getAttackableTroops(String cardId) {
-        return new Troop[]{};
+        Troop troop = findTroop(cardId);
+        if (troop == null || !troop.canAttack()) {
+            return new Troop[]{};
+        }
+        long targets = getAttackMask(troop) & gameMap.getTroopMask(3 - gameMap.getOwner(troop));
+        Troop[] troops = new Troop[Long.bitCount(targets)];
+        for (int i = 0; targets != 0; targets &= targets - 1) {
+            troops[i++] = gameMap.getTroop(Long.numberOfTrailingZeros(targets));
+        }
+        return troops;
     }
 
     public Cell[] getSpellableCells(String cardId, String spellId) {
-        return new Cell[]{};
+        Spell spell = findSpell(cardId, spellId);
+        if (spell == null) {
+            return new Cell[]{};
+        }
+        return BitBoard.toCells(getSpellableMask(spell), gameMap);
     }
 
     public Cell[] getMovableCells(String cardId) {
-        return new Cell[]{};
+        Troop troop = findTroop(cardId);
+        if (troop == null) {
+            return new Cell[]{};
+        }
+        return BitBoard.toCells(getMovableMask(troop), gameMap);
     }
 
     public boolean canAttack(String attackerCardId, String defenderCardId) {
-        return false;
+        Troop attackerTroop = findTroop(attackerCardId);
+        Troop defenderTroop = findTroop(defenderCardId);
+        if (attackerTroop == null || defenderTroop == null || !attackerTroop.canAttack()) {
+            return false;
+        }
+        return gameMap.getOwner(attackerTroop) != gameMap.getOwner(defenderTroop) &&
+                BitBoard.contains(getAttackMask(attackerTroop), defenderTroop.getCell());
     }
 
     public boolean canSpell(String cardId, Position position) {
+        Cell cell = gameMap.getCell(position.getRow(), position.getColumn());
+        for (Spell spell : findSpells(cardId)) {
+            if (BitBoard.contains(getSpellableMask(spell), cell)) {
+                return true;
+            }
+        }
         return false;
     }
 
     public boolean canInsert(String cardId, Position position) {
+        Cell cell = gameMap.getCell(position.getRow(), position.getColumn());
+        if (cell == null || gameMap.hasTroop(cell)) {
+            return false;
+        }
+        for (Card card : getCurrentTurnPlayer().getHand()) {
+            if (card.getCardId().equals(cardId)) {
+                return card.getType() == CardType.MINION;
+            }
+        }
         return false;
     }
 
+    private Troop findTroop(String cardId) {
+        Troop troop = playerOne.getTroop(cardId);
+        if (troop == null) {
+            troop = playerTwo.getTroop(cardId);
+        }
+        return troop;
+    }
+
+    //spells of a card in the current player's hand or of one of their troops
+    private ArrayList<Spell> findSpells(String cardId) {
+        Player player = getCurrentTurnPlayer();
+        for (Card card : player.getHand()) {
+            if (card.getCardId().equals(cardId)) {
+                return card.getSpells();
+            }
+        }
+        Troop troop = player.getTroop(cardId);
+        if (troop != null) {
+            return troop.getCard().getSpells();
+        }
+        return new ArrayList<>();
+    }
+
+    private Spell findSpell(String cardId, String spellId) {
+        for (Spell spell : findSpells(cardId)) {
+            if (spell.getSpellId().equals(spellId)) {
+                return spell;
+            }
+        }
+        return null;
+    }
+
+    private long getAttackMask(Troop troop) {
+        if (troop.getCell() == null) return 0;
+        return BitBoard.getAttackMask(
+                BitBoard.getIndex(troop.getCell()), troop.getCard().getAttackType(), troop.getCard().getRange());
+    }
+
+    private long getMovableMask(Troop troop) {
+        if (!troop.canMove() || troop.hasMoved() || troop.getCell() == null) return 0;
+        return BitBoard.getMovableMask(BitBoard.getIndex(troop.getCell()),
+                gameMap.getTroopMask(3 - gameMap.getOwner(troop)), gameMap.getOccupiedMask());
+    }
+
+    //the cells whose area holds something the spell can target
+    private long getSpellableMask(Spell spell) {
+        if (spell.getTarget().getCardType().isPlayer() || spell.getTarget().getCardType().isCell()) {
+            return BitBoard.ALL;
+        }
+        long targets = getTargetTroopMask(spell, BitBoard.ALL);
+        if (spell.getTarget().isRelatedToCardOwnerPosition() || spell.getTarget().isForAroundOwnHero()) {
+            return targets == 0 ? 0 : BitBoard.ALL;//the click does not move the area
+        }
+        long cells = 0;
+        for (int index = 0; index < BitBoard.CELL_NUMBER; index++) {
+            if ((BitBoard.getArea(index, spell.getTarget().getDimensions()) & targets) != 0) {
+                cells |= BitBoard.bit(index);
+            }
+        }
+        return cells;
+    }
+
+    private long getTargetTroopMask(Spell spell, long area) {
+        long targets = 0;
+        for (long troops = area & gameMap.getOccupiedMask(); troops != 0; troops &= troops - 1) {
+            int index = Long.numberOfTrailingZeros(troops);
+            CardType type = gameMap.getTroop(index).getCard().getType();
+            if ((type == CardType.HERO && spell.getTarget().getCardType().isHero()) ||
+                    (type == CardType.MINION && spell.getTarget().getCardType().isMinion())) {
+                targets |= BitBoard.bit(index);
+            }
+        }
+        return targets;
+    }
+
     private void applySpell(Spell spell, TargetData target) {
         spell.setLastTurnUsed(turnNumber);
         Buff buff = new Buff(spell.getAction(), target);
-        buffs.add(buff);
-        applyBuff(buff);
+        addBuff(buff);
+        if (buff.getAction().getDelay() > 0) {
+            buffs.schedule(buff, turnNumber + buff.getAction().getDelay());
+        } else {
+            applyBuff(buff);
+        }
     }
 
     private void applyBuff(Buff buff) {
         TargetData target = buff.getTarget();
-        if (haveDelay(buff)) return;
 
         applyBuffOnCards(buff, target.getCards());
         applyBuffOnCellTroops(buff, target.getCells());
         applyBuffOnTroops(buff, target.getTroops());
         applyBuffOnPlayers(buff, target.getPlayers());
 
+        if (!buff.getAction().isDurable()) {
+            buffs.addApplied(buff);
+        }
         decreaseDuration(buff);
     }
 
@@ -315,23 +492,53 @@ public abstract class Game {
         }
     }
 
+    //a negative duration never runs out
     private void decreaseDuration(Buff buff) {
         SpellAction action = buff.getAction();
         if (action.getDuration() > 0) {
             action.decreaseDuration();
         }
         if (action.getDuration() == 0) {
-            buffs.remove(buff);
+            removeBuff(buff);
+        } else if (buffs.isLive(buff)) {
+            buffs.schedule(buff, turnNumber + 1);
         }
     }
 
-    private boolean haveDelay(Buff buff) {
-        SpellAction action = buff.getAction();
-        if (action.getDelay() > 0) {
-            action.decreaseDelay();
-            return true;
+    private void addBuff(Buff buff) {
+        buff.setId(++lastBuffId);
+        buffs.add(buff);
+        record(GameChange.makeBuffAddedChange(buff));
+    }
+
+    private void removeBuff(Buff buff) {
+        if (buffs.remove(buff)) {
+            record(GameChange.makeBuffRemovedChange(buff));
         }
-        return false;
+    }
+
+    private void changeHp(Troop troop, int change) {
+        if (change == 0) return;
+        troop.changeCurrentHp(change);
+        record(GameChange.makeTroopHpChange(troop));
+    }
+
+    private void changeAp(Troop troop, int change) {
+        int oldAp = troop.getCurrentAp();
+        troop.changeCurrentAp(change);
+        if (troop.getCurrentAp() != oldAp) {
+            record(GameChange.makeTroopApChange(troop));
+        }
+    }
+
+    private void record(GameChange change) {
+        if (!simulating) {
+            changeLog.record(change);
+        }
+    }
+
+    public GameChangeLog getChangeLog() {
+        return changeLog;
     }
 
     private void applyBuffOnCards(Buff buff, ArrayList<Card> cards) {
@@ -343,13 +550,15 @@ public abstract class Game {
         }
     }
 
+    //each application reaches the troops in the cells at that time, through a one turn troop buff
     private void applyBuffOnCellTroops(Buff buff, ArrayList<Cell> cells) {
         ArrayList<Troop> inCellTroops = getInCellTargetTroops(cells);
+        if (inCellTroops.isEmpty()) return;
         Buff troopBuff = new Buff(
                 buff.getAction().makeCopyAction(1, 0), new TargetData(inCellTroops)
         );
-        buffs.add(troopBuff);
-        applyBuffOnTroops(troopBuff, inCellTroops);
+        addBuff(troopBuff);
+        applyBuff(troopBuff);
     }
 
     private void applyBuffOnTroops(Buff buff, ArrayList<Troop> targetTroops) {
@@ -358,9 +567,9 @@ public abstract class Game {
             if (!(buff.isPositive() || troop.canGiveBadEffect())) continue;
 
             troop.changeEnemyHit(action.getEnemyHitChanges());
-            troop.changeCurrentAp(action.getApChange());
+            changeAp(troop, action.getApChange());
             if (!action.isPoison() || troop.canGetPoison()) {
-                troop.changeCurrentHp(action.getHpChange());
+                changeHp(troop, action.getHpChange());
                 if (troop.getCurrentHp() <= 0) {
                     killTroop(troop);
                 }
@@ -402,7 +611,7 @@ public abstract class Game {
     }
 
     private void removePositiveBuffs(Troop troop) {
-        for (Buff buff : buffs) {
+        for (Buff buff : buffs.getBuffs()) {
             if (buff.isPositive() && buff.getAction().getDuration() >= 0) {
                 buff.getTarget().getTroops().remove(troop);
             }
@@ -410,7 +619,7 @@ public abstract class Game {
     }
 
     private void removeNegativeBuffs(Troop troop) {
-        for (Buff buff : buffs) {
+        for (Buff buff : buffs.getBuffs()) {
             if (!buff.isPositive() && buff.getAction().getDuration() >= 0) {
                 buff.getTarget().getTroops().remove(troop);
             }
@@ -418,16 +627,19 @@ public abstract class Game {
     }
 
     private void killTroop(Troop troop) {
+        int playerNumber = gameMap.removeTroop(troop);
+        if (playerNumber == 0) return;//already dead
 
+        Player player = (playerNumber == 1) ? playerOne : playerTwo;
+        player.getTroops().remove(troop);
+        player.getGraveyard().add(troop.getCard());
+        record(GameChange.makeToGraveyardChange(player.getUserName(), troop));
     }
 
     private ArrayList<Troop> getInCellTargetTroops(ArrayList<Cell> cells) {
         ArrayList<Troop> inCellTroops = new ArrayList<>();
         for (Cell cell : cells) {
-            Troop troop = playerOne.getTroop(cell);
-            if (troop == null) {
-                troop = playerTwo.getTroop(cell);
-            }
+            Troop troop = gameMap.getTroop(cell);
             if (troop != null) {
                 inCellTroops.add(troop);
             }
@@ -450,60 +662,17 @@ public abstract class Game {
         } else {
             centerPosition = new Position(clickCell);
         }
-        ArrayList<Cell> targetCells = detectCells(centerPosition, spell.getTarget().getDimensions());
-        detectTargets(spell, targetData, player, targetCells);
-        return targetData;
-    }
-
-    private void detectTargets(Spell spell, TargetData targetData, Player player, ArrayList<Cell> targetCells) {
-        for (Cell cell : targetCells) {
-            if (spell.getTarget().getCardType().isCell()) {
-                targetData.getCells().add(cell);
-            }
-            if (spell.getTarget().getCardType().isHero()) {
-                Troop troop = player.getTroop(cell);
-                if (troop == null) {
-                    troop = getOtherTurnPlayer().getTroop(cell);
-                }
-                if (troop != null) {
-                    if (troop.getCard().getType() == CardType.HERO) {
-                        targetData.getTroops().add(troop);
-                    }
-                }
-            }
-            if (spell.getTarget().getCardType().isMinion()) {
-                Troop troop = player.getTroop(cell);
-                if (troop == null) {
-                    troop = getOtherTurnPlayer().getTroop(cell);
-                }
-                if (troop != null) {
-                    if (troop.getCard().getType() == CardType.MINION) {
-                        targetData.getTroops().add(troop);
-                    }
-                }
-            }
+        long area = 0;
+        if (gameMap.getCell(centerPosition.getRow(), centerPosition.getColumn()) != null) {
+            area = BitBoard.getArea(
+                    BitBoard.getIndex(centerPosition.getRow(), centerPosition.getColumn()), spell.getTarget().getDimensions());
         }
-    }
-
-    private ArrayList<Cell> detectCells(Position centerPosition, Position dimensions) {
-        int firstRow = centerPosition.getRow() - (dimensions.getRow() - 1) / 2;
-        int lastRow = centerPosition.getRow() + dimensions.getRow();
-        int firstColumn = centerPosition.getColumn() - (dimensions.getColumn() - 1) / 2;
-        int lastColumn = centerPosition.getColumn() + dimensions.getColumn();
-        if (firstRow < 0)
-            firstRow = 0;
-        if (lastRow > GameMap.getRowNumber())
-            lastRow = GameMap.getRowNumber();
-        if (firstColumn < 0)
-            firstColumn = 0;
-        if (lastColumn > GameMap.getColumnNumber())
-            lastColumn = GameMap.getColumnNumber();
-        ArrayList<Cell> targetCells = new ArrayList<>();
-        for (int i = firstRow; i <= lastRow; i++) {
-            for (int j = firstColumn; j <= lastColumn; j++) {
-                targetCells.add(gameMap.getCells()[i][j]);
-            }
+        if (spell.getTarget().getCardType().isCell()) {
+            targetData.getCells().addAll(BitBoard.toCellList(area, gameMap));
+        }
+        for (long troops = getTargetTroopMask(spell, area); troops != 0; troops &= troops - 1) {
+            targetData.getTroops().add(gameMap.getTroop(Long.numberOfTrailingZeros(troops)));
         }
-        return targetCells;
+        return targetData;
     }
 }
\ No newline at end of file
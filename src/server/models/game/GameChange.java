@@ -0,0 +1,129 @@
+package server.models.game;
+
+import server.models.card.Card;
+import server.models.map.Cell;
+import server.models.map.Position;
+
+public class GameChange {
+    private int version;
+    private GameChangeType type;
+    private String cardId;
+    private String[] cardIds;
+    private String username;
+    private int newValue;
+    private Position position;
+    private Card card;
+
+    private GameChange() {
+    }
+
+    private GameChange(GameChangeType type) {
+        this.type = type;
+    }
+
+    static GameChange makeTroopHpChange(Troop troop) {
+        GameChange change = new GameChange(GameChangeType.TROOP_HP);
+        change.cardId = troop.getCard().getCardId();
+        change.newValue = troop.getCurrentHp();
+        return change;
+    }
+
+    static GameChange makeTroopApChange(Troop troop) {
+        GameChange change = new GameChange(GameChangeType.TROOP_AP);
+        change.cardId = troop.getCard().getCardId();
+        change.newValue = troop.getCurrentAp();
+        return change;
+    }
+
+    static GameChange makeToMapChange(String username, Troop troop, Cell cell) {
+        GameChange change = new GameChange(GameChangeType.TO_MAP);
+        change.username = username;
+        change.cardId = troop.getCard().getCardId();
+        change.card = troop.getCard();
+        change.position = new Position(cell);
+        return change;
+    }
+
+    static GameChange makeToHandChange(String username, Card card) {
+        GameChange change = new GameChange(GameChangeType.TO_HAND);
+        change.username = username;
+        change.cardId = card.getCardId();
+        change.card = card;
+        return change;
+    }
+
+    static GameChange makeToNextChange(String username, Card card) {
+        GameChange change = new GameChange(GameChangeType.TO_NEXT);
+        change.username = username;
+        change.cardId = card.getCardId();
+        change.card = card;
+        return change;
+    }
+
+    static GameChange makeFromHandChange(String username, String cardId) {
+        GameChange change = new GameChange(GameChangeType.FROM_HAND);
+        change.username = username;
+        change.cardId = cardId;
+        return change;
+    }
+
+    static GameChange makeToGraveyardChange(String username, Troop troop) {
+        GameChange change = new GameChange(GameChangeType.TO_GRAVEYARD);
+        change.username = username;
+        change.cardId = troop.getCard().getCardId();
+        return change;
+    }
+
+    static GameChange makeBuffAddedChange(Buff buff) {
+        GameChange change = new GameChange(GameChangeType.BUFF_ADDED);
+        change.newValue = buff.getId();
+        change.cardIds = new String[buff.getTarget().getTroops().size()];
+        for (int i = 0; i < change.cardIds.length; i++) {
+            change.cardIds[i] = buff.getTarget().getTroops().get(i).getCard().getCardId();
+        }
+        return change;
+    }
+
+    static GameChange makeBuffRemovedChange(Buff buff) {
+        GameChange change = new GameChange(GameChangeType.BUFF_REMOVED);
+        change.newValue = buff.getId();
+        return change;
+    }
+
+    static GameChange makeTurnChange(int turnNumber) {
+        GameChange change = new GameChange(GameChangeType.TURN);
+        change.newValue = turnNumber;
+        return change;
+    }
+
+    void setVersion(int version) {
+        this.version = version;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public GameChangeType getType() {
+        return type;
+    }
+
+    public String getCardId() {
+        return cardId;
+    }
+
+    //changes with the same key replace each other when a delta is compacted
+    String getCompactionKey() {
+        switch (type) {
+            case TROOP_HP:
+            case TROOP_AP:
+                return type + ":" + cardId;
+            case TURN:
+                return type.toString();
+            case TO_NEXT:
+                return type + ":" + username;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package server.models.game;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+
+public class GameChangeLog {
+    private static final int MAX_RETAINED_CHANGES = 4096;
+
+    private int version;
+    private ArrayList<GameChange> changes = new ArrayList<>();
+    private HashMap<String, Integer> acknowledgedVersions = new HashMap<>();//username -> version
+
+    void record(GameChange change) {
+        change.setVersion(++version);
+        changes.add(change);
+        if (changes.size() > MAX_RETAINED_CHANGES) {
+            changes.subList(0, changes.size() - MAX_RETAINED_CHANGES).clear();
+        }
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getAcknowledgedVersion(String username) {
+        return acknowledgedVersions.getOrDefault(username.toLowerCase(Locale.ROOT), 0);
+    }
+
+    public void acknowledge(String username, int version) {
+        if (version > this.version) return;
+        acknowledgedVersions.merge(username.toLowerCase(Locale.ROOT), version, Math::max);
+        int oldestNeeded = Integer.MAX_VALUE;
+        for (int acknowledged : acknowledgedVersions.values()) {
+            oldestNeeded = Math.min(oldestNeeded, acknowledged);
+        }
+        int removed = 0;
+        while (removed < changes.size() && changes.get(removed).getVersion() <= oldestNeeded) {
+            removed++;
+        }
+        changes.subList(0, removed).clear();
+    }
+
+    //false when changes the client hasn't seen were dropped, so it needs a snapshot
+    public boolean canSendChanges(String username) {
+        if (!acknowledgedVersions.containsKey(username.toLowerCase(Locale.ROOT))) return false;
+        int acknowledged = getAcknowledgedVersion(username);
+        return changes.isEmpty() ? acknowledged == version : changes.get(0).getVersion() <= acknowledged + 1;
+    }
+
+    public GameChange[] getChangesSince(int version) {
+        LinkedHashMap<Object, GameChange> compacted = new LinkedHashMap<>();
+        for (GameChange change : changes) {
+            if (change.getVersion() <= version) continue;
+            Object key = change.getCompactionKey();
+            if (key == null) {
+                key = change.getVersion();
+            } else {
+                compacted.remove(key);
+            }
+            compacted.put(key, change);
+        }
+        return compacted.values().toArray(new GameChange[0]);
+    }
+}
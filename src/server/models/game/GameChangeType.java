@@ -0,0 +1,14 @@
+package server.models.game;
+
+public enum GameChangeType {
+    TROOP_HP,
+    TROOP_AP,
+    TO_MAP,
+    TO_HAND,
+    FROM_HAND,
+    BUFF_ADDED,
+    BUFF_REMOVED,
+    TURN,
+    TO_NEXT,
+    TO_GRAVEYARD
+}
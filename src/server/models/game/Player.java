@@ -22,6 +22,9 @@ public class Player {
     private ArrayList<Card> collectedItems = new ArrayList<>();
     private ArrayList<Troop> flagCarriers = new ArrayList<>();
 
+    private Player() {
+    }
+
     public Player(Account account) {
         userName = account.getUsername();
         deck = new Deck(account.getMainDeck());
@@ -56,16 +59,23 @@ public class Player {
     }
 
     public void setNextCard() {
+        if (deck.getOthers().isEmpty()) {
+            nextCard = null;
+            return;
+        }
         int index = new Random().nextInt(deck.getOthers().size());
         nextCard = deck.getOthers().get(index);
-        deck.getOthers().remove(nextCard);
+        deck.removeCard(nextCard);
     }
 
-    public void addNextCardToHand() {
-        if (hand.size() <= 5) {
-            hand.add(nextCard);
+    public Card addNextCardToHand() {
+        if (hand.size() <= 5 && nextCard != null) {
+            Card card = nextCard;
+            hand.add(card);
             setNextCard();
+            return card;
         }
+        return null;
     }
 
     public String getUserName() {
@@ -106,6 +116,10 @@ public class Player {
         return null;
     }
 
+    public ArrayList<Card> getHand() {
+        return this.hand;
+    }
+
     public ArrayList<Troop> getTroops() {
         return this.troops;
     }
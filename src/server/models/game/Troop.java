@@ -13,6 +13,7 @@ public class Troop {
     private Cell cell;
     private boolean canMove = true;
     private boolean canAttack = true;
+    private boolean moved;//this turn
     private boolean isDisarm;
     private boolean cantGetPoison;
     private boolean cantGetDisarm;
@@ -22,6 +23,9 @@ public class Troop {
     private boolean disableHolyBuff;
     private ArrayList<Card> flags;
 
+    private Troop() {
+    }
+
     public Troop(Card card) {
         this.card = card;
         this.currentAp = card.getDefaultAp();
@@ -29,7 +33,7 @@ public class Troop {
     }
 
     public Troop(Card card, Cell cell) {
-        this.card = card;
+        this(card);
         this.cell = cell;
     }
 
@@ -66,6 +70,14 @@ public class Troop {
         //TODO:Send Message
     }
 
+    public boolean hasMoved() {
+        return moved;
+    }
+
+    public void setMoved(boolean moved) {
+        this.moved = moved;
+    }
+
     public boolean canAttack() {
         return this.canAttack;
     }
@@ -0,0 +1,333 @@
+package server.models.game;
+
+import server.models.card.AttackType;
+import server.models.card.Card;
+import server.models.card.CardType;
+import server.models.map.BitBoard;
+
+import java.util.Arrays;
+
+//Struct of arrays board state for simulation: a troop is a slot in primitive arrays, not an object.
+//Flags are bits of one status word per troop and cells are BitBoard indexes, NO_CELL when off the board.
+//Moves, attacks and turns follow the same rules as Game, without spells; copying a store is a few array copies.
+//Minion cards in hand are slots off the board, and the known next card joins the hand when its owner ends a turn.
+public class TroopStore {
+    public static final long CAN_MOVE = 1L,
+            CAN_ATTACK = 1L << 1,
+            DISARM = 1L << 2,
+            CANT_GET_POISON = 1L << 3,
+            CANT_GET_DISARM = 1L << 4,
+            CANT_GET_STUN = 1L << 5,
+            DONT_GIVE_BAD_EFFECT = 1L << 6,
+            NO_ATTACK_FROM_WEAKER_ONES = 1L << 7,
+            DISABLE_HOLY_BUFF = 1L << 8,
+            HERO = 1L << 9,
+            ALIVE = 1L << 10,
+            IN_HAND = 1L << 11,
+            NEXT_CARD = 1L << 12,
+            MOVED = 1L << 13;//moved this turn, a troop moves once a turn as in Game
+    private static final int MAX_HAND_SIZE = 5;//a hand this big or smaller still gets the next card
+    public static final byte NO_CELL = -1;
+    private static final AttackType[] ATTACK_TYPES = AttackType.values();
+
+    private int size;
+    private int turnNumber;
+    private String[] cardIds;
+    private byte[] owners;
+    private byte[] cells;
+    private byte[] attackTypes;
+    private int[] ranges;
+    private int[] hps;
+    private int[] aps;
+    private int[] enemyHits;
+    private long[] statuses;
+    private final byte[] slots = new byte[BitBoard.CELL_NUMBER];//cell -> slot, -1 when empty
+    private final long[] troopMasks = new long[3];//indexed by player number
+
+    public TroopStore(int capacity, int turnNumber) {
+        capacity = Math.max(capacity, 1);
+        this.turnNumber = turnNumber;
+        cardIds = new String[capacity];
+        owners = new byte[capacity];
+        cells = new byte[capacity];
+        attackTypes = new byte[capacity];
+        ranges = new int[capacity];
+        hps = new int[capacity];
+        aps = new int[capacity];
+        enemyHits = new int[capacity];
+        statuses = new long[capacity];
+        Arrays.fill(slots, (byte) -1);
+    }
+
+    public TroopStore(TroopStore store) {
+        size = store.size;
+        turnNumber = store.turnNumber;
+        cardIds = store.cardIds.clone();
+        owners = store.owners.clone();
+        cells = store.cells.clone();
+        attackTypes = store.attackTypes.clone();
+        ranges = store.ranges.clone();
+        hps = store.hps.clone();
+        aps = store.aps.clone();
+        enemyHits = store.enemyHits.clone();
+        statuses = store.statuses.clone();
+        System.arraycopy(store.slots, 0, slots, 0, slots.length);
+        System.arraycopy(store.troopMasks, 0, troopMasks, 0, troopMasks.length);
+    }
+
+    public int add(Troop troop, int owner) {
+        long status = ALIVE;
+        if (troop.canMove()) status |= CAN_MOVE;
+        if (troop.canAttack()) status |= CAN_ATTACK;
+        if (troop.hasMoved()) status |= MOVED;
+        if (troop.isDisarm()) status |= DISARM;
+        if (!troop.canGetPoison()) status |= CANT_GET_POISON;
+        if (!troop.canGetDisarm()) status |= CANT_GET_DISARM;
+        if (!troop.canGetStun()) status |= CANT_GET_STUN;
+        if (!troop.canGiveBadEffect()) status |= DONT_GIVE_BAD_EFFECT;
+        if (!troop.canBeAttackedFromWeakerOnes()) status |= NO_ATTACK_FROM_WEAKER_ONES;
+        if (troop.isHolyBuffDisabling()) status |= DISABLE_HOLY_BUFF;
+        if (troop.getCard().getType() == CardType.HERO) status |= HERO;
+        int cell = troop.getCell() == null ? NO_CELL : BitBoard.getIndex(troop.getCell());
+        return add(troop.getCard().getCardId(), owner, cell, troop.getCard().getAttackType(), troop.getCard().getRange(),
+                troop.getCurrentHp(), troop.getCurrentAp(), troop.getEnemyHitChanges(), status);
+    }
+
+    //a card that is not on the board yet, IN_HAND or NEXT_CARD
+    public int add(Card card, int owner, long place) {
+        return add(card.getCardId(), owner, NO_CELL, card.getAttackType(), card.getRange(),
+                card.getDefaultHp(), card.getDefaultAp(), 0, place | CAN_MOVE | CAN_ATTACK);
+    }
+
+    public int add(String cardId, int owner, int cell, AttackType attackType, int range, int hp, int ap, int enemyHit, long status) {
+        if (size == cardIds.length) {
+            grow();
+        }
+        int slot = size++;
+        cardIds[slot] = cardId;
+        owners[slot] = (byte) owner;
+        cells[slot] = NO_CELL;
+        attackTypes[slot] = (byte) (attackType == null ? AttackType.HYBRID : attackType).ordinal();
+        ranges[slot] = range;
+        hps[slot] = hp;
+        aps[slot] = ap;
+        enemyHits[slot] = enemyHit;
+        statuses[slot] = status;
+        if (cell != NO_CELL) {
+            occupy(slot, cell);
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = cardIds.length * 2;
+        cardIds = Arrays.copyOf(cardIds, capacity);
+        owners = Arrays.copyOf(owners, capacity);
+        cells = Arrays.copyOf(cells, capacity);
+        attackTypes = Arrays.copyOf(attackTypes, capacity);
+        ranges = Arrays.copyOf(ranges, capacity);
+        hps = Arrays.copyOf(hps, capacity);
+        aps = Arrays.copyOf(aps, capacity);
+        enemyHits = Arrays.copyOf(enemyHits, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+    }
+
+    private void occupy(int slot, int cell) {
+        cells[slot] = (byte) cell;
+        slots[cell] = (byte) slot;
+        troopMasks[owners[slot]] |= BitBoard.bit(cell);
+    }
+
+    private void vacate(int slot) {
+        int cell = cells[slot];
+        if (cell == NO_CELL) return;
+        slots[cell] = -1;
+        troopMasks[owners[slot]] &= ~BitBoard.bit(cell);
+        cells[slot] = NO_CELL;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getTurnNumber() {
+        return turnNumber;
+    }
+
+    public int getCurrentPlayer() {
+        return turnNumber % 2 == 1 ? 1 : 2;
+    }
+
+    public String getCardId(int slot) {
+        return cardIds[slot];
+    }
+
+    public int getSlot(String cardId) {
+        for (int slot = 0; slot < size; slot++) {
+            if (cardIds[slot].equalsIgnoreCase(cardId)) return slot;
+        }
+        return -1;
+    }
+
+    public int getSlotAt(int cell) {
+        return slots[cell];
+    }
+
+    public int getOwner(int slot) {
+        return owners[slot];
+    }
+
+    public int getCell(int slot) {
+        return cells[slot];
+    }
+
+    public int getHp(int slot) {
+        return hps[slot];
+    }
+
+    public int getAp(int slot) {
+        return aps[slot];
+    }
+
+    public int getEnemyHit(int slot) {
+        return enemyHits[slot];
+    }
+
+    public boolean hasStatus(int slot, long flag) {
+        return (statuses[slot] & flag) != 0;
+    }
+
+    public void setStatus(int slot, long flag, boolean on) {
+        if (on) {
+            statuses[slot] |= flag;
+        } else {
+            statuses[slot] &= ~flag;
+        }
+    }
+
+    public boolean isAlive(int slot) {
+        return hasStatus(slot, ALIVE);
+    }
+
+    public long getTroopMask(int owner) {
+        return troopMasks[owner];
+    }
+
+    public long getOccupiedMask() {
+        return troopMasks[1] | troopMasks[2];
+    }
+
+    public void changeHp(int slot, int change) {
+        hps[slot] += change;
+        if (hps[slot] <= 0) {
+            kill(slot);
+        }
+    }
+
+    public void changeAp(int slot, int change) {
+        aps[slot] = Math.max(0, aps[slot] + change);
+    }
+
+    public void kill(int slot) {
+        vacate(slot);
+        statuses[slot] &= ~ALIVE;
+    }
+
+    public long getAttackMask(int slot) {
+        if (!isAlive(slot) || cells[slot] == NO_CELL) return 0;
+        return BitBoard.getAttackMask(cells[slot], ATTACK_TYPES[attackTypes[slot]], ranges[slot]);
+    }
+
+    public long getAttackableMask(int slot) {
+        if (!hasStatus(slot, CAN_ATTACK)) return 0;
+        return getAttackMask(slot) & troopMasks[3 - owners[slot]];
+    }
+
+    public long getMovableMask(int slot) {
+        if (!isAlive(slot) || !hasStatus(slot, CAN_MOVE) || hasStatus(slot, MOVED) || cells[slot] == NO_CELL) return 0;
+        return BitBoard.getMovableMask(cells[slot], troopMasks[3 - owners[slot]], getOccupiedMask());
+    }
+
+    public boolean move(int slot, int cell) {
+        if (owners[slot] != getCurrentPlayer() || (getMovableMask(slot) & BitBoard.bit(cell)) == 0) {
+            return false;
+        }
+        vacate(slot);
+        occupy(slot, cell);
+        statuses[slot] |= MOVED;
+        return true;
+    }
+
+    public boolean insert(int slot, int cell) {
+        if (owners[slot] != getCurrentPlayer() || !hasStatus(slot, IN_HAND) || slots[cell] != -1) {
+            return false;
+        }
+        statuses[slot] = (statuses[slot] & ~IN_HAND) | ALIVE;
+        occupy(slot, cell);
+        return true;
+    }
+
+    public int getHandSize(int owner) {
+        int handSize = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (owners[slot] == owner && hasStatus(slot, IN_HAND)) handSize++;
+        }
+        return handSize;
+    }
+
+    public boolean attack(int attacker, int defender) {
+        if (owners[attacker] != getCurrentPlayer() || !isAlive(defender) ||
+                (getAttackableMask(attacker) & BitBoard.bit(cells[defender])) == 0) {
+            return false;
+        }
+        if (hit(attacker, defender)) {
+            setStatus(attacker, CAN_ATTACK, false);
+            if (isAlive(defender) && !hasStatus(defender, DISARM) &&
+                    (getAttackMask(defender) & BitBoard.bit(cells[attacker])) != 0) {
+                hit(defender, attacker);
+            }
+        }
+        return true;
+    }
+
+    private boolean hit(int attacker, int defender) {
+        if (hasStatus(defender, DONT_GIVE_BAD_EFFECT) ||
+                (hasStatus(defender, NO_ATTACK_FROM_WEAKER_ONES) && aps[attacker] <= aps[defender])) {
+            return false;
+        }
+        int attackPower = aps[attacker];
+        if (!hasStatus(attacker, DISABLE_HOLY_BUFF) || enemyHits[defender] > 0) {
+            attackPower += enemyHits[defender];
+        }
+        changeHp(defender, -attackPower);
+        return true;
+    }
+
+    //only minion cards are in the store, so a hand with other cards may get its next card here and not in Game
+    public void changeTurn() {
+        int player = getCurrentPlayer();
+        if (getHandSize(player) <= MAX_HAND_SIZE) {
+            for (int slot = 0; slot < size; slot++) {
+                if (owners[slot] == player && hasStatus(slot, NEXT_CARD)) {
+                    statuses[slot] = (statuses[slot] & ~NEXT_CARD) | IN_HAND;
+                }
+            }
+        }
+        turnNumber++;
+        for (int slot = 0; slot < size; slot++) {
+            statuses[slot] = (statuses[slot] | CAN_ATTACK) & ~MOVED;
+        }
+    }
+
+    //the player whose hero is the only one alive, 0 while both are
+    public int getWinner() {
+        boolean[] heroAlive = new boolean[3];
+        for (int slot = 0; slot < size; slot++) {
+            if (hasStatus(slot, HERO) && isAlive(slot)) {
+                heroAlive[owners[slot]] = true;
+            }
+        }
+        if (heroAlive[1] == heroAlive[2]) return 0;
+        return heroAlive[1] ? 1 : 2;
+    }
+}
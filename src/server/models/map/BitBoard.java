@@ -0,0 +1,150 @@
+package server.models.map;
+
+import server.models.card.AttackType;
+
+import java.util.ArrayList;
+
+//The 5x9 board fits in one long: cell (row, column) is bit row * 9 + column.
+//Neighbour, range and spell area masks are computed once for every cell.
+public class BitBoard {
+    public static final int CELL_NUMBER = GameMap.getRowNumber() * GameMap.getColumnNumber();
+    public static final long ALL = (1L << CELL_NUMBER) - 1;
+    private static final int MAX_DISTANCE = GameMap.getRowNumber() + GameMap.getColumnNumber() - 2;
+    //larger dimensions cover the same cells as these
+    private static final int AREA_ROWS = 2 * GameMap.getRowNumber(), AREA_COLUMNS = 2 * GameMap.getColumnNumber();
+
+    private static final long[] NEIGHBOURS = new long[CELL_NUMBER];//Cell.isNextTo, without the cell itself
+    private static final long[] ADJACENT = new long[CELL_NUMBER];//manhattan distance 1
+    private static final long[][] RANGES = new long[CELL_NUMBER][MAX_DISTANCE + 1];//manhattan distance <= index
+    private static final long[][][] AREAS = new long[CELL_NUMBER][AREA_ROWS][AREA_COLUMNS];
+
+    static {
+        for (int from = 0; from < CELL_NUMBER; from++) {
+            for (int to = 0; to < CELL_NUMBER; to++) {
+                int rowDistance = Math.abs(getRow(from) - getRow(to));
+                int columnDistance = Math.abs(getColumn(from) - getColumn(to));
+                if (from != to && rowDistance < 2 && columnDistance < 2) {
+                    NEIGHBOURS[from] |= bit(to);
+                }
+                if (rowDistance + columnDistance == 1) {
+                    ADJACENT[from] |= bit(to);
+                }
+                for (int distance = rowDistance + columnDistance; distance <= MAX_DISTANCE; distance++) {
+                    RANGES[from][distance] |= bit(to);
+                }
+            }
+            for (int rows = 0; rows < AREA_ROWS; rows++) {
+                for (int columns = 0; columns < AREA_COLUMNS; columns++) {
+                    AREAS[from][rows][columns] = makeArea(getRow(from), getColumn(from), rows, columns);
+                }
+            }
+        }
+    }
+
+    private BitBoard() {
+    }
+
+    public static int getIndex(int row, int column) {
+        return row * GameMap.getColumnNumber() + column;
+    }
+
+    public static int getIndex(Cell cell) {
+        return getIndex(cell.getRow(), cell.getColumn());
+    }
+
+    public static int getRow(int index) {
+        return index / GameMap.getColumnNumber();
+    }
+
+    public static int getColumn(int index) {
+        return index % GameMap.getColumnNumber();
+    }
+
+    public static long bit(int index) {
+        return 1L << index;
+    }
+
+    public static long bit(Cell cell) {
+        return bit(getIndex(cell));
+    }
+
+    public static boolean contains(long mask, Cell cell) {
+        return cell != null && (mask & bit(cell)) != 0;
+    }
+
+    public static long getNeighbours(int index) {
+        return NEIGHBOURS[index];
+    }
+
+    public static long getAdjacent(int index) {
+        return ADJACENT[index];
+    }
+
+    public static long getRange(int index, int distance) {
+        if (distance < 0) return 0;
+        return RANGES[index][Math.min(distance, MAX_DISTANCE)];
+    }
+
+    public static long getAttackMask(int index, AttackType attackType, int range) {
+        if (attackType == AttackType.MELEE) {
+            return NEIGHBOURS[index];
+        } else if (attackType == AttackType.RANGED) {
+            return getRange(index, range) & ~NEIGHBOURS[index] & ~bit(index);
+        } else { // HYBRID
+            return getRange(index, range);
+        }
+    }
+
+    //up to two orthogonal steps to an empty cell, passing over own troops but not enemies
+    public static long getMovableMask(int index, long enemies, long occupied) {
+        long firstSteps = ADJACENT[index] & ~enemies;
+        long secondSteps = 0;
+        for (long steps = firstSteps; steps != 0; steps &= steps - 1) {
+            secondSteps |= ADJACENT[Long.numberOfTrailingZeros(steps)];
+        }
+        return (firstSteps | secondSteps) & ~occupied;
+    }
+
+    //the cells a spell with these dimensions covers around center, clamped to the board
+    public static long getArea(int index, Position dimensions) {
+        int rows = dimensions == null ? 1 : dimensions.getRow();
+        int columns = dimensions == null ? 1 : dimensions.getColumn();
+        if (rows >= 0 && rows < AREA_ROWS && columns >= 0 && columns < AREA_COLUMNS) {
+            return AREAS[index][rows][columns];
+        }
+        return makeArea(getRow(index), getColumn(index), Math.min(rows, AREA_ROWS), Math.min(columns, AREA_COLUMNS));
+    }
+
+    private static long makeArea(int row, int column, int rows, int columns) {
+        int firstRow = Math.max(0, row - (rows - 1) / 2);
+        int lastRow = Math.min(GameMap.getRowNumber() - 1, row + rows);
+        int firstColumn = Math.max(0, column - (columns - 1) / 2);
+        int lastColumn = Math.min(GameMap.getColumnNumber() - 1, column + columns);
+        long area = 0;
+        for (int i = firstRow; i <= lastRow; i++) {
+            for (int j = firstColumn; j <= lastColumn; j++) {
+                area |= bit(getIndex(i, j));
+            }
+        }
+        return area;
+    }
+
+    public static Cell[] toCells(long mask, GameMap gameMap) {
+        Cell[] cells = new Cell[Long.bitCount(mask)];
+        int i = 0;
+        for (; mask != 0; mask &= mask - 1) {
+            int index = Long.numberOfTrailingZeros(mask);
+            cells[i++] = gameMap.getCell(getRow(index), getColumn(index));
+        }
+        return cells;
+    }
+
+    public static ArrayList<Cell> toCellList(long mask, GameMap gameMap) {
+        ArrayList<Cell> cells = new ArrayList<>(Long.bitCount(mask));
+        for (; mask != 0; mask &= mask - 1) {
+            int index = Long.numberOfTrailingZeros(mask);
+            cells.add(gameMap.getCell(getRow(index), getColumn(index)));
+        }
+        return cells;
+    }
+}
@@ -10,6 +10,9 @@ public class Cell {
     private Card item;
     private ArrayList<Card> items = new ArrayList<>();
 
+    private Cell() {
+    }
+
     public Cell(int row, int column) {
         this.row = row;
         this.column = column;
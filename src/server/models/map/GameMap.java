@@ -14,6 +14,13 @@ public class GameMap {
     private ArrayList<Troop> playerTwoTroops = new ArrayList<>();
     private ArrayList<Cell> flagCells = new ArrayList<>();
     private ArrayList<Cell> collectibleItemCells = new ArrayList<>();
+    //occupancy by cell, kept with the troop lists; rebuilt from them when missing
+    private transient Troop[][] troopGrid;
+    private transient int[][] ownerGrid;//0 for an empty cell, otherwise the owner's player number
+    private transient long[] troopMasks;//BitBoard of each player's troops, indexed by player number
+
+    private GameMap() {
+    }
 
     public GameMap(ArrayList<Card> items, int numberOfFlags, Card originalFlag) {
         cells = new Cell[ROW_NUMBER][COLUMN_NUMBER];
@@ -85,30 +92,102 @@ public class GameMap {
             playerOneTroops.add(troop);
         } else if (playerNumber == 2) {
             playerTwoTroops.add(troop);
+        } else {
+            return;
         }
+        occupy(troop.getCell(), troop, playerNumber);
     }
 
-    public Troop getTroop(Cell cell) {
-        for (Troop troop : playerOneTroops) {
-            if (troop.getCell() == cell)
-                return troop;
-        }
-        for (Troop troop : playerTwoTroops) {
-            if (troop.getCell() == cell)
-                return troop;
+    public void moveTroop(Troop troop, Cell cell) {
+        int playerNumber = getOwner(troop);
+        if (playerNumber == 0) return;
+        vacate(troop.getCell(), troop);
+        troop.setCell(cell);
+        occupy(cell, troop, playerNumber);
+    }
+
+    //returns the number of the player who owned it, or 0 if it was not on the map
+    public int removeTroop(Troop troop) {
+        int playerNumber = getOwner(troop);
+        if (playerNumber == 1) {
+            playerOneTroops.remove(troop);
+        } else if (playerNumber == 2) {
+            playerTwoTroops.remove(troop);
+        } else {
+            return 0;
         }
-        return null;
+        vacate(troop.getCell(), troop);
+        return playerNumber;
+    }
+
+    public Troop getTroop(Cell cell) {
+        if (cell == null || !checkCoordination(cell.getRow(), cell.getColumn())) return null;
+        return getTroopGrid()[cell.getRow()][cell.getColumn()];
     }
 
     public boolean hasTroop(Cell cell) {
-        for (Troop troop : playerOneTroops) {
-            if (troop.getCell() == cell)
-                return true;
+        return getTroop(cell) != null;
+    }
+
+    public int getOwner(Cell cell) {
+        if (cell == null || !checkCoordination(cell.getRow(), cell.getColumn())) return 0;
+        getTroopGrid();
+        return ownerGrid[cell.getRow()][cell.getColumn()];
+    }
+
+    public long getTroopMask(int playerNumber) {
+        getTroopGrid();
+        return troopMasks[playerNumber];
+    }
+
+    public long getOccupiedMask() {
+        getTroopGrid();
+        return troopMasks[1] | troopMasks[2];
+    }
+
+    public Troop getTroop(int index) {
+        return getTroopGrid()[BitBoard.getRow(index)][BitBoard.getColumn(index)];
+    }
+
+    public int getOwner(Troop troop) {
+        Cell cell = troop.getCell();
+        if (getTroop(cell) == troop) {
+            return ownerGrid[cell.getRow()][cell.getColumn()];
         }
-        for (Troop troop : playerTwoTroops) {
-            if (troop.getCell() == cell)
-                return true;
+        //a troop without a cell is only in the lists
+        if (playerOneTroops.contains(troop)) return 1;
+        if (playerTwoTroops.contains(troop)) return 2;
+        return 0;
+    }
+
+    private Troop[][] getTroopGrid() {
+        if (troopGrid == null) {
+            troopGrid = new Troop[ROW_NUMBER][COLUMN_NUMBER];
+            ownerGrid = new int[ROW_NUMBER][COLUMN_NUMBER];
+            troopMasks = new long[3];
+            for (Troop troop : playerOneTroops) {
+                occupy(troop.getCell(), troop, 1);
+            }
+            for (Troop troop : playerTwoTroops) {
+                occupy(troop.getCell(), troop, 2);
+            }
+        }
+        return troopGrid;
+    }
+
+    private void occupy(Cell cell, Troop troop, int playerNumber) {
+        if (troopGrid == null || cell == null || !checkCoordination(cell.getRow(), cell.getColumn())) return;
+        troopGrid[cell.getRow()][cell.getColumn()] = troop;
+        ownerGrid[cell.getRow()][cell.getColumn()] = playerNumber;
+        troopMasks[playerNumber] |= BitBoard.bit(cell);
+    }
+
+    private void vacate(Cell cell, Troop troop) {
+        if (troopGrid == null || cell == null || !checkCoordination(cell.getRow(), cell.getColumn())) return;
+        if (troopGrid[cell.getRow()][cell.getColumn()] == troop) {
+            troopMasks[ownerGrid[cell.getRow()][cell.getColumn()]] &= ~BitBoard.bit(cell);
+            troopGrid[cell.getRow()][cell.getColumn()] = null;
+            ownerGrid[cell.getRow()][cell.getColumn()] = 0;
         }
-        return false;
     }
 }
\ No newline at end of file
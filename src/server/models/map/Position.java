@@ -4,6 +4,9 @@ public class Position {//TODO:Change class name
 	private int row;
 	private int column;
 
+	private Position() {
+	}
+
 	public Position(Cell cell) {
 		this.row = cell.getRow();
 		this.column = cell.getColumn();
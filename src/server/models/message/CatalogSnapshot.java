@@ -0,0 +1,48 @@
+package server.models.message;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+//A copy message for content that never changes after startup, serialized once for replies without a messageId.
+//Its version is a hash of the content; a client that already has that version gets a reply without the payload.
+public class CatalogSnapshot {
+    private final String version;
+    private final Message copyMessage;
+    private final Message notModifiedMessage;
+
+    public CatalogSnapshot(Message copyMessage) {
+        this.version = hash(copyMessage.toJson());
+        copyMessage.setCatalogVersion(version);
+        this.copyMessage = copyMessage;
+        this.notModifiedMessage = Message.makeNotModifiedMessage(copyMessage.getSender(), copyMessage.getMessageType(), version);
+        copyMessage.toJson();
+        copyMessage.toBinary();
+        notModifiedMessage.toJson();
+        notModifiedMessage.toBinary();
+    }
+
+    public Message makeReply(String receiver, String clientVersion, int messageId) {
+        if (version.equals(clientVersion)) {
+            return notModifiedMessage.makeCopyFor(receiver, messageId);
+        }
+        return copyMessage.makeCopyFor(receiver, messageId);
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    private static String hash(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                builder.append(String.format("%02x", digest[i]));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
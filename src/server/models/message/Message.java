@@ -8,11 +8,13 @@ import server.models.account.TempAccount;
 import server.models.card.Deck;
 import server.models.card.spell.DeckInfo;
 import server.models.game.Game;
+import server.models.game.GameChange;
 import server.models.game.GameType;
 import server.models.game.Story;
 import server.models.map.Position;
+import server.network.BinaryCodec;
 
-public class Message {
+public class Message implements Cloneable {
     private MessageType messageType;
     //serverName || clientName
     private String sender;
@@ -30,6 +32,8 @@ public class Message {
     private String cardId;
     private String[] cardIds;
     private int turnNum;
+    private int gameVersion;
+    private GameChange[] gameChanges;
     private int numberOfFlags;
     private String cardName;
     private int newValue;
@@ -40,6 +44,21 @@ public class Message {
     private String opponentUserName;
     private GameType gameType;
     private String sudoCommand;
+    //leader board page: 1-based rank of its first entry, its length, the board size and the requester's rank
+    private int startRank;
+    private int pageSize;
+    private int leaderBoardSize;
+    private int rank;
+    private String catalogVersion;
+    //a broadcast message is serialized once and sent to every receiver
+    private transient String[] receivers;
+    private transient String json;
+    private transient byte[] binary;
+    //set on a request when the server answers it with an exception, whichever thread sends that
+    private transient volatile boolean failed;
+
+    private Message() {
+    }
 
     private Message(String sender, String receiver, int messageId) {
         this.sender = sender;
@@ -51,13 +70,35 @@ public class Message {
         return JsonConverter.fromJson(messageJson, Message.class);
     }
 
+    public static Message convertBinaryToMessage(byte[] messageBytes) {
+        return BinaryCodec.decode(messageBytes, Message.class);
+    }
+
     public static Message makeGameCopyMessage(String sender, String receiver, Game game, int messageId) {
         Message message = new Message(sender, receiver, messageId);
         message.game = game;
+        message.gameVersion = game.getChangeLog().getVersion();
         message.messageType = MessageType.GAME_COPY;
         return message;
     }
 
+    public static Message makeGameDeltaMessage(String sender, String[] receivers, GameChange[] gameChanges, int gameVersion, int messageId) {
+        Message message = new Message(sender, null, messageId);
+        message.receivers = receivers;
+        message.gameChanges = gameChanges;
+        message.gameVersion = gameVersion;
+        message.messageType = MessageType.GAME_DELTA;
+        return message;
+    }
+
+    //a catalog copy without its payload: the receiver's cached version is current
+    static Message makeNotModifiedMessage(String sender, MessageType messageType, String catalogVersion) {
+        Message message = new Message(sender, null, 0);
+        message.catalogVersion = catalogVersion;
+        message.messageType = messageType;
+        return message;
+    }
+
     public static Message makeOriginalCardsCopyMessage(String sender, String receiver, Collection shopCards, int messageId) {
         Message message = new Message(sender, receiver, messageId);
         message.originalCards = shopCards;
@@ -82,12 +123,13 @@ public class Message {
         return message;
     }
 
-    public static Message makeLeaderBoardCopyMessage(String sender, String receiver, Account[] leaderBoard, int messageId) {
+    public static Message makeLeaderBoardCopyMessage(String sender, String receiver, AccountInfo[] leaderBoard,
+                                                     int startRank, int leaderBoardSize, int rank, int messageId) {
         Message message = new Message(sender, receiver, messageId);
-        message.leaderBoard = new AccountInfo[leaderBoard.length];
-        for (int i = 0; i < leaderBoard.length; i++) {
-            message.leaderBoard[i] = new AccountInfo(leaderBoard[i]);
-        }
+        message.leaderBoard = leaderBoard;
+        message.startRank = startRank;
+        message.leaderBoardSize = leaderBoardSize;
+        message.rank = rank;
         message.messageType = MessageType.LEADERBOARD_COPY;
         return message;
     }
@@ -192,8 +234,66 @@ public class Message {
 
     }
 
+    //a copy for one receiver that shares this message's payload, which never changes; it is encoded on its own
+    //unless its messageId is this message's, then all its fields and so its encoded forms are the same
+    Message makeCopyFor(String receiver, int messageId) {
+        Message message;
+        try {
+            message = (Message) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        message.receivers = new String[]{receiver};
+        if (messageId != this.messageId) {
+            message.messageId = messageId;
+            message.json = null;
+            message.binary = null;
+        }
+        return message;
+    }
+
+    //a game copy is encoded where its game can't change, after that it keeps only the encoded forms
+    public void dropGame() {
+        if (json == null || binary == null) {
+            throw new IllegalStateException("Only An Encoded Game Copy Can Drop Its Game.");
+        }
+        game = null;
+    }
+
+    void setCatalogVersion(String catalogVersion) {
+        this.catalogVersion = catalogVersion;
+        json = null;
+        binary = null;
+    }
+
+    public void markFailed() {
+        failed = true;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public boolean hasJson() {
+        return json != null;
+    }
+
+    public boolean hasBinary() {
+        return binary != null;
+    }
+
     public String toJson() {
-        return JsonConverter.toJson(this);
+        if (json == null) {
+            json = JsonConverter.toJson(this);
+        }
+        return json;
+    }
+
+    public byte[] toBinary() {
+        if (binary == null) {
+            binary = BinaryCodec.encode(this);
+        }
+        return binary;
     }
 
     public MessageType getMessageType() {
@@ -208,6 +308,13 @@ public class Message {
         return receiver;
     }
 
+    public String[] getReceivers() {
+        if (receivers == null) {
+            return new String[]{receiver};
+        }
+        return receivers;
+    }
+
     public int getMessageId() {
         return messageId;
     }
@@ -263,4 +370,20 @@ public class Message {
     public Position getPosition() {
         return position;
     }
+
+    public int getGameVersion() {
+        return gameVersion;
+    }
+
+    public int getStartRank() {
+        return startRank;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public String getCatalogVersion() {
+        return catalogVersion;
+    }
 }
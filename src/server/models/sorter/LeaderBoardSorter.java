@@ -1,12 +1,12 @@
 package server.models.sorter;
 
-import server.models.account.Account;
+import server.models.account.AccountInfo;
 
 import java.util.Comparator;
 
-public class LeaderBoardSorter implements Comparator<Account> {
+public class LeaderBoardSorter implements Comparator<AccountInfo> {
     @Override
-    public int compare(Account o1, Account o2) {
+    public int compare(AccountInfo o1, AccountInfo o2) {
         if (o1.getWins() != o2.getWins()) {
             return o2.getWins() - o1.getWins();
         }
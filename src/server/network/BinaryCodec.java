@@ -0,0 +1,585 @@
+package server.network;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Tag-length-value codec: every field is written as varint key (tag << 3 | wireType) and its value.
+//Tags are hashes of field names, so client and server models with different field sets stay compatible.
+//Zero, false and null fields are never written. Objects are made with their no-arg constructor, like Gson does, so
+//a field that was not written keeps the value the constructor gives it.
+public class BinaryCodec {
+    private static final int VARINT = 0, FIXED64 = 1, LENGTH_DELIMITED = 2;
+    private static final int TAG_BITS = 11;
+    private static final int MAX_DEPTH = 64;
+    private static final Map<Class<?>, Schema> SCHEMAS = new ConcurrentHashMap<>();
+
+    private enum Kind {BOOLEAN, INT, LONG, DOUBLE, STRING, ENUM, BOXED, ARRAY, LIST, OBJECT}
+
+    public static byte[] encode(Object object) {
+        Output output = new Output(256);
+        writeObject(output, object, 0);
+        return output.toByteArray();
+    }
+
+    public static <T> T decode(byte[] bytes, Class<T> classOfT) {
+        Input input = new Input(bytes);
+        return classOfT.cast(readObject(input, classOfT, bytes.length, 0));
+    }
+
+    private static void writeObject(Output output, Object object, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Object Graph Is Too Deep Or Cyclic.");
+        }
+        try {
+            for (FieldInfo info : schema(object.getClass()).fields) {
+                writeField(output, info, object, depth);
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeField(Output output, FieldInfo info, Object object, int depth) throws IllegalAccessException {
+        Field field = info.field;
+        switch (info.kind) {
+            case BOOLEAN:
+                if (field.getBoolean(object)) {
+                    output.writeKey(info.tag, VARINT);
+                    output.writeVarint(1);
+                }
+                return;
+            case INT:
+                int intValue = field.getType() == char.class ? field.getChar(object) : field.getInt(object);
+                if (intValue != 0) {
+                    output.writeKey(info.tag, VARINT);
+                    output.writeVarint(zigZag(intValue));
+                }
+                return;
+            case LONG:
+                long longValue = field.getLong(object);
+                if (longValue != 0) {
+                    output.writeKey(info.tag, VARINT);
+                    output.writeVarint(zigZag(longValue));
+                }
+                return;
+            case DOUBLE:
+                double doubleValue = field.getDouble(object);
+                if (doubleValue != 0) {
+                    output.writeKey(info.tag, FIXED64);
+                    output.writeFixed64(Double.doubleToRawLongBits(doubleValue));
+                }
+                return;
+        }
+        Object value = field.get(object);
+        if (value == null) return;
+        switch (info.kind) {
+            case ENUM:
+                output.writeKey(info.tag, VARINT);
+                output.writeVarint(((Enum<?>) value).ordinal());
+                return;
+            case BOXED:
+                output.writeKey(info.tag, VARINT);
+                output.writeVarint(boxedToVarint(value));
+                return;
+            case STRING:
+                output.writeKey(info.tag, LENGTH_DELIMITED);
+                output.writeString((String) value, 0);
+                return;
+            default:
+                output.writeKey(info.tag, LENGTH_DELIMITED);
+                int mark = output.beginLength();
+                writeBody(output, info.kind, info.elementType, value, depth + 1);
+                output.endLength(mark, 0);
+        }
+    }
+
+    //elements of arrays and lists carry their own null marker, so every length is shifted by one
+    private static void writeElement(Output output, Type type, Object value, int depth) {
+        Class<?> raw = rawClass(type);
+        Kind kind = kindOf(raw);
+        if (value == null) {
+            output.writeVarint(0);
+            return;
+        }
+        switch (kind) {
+            case ENUM:
+                output.writeVarint(((Enum<?>) value).ordinal() + 1);
+                return;
+            case BOXED:
+                output.writeVarint(1);
+                output.writeVarint(boxedToVarint(value));
+                return;
+            case STRING:
+                output.writeString((String) value, 1);
+                return;
+            case ARRAY:
+            case LIST:
+            case OBJECT:
+                int mark = output.beginLength();
+                writeBody(output, kind, elementType(type, raw), value, depth + 1);
+                output.endLength(mark, 1);
+                return;
+            default:
+                throw new IllegalArgumentException("Unsupported Element Type: " + type);
+        }
+    }
+
+    private static void writeBody(Output output, Kind kind, Type elementType, Object value, int depth) {
+        if (kind == Kind.OBJECT) {
+            writeObject(output, value, depth);
+        } else if (kind == Kind.LIST) {
+            List<?> list = (List<?>) value;
+            output.writeVarint(list.size());
+            for (Object element : list) {
+                writeElement(output, elementType, element, depth);
+            }
+        } else {
+            int length = Array.getLength(value);
+            output.writeVarint(length);
+            Class<?> component = value.getClass().getComponentType();
+            for (int i = 0; i < length; i++) {
+                if (component == int.class || component == short.class || component == byte.class) {
+                    output.writeVarint(zigZag(Array.getInt(value, i)));
+                } else if (component == char.class) {
+                    output.writeVarint(Array.getChar(value, i));
+                } else if (component == long.class) {
+                    output.writeVarint(zigZag(Array.getLong(value, i)));
+                } else if (component == boolean.class) {
+                    output.writeVarint(Array.getBoolean(value, i) ? 1 : 0);
+                } else if (component.isPrimitive()) {
+                    output.writeFixed64(Double.doubleToRawLongBits(Array.getDouble(value, i)));
+                } else {
+                    writeElement(output, elementType, Array.get(value, i), depth);
+                }
+            }
+        }
+    }
+
+    private static Object readObject(Input input, Class<?> classOfT, int end, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Object Graph Is Too Deep.");
+        }
+        Schema schema = schema(classOfT);
+        Object object = schema.newInstance(classOfT);
+        try {
+            while (input.position < end) {
+                long key = input.readVarint();
+                int tag = (int) (key >>> 3);
+                int wireType = (int) (key & 7);
+                FieldInfo info = tag < schema.byTag.length ? schema.byTag[tag] : null;
+                if (info == null || info.wireType != wireType) {
+                    input.skip(wireType);
+                    continue;
+                }
+                readField(input, info, object, depth);
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        input.position = end;
+        return object;
+    }
+
+    private static void readField(Input input, FieldInfo info, Object object, int depth) throws IllegalAccessException {
+        Field field = info.field;
+        Class<?> type = field.getType();
+        switch (info.kind) {
+            case BOOLEAN:
+                field.setBoolean(object, input.readVarint() != 0);
+                return;
+            case INT:
+                int intValue = unZigZag32(input.readVarint());
+                if (type == int.class) field.setInt(object, intValue);
+                else if (type == short.class) field.setShort(object, (short) intValue);
+                else if (type == byte.class) field.setByte(object, (byte) intValue);
+                else field.setChar(object, (char) intValue);
+                return;
+            case LONG:
+                field.setLong(object, unZigZag64(input.readVarint()));
+                return;
+            case DOUBLE:
+                double doubleValue = Double.longBitsToDouble(input.readFixed64());
+                if (type == float.class) field.setFloat(object, (float) doubleValue);
+                else field.setDouble(object, doubleValue);
+                return;
+            case ENUM:
+                field.set(object, enumConstant(type, (int) input.readVarint()));
+                return;
+            case BOXED:
+                field.set(object, varintToBoxed(type, input.readVarint()));
+                return;
+            case STRING:
+                field.set(object, input.readString(input.readLength()));
+                return;
+            default:
+                int length = input.readLength();
+                field.set(object, readBody(input, info.kind, type, info.elementType, input.position + length, depth + 1));
+        }
+    }
+
+    private static Object readElement(Input input, Type type, int depth) {
+        Class<?> raw = rawClass(type);
+        Kind kind = kindOf(raw);
+        long header = input.readVarint();
+        if (header == 0) {
+            return null;
+        }
+        switch (kind) {
+            case ENUM:
+                return enumConstant(raw, (int) header - 1);
+            case BOXED:
+                return varintToBoxed(raw, input.readVarint());
+            case STRING:
+                return input.readString(input.checkLength(header - 1));
+            case ARRAY:
+            case LIST:
+            case OBJECT:
+                int end = input.position + input.checkLength(header - 1);
+                return readBody(input, kind, raw, elementType(type, raw), end, depth + 1);
+            default:
+                throw new IllegalArgumentException("Unsupported Element Type: " + type);
+        }
+    }
+
+    private static Object readBody(Input input, Kind kind, Class<?> raw, Type elementType, int end, int depth) {
+        if (kind == Kind.OBJECT) {
+            return readObject(input, raw, end, depth);
+        }
+        int length = input.readLength();//every element takes at least a byte
+        Object result;
+        if (kind == Kind.LIST) {
+            List<Object> list = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                list.add(readElement(input, elementType, depth));
+            }
+            result = list;
+        } else {
+            Class<?> component = raw.getComponentType();
+            result = Array.newInstance(component, length);
+            for (int i = 0; i < length; i++) {
+                if (component == int.class) Array.setInt(result, i, unZigZag32(input.readVarint()));
+                else if (component == short.class) Array.setShort(result, i, (short) unZigZag32(input.readVarint()));
+                else if (component == byte.class) Array.setByte(result, i, (byte) unZigZag32(input.readVarint()));
+                else if (component == char.class) Array.setChar(result, i, (char) input.readVarint());
+                else if (component == long.class) Array.setLong(result, i, unZigZag64(input.readVarint()));
+                else if (component == boolean.class) Array.setBoolean(result, i, input.readVarint() != 0);
+                else if (component == float.class) Array.setFloat(result, i, (float) Double.longBitsToDouble(input.readFixed64()));
+                else if (component == double.class) Array.setDouble(result, i, Double.longBitsToDouble(input.readFixed64()));
+                else Array.set(result, i, readElement(input, elementType, depth));
+            }
+        }
+        input.position = end;
+        return result;
+    }
+
+    private static Schema schema(Class<?> classOfT) {
+        Schema schema = SCHEMAS.get(classOfT);
+        if (schema == null) {
+            schema = new Schema(classOfT);
+            SCHEMAS.putIfAbsent(classOfT, schema);
+        }
+        return schema;
+    }
+
+    private static Kind kindOf(Class<?> raw) {
+        if (raw == boolean.class) return Kind.BOOLEAN;
+        if (raw == int.class || raw == short.class || raw == byte.class || raw == char.class) return Kind.INT;
+        if (raw == long.class) return Kind.LONG;
+        if (raw == double.class || raw == float.class) return Kind.DOUBLE;
+        if (raw == String.class) return Kind.STRING;
+        if (raw.isEnum()) return Kind.ENUM;
+        if (raw == Integer.class || raw == Long.class || raw == Boolean.class) return Kind.BOXED;
+        if (raw.isArray()) return Kind.ARRAY;
+        if (List.class.isAssignableFrom(raw)) return Kind.LIST;
+        if (raw.isPrimitive() || Number.class.isAssignableFrom(raw) || raw == Object.class
+                || Map.class.isAssignableFrom(raw) || java.util.Collection.class.isAssignableFrom(raw)) {
+            throw new IllegalArgumentException("Unsupported Type: " + raw.getName());
+        }
+        return Kind.OBJECT;
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class) return (Class<?>) type;
+        if (type instanceof ParameterizedType) return (Class<?>) ((ParameterizedType) type).getRawType();
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(rawClass(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        throw new IllegalArgumentException("Unsupported Type: " + type);
+    }
+
+    private static Type elementType(Type type, Class<?> raw) {
+        if (type instanceof GenericArrayType) return ((GenericArrayType) type).getGenericComponentType();
+        if (raw.isArray()) return raw.getComponentType();
+        if (type instanceof ParameterizedType) return ((ParameterizedType) type).getActualTypeArguments()[0];
+        return null;
+    }
+
+    private static Object enumConstant(Class<?> type, int ordinal) {
+        Object[] constants = type.getEnumConstants();
+        return ordinal >= 0 && ordinal < constants.length ? constants[ordinal] : null;
+    }
+
+    private static long boxedToVarint(Object value) {
+        if (value instanceof Boolean) return (Boolean) value ? 1 : 0;
+        return zigZag(((Number) value).longValue());
+    }
+
+    private static Object varintToBoxed(Class<?> type, long value) {
+        if (type == Boolean.class) return value != 0;
+        if (type == Integer.class) return (int) unZigZag64(value);
+        return unZigZag64(value);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long zigZag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+
+    private static int unZigZag32(long value) {
+        int n = (int) value;
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    private static long unZigZag64(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int fieldTag(String name) {//FNV-1a folded to TAG_BITS
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < name.length(); i++) {
+            hash ^= name.charAt(i);
+            hash *= 0x01000193;
+        }
+        int tag = (hash ^ (hash >>> TAG_BITS) ^ (hash >>> (2 * TAG_BITS))) & ((1 << TAG_BITS) - 1);
+        return tag == 0 ? 1 : tag;
+    }
+
+    private static class FieldInfo {
+        private final Field field;
+        private final int tag;
+        private final Kind kind;
+        private final int wireType;
+        private final Type elementType;
+
+        FieldInfo(Field field) {
+            this.field = field;
+            this.tag = fieldTag(field.getName());
+            this.kind = kindOf(field.getType());
+            switch (kind) {
+                case BOOLEAN:
+                case INT:
+                case LONG:
+                case ENUM:
+                case BOXED:
+                    wireType = VARINT;
+                    break;
+                case DOUBLE:
+                    wireType = FIXED64;
+                    break;
+                default:
+                    wireType = LENGTH_DELIMITED;
+            }
+            this.elementType = kind == Kind.ARRAY || kind == Kind.LIST
+                    ? elementType(field.getGenericType(), field.getType()) : null;
+        }
+    }
+
+    private static class Schema {
+        private final FieldInfo[] fields;
+        private final FieldInfo[] byTag = new FieldInfo[1 << TAG_BITS];
+        private final Constructor<?> constructor;//null when the class can't be made
+
+        Schema(Class<?> classOfT) {
+            constructor = findConstructor(classOfT);
+            ArrayList<FieldInfo> fieldInfos = new ArrayList<>();
+            for (Class<?> c = classOfT; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) continue;
+                    field.setAccessible(true);
+                    FieldInfo info = new FieldInfo(field);
+                    if (byTag[info.tag] != null) {
+                        throw new IllegalStateException("Field Tag Collision In " + classOfT.getName() + ": "
+                                + field.getName() + ", " + byTag[info.tag].field.getName());
+                    }
+                    byTag[info.tag] = info;
+                    fieldInfos.add(info);
+                }
+            }
+            fields = fieldInfos.toArray(new FieldInfo[0]);
+        }
+
+        Object newInstance(Class<?> classOfT) {
+            if (constructor == null) {
+                throw new IllegalArgumentException("Can't Instantiate " + classOfT.getName());
+            }
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Can't Instantiate " + classOfT.getName(), e);
+            }
+        }
+
+        private static Constructor<?> findConstructor(Class<?> classOfT) {
+            if (Modifier.isAbstract(classOfT.getModifiers()) || classOfT.isInterface()) return null;
+            try {
+                Constructor<?> constructor = classOfT.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                return constructor;
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    }
+
+    private static class Output {
+        private byte[] bytes;
+        private int position;
+
+        Output(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void writeKey(int tag, int wireType) {
+            writeVarint(((long) tag << 3) | wireType);
+        }
+
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[position++] = (byte) value;
+        }
+
+        void writeFixed64(long value) {
+            ensure(8);
+            for (int i = 0; i < 8; i++) {
+                bytes[position++] = (byte) (value >>> (8 * i));
+            }
+        }
+
+        void writeString(String value, int lengthOffset) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length + lengthOffset);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, position, utf8.length);
+            position += utf8.length;
+        }
+
+        //reserves one byte for the length, endLength moves the body when the length needs more
+        int beginLength() {
+            ensure(1);
+            return position++;
+        }
+
+        void endLength(int mark, int lengthOffset) {
+            int bodyStart = mark + 1;
+            long length = position - bodyStart + lengthOffset;
+            int size = varintSize(length);
+            if (size > 1) {
+                ensure(size - 1);
+                System.arraycopy(bytes, bodyStart, bytes, bodyStart + size - 1, position - bodyStart);
+                position += size - 1;
+            }
+            int end = position;
+            position = mark;
+            writeVarint(length);
+            position = end;
+        }
+
+        private static int varintSize(long value) {
+            int size = 1;
+            while ((value & ~0x7FL) != 0) {
+                value >>>= 7;
+                size++;
+            }
+            return size;
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + extra));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, position);
+        }
+    }
+
+    private static class Input {
+        private final byte[] bytes;
+        private int position;
+
+        Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed Varint.");
+        }
+
+        //lengths and counts come from the peer, so one is never more than the bytes left
+        int readLength() {
+            return checkLength(readVarint());
+        }
+
+        int checkLength(long length) {
+            if (length < 0 || length > bytes.length - position) {
+                throw new IllegalArgumentException("Length Is Out Of Range: " + length);
+            }
+            return (int) length;
+        }
+
+        long readFixed64() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value |= (long) (bytes[position++] & 0xFF) << (8 * i);
+            }
+            return value;
+        }
+
+        String readString(int length) {
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        void skip(int wireType) {
+            if (wireType == VARINT) {
+                readVarint();
+            } else if (wireType == FIXED64) {
+                position += 8;
+            } else if (wireType == LENGTH_DELIMITED) {
+                int length = readLength();//read before position, the varint moves it
+                position += length;
+            } else {
+                throw new IllegalArgumentException("Unknown Wire Type: " + wireType);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package server.network;
+
+import server.models.message.Message;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Connection {
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private volatile boolean overflowed;//queued more than the server allows, the selector thread closes it
+    private String clientName;
+    private WireFormat wireFormat;
+    private Message pausedMessage;//read but not taken by the full receiving queue, reading waits until it is
+
+    Connection(SocketChannel channel, SelectionKey key) {
+        this.channel = channel;
+        this.key = key;
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    SelectionKey getKey() {
+        return key;
+    }
+
+    ByteBuffer getReadBuffer() {
+        return readBuffer;
+    }
+
+    //frames bigger than the buffer make it grow, up to MAX_FRAME_SIZE
+    void ensureReadCapacity() {
+        if (readBuffer.hasRemaining()) return;
+        int newSize = Math.min(readBuffer.capacity() * 2, Frames.HEADER_SIZE + Frames.MAX_FRAME_SIZE);
+        ByteBuffer newBuffer = ByteBuffer.allocate(newSize);
+        readBuffer.flip();
+        newBuffer.put(readBuffer);
+        readBuffer = newBuffer;
+    }
+
+    Queue<ByteBuffer> getWriteQueue() {
+        return writeQueue;
+    }
+
+    //returns the bytes queued after the change
+    long addQueuedBytes(long bytes) {
+        return queuedBytes.addAndGet(bytes);
+    }
+
+    boolean isOverflowed() {
+        return overflowed;
+    }
+
+    void setOverflowed() {
+        overflowed = true;
+    }
+
+    public String getClientName() {
+        return clientName;
+    }
+
+    void setClientName(String clientName) {
+        this.clientName = clientName;
+    }
+
+    Message getPausedMessage() {
+        return pausedMessage;
+    }
+
+    void setPausedMessage(Message pausedMessage) {
+        this.pausedMessage = pausedMessage;
+    }
+
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    void setWireFormat(WireFormat wireFormat) {
+        this.wireFormat = wireFormat;
+    }
+}
@@ -0,0 +1,42 @@
+package server.network;
+
+import java.nio.ByteBuffer;
+
+public class Frames {
+    public static final int HEADER_SIZE = 4;
+    public static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+    public static ByteBuffer encode(byte[] body) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + body.length);
+        frame.putInt(body.length);
+        frame.put(body);
+        frame.flip();
+        return frame;
+    }
+
+    //returns null while the buffer doesn't hold a whole frame
+    public static byte[] decode(ByteBuffer buffer) throws InvalidFrameException {
+        if (buffer.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        int length = buffer.getInt(buffer.position());
+        if (length < 0 || length > MAX_FRAME_SIZE) {
+            throw new InvalidFrameException("Invalid Frame Length: " + length);
+        }
+        if (buffer.remaining() < HEADER_SIZE + length) {
+            return null;
+        }
+        buffer.position(buffer.position() + HEADER_SIZE);
+        byte[] body = new byte[length];
+        buffer.get(body);
+        return body;
+    }
+
+    public static class InvalidFrameException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        public InvalidFrameException(String message) {
+            super(message);
+        }
+    }
+}
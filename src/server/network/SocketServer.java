@@ -0,0 +1,350 @@
+package server.network;
+
+import server.Server;
+import server.models.message.Message;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SocketServer implements Runnable {
+    //a client that stops reading is closed once this much is waiting for it, two frames of the largest size
+    private static final long MAX_QUEUED_BYTES = 2L * (Frames.HEADER_SIZE + Frames.MAX_FRAME_SIZE);
+
+    private final Server server;
+    private final int port;
+    private final WireFormat preferredFormat;
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>();//clientName -> Connection
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread selectorThread;
+    private ExecutorService dispatchThread;
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
+    private final AtomicBoolean drained = new AtomicBoolean();//set after each dispatch, paused connections retry then
+    private final ArrayList<Connection> pausedConnections = new ArrayList<>();//only used by the selector thread
+    private volatile boolean running;
+
+    public SocketServer(Server server, int port, WireFormat preferredFormat) {
+        this.server = server;
+        this.port = port;
+        this.preferredFormat = preferredFormat;
+    }
+
+    public void start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        selectorThread = new Thread(this, "SocketServer-" + port);
+        dispatchThread = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SocketServer-" + port + "-Dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        selectorThread.start();
+        server.serverPrint("Socket Server Is Listening On Port " + port);
+    }
+
+    public void stop() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                registerPendingWrites();
+                boolean received = drained.getAndSet(false) && resumePausedConnections();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    if (key.isReadable() && read(connection)) {
+                        received = true;
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        write(connection);
+                    }
+                }
+                if (received) {
+                    dispatch();
+                }
+                registerPendingWrites();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            e.printStackTrace();
+        } finally {
+            closeAll();
+        }
+    }
+
+    //receiveMessages doesn't wait for the commands it hands out, but it may flush replies of those that are already
+    //done, so it runs on its own thread and the selector keeps reading and writing;
+    //a run that starts after the flag is cleared sees every message queued before
+    private void dispatch() {
+        if (dispatchScheduled.compareAndSet(false, true)) {
+            dispatchThread.execute(() -> {
+                dispatchScheduled.set(false);
+                server.receiveMessages();
+                if (drained.compareAndSet(false, true)) {
+                    selector.wakeup();
+                }
+            });
+        }
+    }
+
+    public boolean send(String clientName, Message message) {
+        Connection connection = connections.get(clientName);
+        if (connection == null) {
+            return false;
+        }
+        byte[] body;
+        if (connection.getWireFormat() == WireFormat.BINARY) {
+            body = server.encodeBinary(message);
+        } else {
+            body = server.encodeJson(message).getBytes(StandardCharsets.UTF_8);
+        }
+        server.getDispatchStats().recordSent(message.getMessageType(), body.length);
+        queue(connection, Frames.encode(body));
+        return true;
+    }
+
+    private void queue(Connection connection, ByteBuffer buffer) {
+        if (connection.isOverflowed()) return;
+        if (connection.addQueuedBytes(buffer.remaining()) > MAX_QUEUED_BYTES) {
+            connection.setOverflowed();
+        } else {
+            connection.getWriteQueue().add(buffer);
+        }
+        pendingWrites.add(connection);
+        if (Thread.currentThread() != selectorThread) {
+            selector.wakeup();
+        }
+    }
+
+    public boolean hasConnection(String clientName) {
+        return connections.containsKey(clientName);
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+    }
+
+    private boolean read(Connection connection) {
+        boolean received = false;
+        try {
+            connection.ensureReadCapacity();
+            int count = connection.getChannel().read(connection.getReadBuffer());
+            if (count == -1) {
+                close(connection);
+                return false;
+            }
+            ByteBuffer buffer = connection.getReadBuffer();
+            buffer.flip();
+            if (connection.getWireFormat() == null && buffer.hasRemaining()) {
+                negotiate(connection, buffer.get());
+            }
+            received = receiveFrames(connection);
+            buffer.compact();
+        } catch (IOException | Frames.InvalidFrameException e) {
+            server.serverPrint("Connection Was Closed: " + e.getMessage());
+            close(connection);
+        }
+        return received;
+    }
+
+    //stops at a message the full receiving queue doesn't take: the connection keeps it and stops reading, so the
+    //client is slowed down instead of losing the request; the rest of its frames wait in the read buffer
+    private boolean receiveFrames(Connection connection) throws Frames.InvalidFrameException {
+        ByteBuffer buffer = connection.getReadBuffer();
+        boolean received = false;
+        byte[] body;
+        while (connection.getWireFormat() != null && connection.getKey().isValid()
+                && connection.getPausedMessage() == null && (body = Frames.decode(buffer)) != null) {
+            Message message = receive(connection, body);
+            if (message == null) continue;
+            if (!server.addToReceivingMessages(message)) {
+                connection.setPausedMessage(message);
+                connection.getKey().interestOps(interestOps(connection));
+                pausedConnections.add(connection);
+                return true;//the queue is full, so it needs a dispatch
+            }
+            received = true;
+        }
+        return received;
+    }
+
+    private boolean resumePausedConnections() {
+        if (pausedConnections.isEmpty()) return false;
+        ArrayList<Connection> paused = new ArrayList<>(pausedConnections);
+        pausedConnections.clear();
+        boolean received = false;
+        for (Connection connection : paused) {
+            if (!connection.getKey().isValid()) continue;
+            if (!server.addToReceivingMessages(connection.getPausedMessage())) {
+                pausedConnections.add(connection);
+                received = true;
+                continue;
+            }
+            connection.setPausedMessage(null);
+            received = true;
+            ByteBuffer buffer = connection.getReadBuffer();
+            buffer.flip();
+            try {
+                receiveFrames(connection);
+            } catch (Frames.InvalidFrameException e) {
+                server.serverPrint("Connection Was Closed: " + e.getMessage());
+                close(connection);
+                continue;
+            }
+            buffer.compact();
+            connection.getKey().interestOps(interestOps(connection));
+        }
+        return received;
+    }
+
+    //a paused connection doesn't read
+    private int interestOps(Connection connection) {
+        int ops = connection.getPausedMessage() == null ? SelectionKey.OP_READ : 0;
+        if (!connection.getWriteQueue().isEmpty()) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        return ops;
+    }
+
+    //the first byte of every connection asks for a wire format, the server answers with the one it will use
+    private void negotiate(Connection connection, byte preamble) throws Frames.InvalidFrameException {
+        WireFormat requested = WireFormat.fromPreamble(preamble);
+        if (requested == null) {
+            throw new Frames.InvalidFrameException("Invalid Wire Format Preamble.");
+        }
+        WireFormat wireFormat = requested == WireFormat.BINARY && preferredFormat == WireFormat.BINARY
+                ? WireFormat.BINARY : WireFormat.JSON;
+        connection.setWireFormat(wireFormat);
+        queue(connection, ByteBuffer.wrap(new byte[]{wireFormat.getPreamble()}));
+    }
+
+    //null when the message is invalid or not from this connection's client
+    private Message receive(Connection connection, byte[] body) {
+        Message message;
+        long start = System.nanoTime();
+        try {
+            if (connection.getWireFormat() == WireFormat.BINARY) {
+                message = Message.convertBinaryToMessage(body);
+            } else {
+                message = Message.convertJsonToMessage(new String(body, StandardCharsets.UTF_8));
+            }
+        } catch (RuntimeException e) {
+            message = null;
+        }
+        if (message == null || message.getSender() == null) {
+            server.getDispatchStats().countInvalidMessage();
+            server.serverPrint("invalid message");
+            return null;
+        }
+        server.getDispatchStats().recordParse(message.getMessageType(), System.nanoTime() - start, body.length);
+        if (connection.getClientName() == null) {
+            if (!server.addRemoteClient(message.getSender())) {
+                close(connection);
+                return null;
+            }
+            connection.setClientName(message.getSender());
+            connections.put(message.getSender(), connection);
+        } else if (!connection.getClientName().equals(message.getSender())) {
+            server.serverPrint("Message's Sender Was Not This Connection's Client.");
+            return null;
+        }
+        return message;
+    }
+
+    private void write(Connection connection) {
+        Queue<ByteBuffer> queue = connection.getWriteQueue();
+        try {
+            ByteBuffer buffer;
+            while ((buffer = queue.peek()) != null) {
+                connection.getChannel().write(buffer);
+                if (buffer.hasRemaining()) {
+                    return;
+                }
+                queue.poll();
+                connection.addQueuedBytes(-buffer.limit());
+            }
+            connection.getKey().interestOps(interestOps(connection));
+        } catch (IOException e) {
+            close(connection);
+        }
+    }
+
+    private void registerPendingWrites() {
+        Connection connection;
+        while ((connection = pendingWrites.poll()) != null) {
+            SelectionKey key = connection.getKey();
+            if (key.isValid() && connection.isOverflowed()) {
+                server.serverPrint("Connection Was Closed: " + connection.getClientName() + " Stopped Reading.");
+                close(connection);
+            } else if (key.isValid() && !connection.getWriteQueue().isEmpty()) {
+                key.interestOps(interestOps(connection));
+            }
+        }
+    }
+
+    private void close(Connection connection) {
+        connection.getKey().cancel();
+        try {
+            connection.getChannel().close();
+        } catch (IOException ignored) {
+        }
+        if (connection.getClientName() != null) {
+            connections.remove(connection.getClientName(), connection);
+            server.removeRemoteClient(connection.getClientName());
+        }
+    }
+
+    private void closeAll() {
+        dispatchThread.shutdown();
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection) {
+                close((Connection) key.attachment());
+            }
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package server.network;
+
+public enum WireFormat {
+    JSON((byte) 'J'),
+    BINARY((byte) 'B');
+
+    private final byte preamble;
+
+    WireFormat(byte preamble) {
+        this.preamble = preamble;
+    }
+
+    public byte getPreamble() {
+        return preamble;
+    }
+
+    public static WireFormat fromPreamble(byte preamble) {
+        for (WireFormat format : values()) {
+            if (format.preamble == preamble) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,160 @@
+package server.persistence;
+
+import server.models.JsonConverter;
+import server.models.account.Account;
+import server.models.account.TempAccount;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Write-behind writer for the account store.
+//Mutations only mark an account dirty; a background thread appends every dirty account once per durability window
+//and syncs the store once for the whole batch.
+public class AccountPersister implements Runnable {
+    private static final int COMPACTION_INTERVAL_BATCHES = 64;
+
+    private final AccountStore store;
+    private volatile long durabilityWindowMillis;
+    private final ConcurrentHashMap<String, Account> dirtyAccounts = new ConcurrentHashMap<>();//username -> Account
+    private final Set<Account> writingAccounts = ConcurrentHashMap.newKeySet();
+    private final Object flushLock = new Object();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private long lastCompactedBatch;//only the persister thread reads or writes this
+
+    private final AtomicLong markedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong totalBatchNanos = new AtomicLong();
+
+    public AccountPersister(AccountStore store, long durabilityWindowMillis) {
+        this.store = store;
+        this.durabilityWindowMillis = durabilityWindowMillis;
+        this.thread = new Thread(this, "AccountPersister");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "AccountPersisterShutdown"));
+    }
+
+    public void markDirty(Account account) {
+        dirtyAccounts.put(account.getUsername().toLowerCase(Locale.ROOT), account);
+        markedCount.incrementAndGet();
+    }
+
+    public void setDurabilityWindow(long durabilityWindowMillis) {
+        this.durabilityWindowMillis = Math.max(0, durabilityWindowMillis);
+        thread.interrupt();
+    }
+
+    public long getDurabilityWindow() {
+        return durabilityWindowMillis;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                Thread.sleep(Math.max(1, durabilityWindowMillis));
+            } catch (InterruptedException ignored) {
+            }
+            flush();
+            //an idle server writes no batches, so it has nothing new to compact
+            long batches = batchCount.get();
+            if (batches - lastCompactedBatch >= COMPACTION_INTERVAL_BATCHES) {
+                lastCompactedBatch = batches;
+                compact();
+            }
+        }
+    }
+
+    public void flush() {
+        synchronized (flushLock) {
+            if (dirtyAccounts.isEmpty()) return;
+            long start = System.nanoTime();
+            int written = 0;
+            for (Map.Entry<String, Account> entry : dirtyAccounts.entrySet()) {
+                //a mark made after this point keeps the account dirty for the next batch
+                Account account = entry.getValue();
+                writingAccounts.add(account);
+                if (!dirtyAccounts.remove(entry.getKey(), account)) {
+                    writingAccounts.remove(account);
+                    continue;
+                }
+                if (write(account)) {
+                    written++;
+                }
+                writingAccounts.remove(account);
+            }
+            try {
+                store.sync();
+                writtenCount.addAndGet(written);
+            } catch (IOException e) {
+                failedCount.addAndGet(written);
+                e.printStackTrace();
+            }
+            batchCount.incrementAndGet();
+            totalBatchNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private boolean write(Account account) {
+        String accountJson;
+        int wins;
+        synchronized (account) {
+            accountJson = JsonConverter.toJson(TempAccount.makeStoredAccount(account));
+            wins = account.getWins();
+        }
+        try {
+            store.put(account.getUsername(), wins, accountJson);
+            return true;
+        } catch (IOException e) {
+            failedCount.incrementAndGet();
+            markDirty(account);
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private void compact() {
+        try {
+            store.compact();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public void close() {
+        running = false;
+        flush();
+    }
+
+    //true until the account's latest change is in the store
+    public boolean isDirty(Account account) {
+        return dirtyAccounts.get(account.getUsername().toLowerCase(Locale.ROOT)) == account || writingAccounts.contains(account);
+    }
+
+    public int getDirtyCount() {
+        return dirtyAccounts.size();
+    }
+
+    @Override
+    public String toString() {
+        long batches = batchCount.get();
+        return "dirty=" + getDirtyCount() +
+                " marked=" + markedCount.get() +
+                " written=" + writtenCount.get() +
+                " failed=" + failedCount.get() +
+                " batches=" + batches +
+                " avgBatchMicros=" + (batches == 0 ? 0 : totalBatchNanos.get() / batches / 1000) +
+                " windowMillis=" + durabilityWindowMillis +
+                " store: " + store;
+    }
+}
@@ -0,0 +1,404 @@
+package server.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+//Log structured store of account records.
+//Every put appends a record to the active segment; a full segment is sealed with a footer holding its index,
+//so startup reads one footer per sealed segment and only scans the active one.
+//Record: length, crc, sequence, wins, username length, username, json. Footer: entries, entries offset, entry count, magic.
+public class AccountStore {
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int FOOTER_MAGIC = 0x41434354;
+    private static final int TRAILER_SIZE = 8 + 4 + 4;
+    private static final int RECORD_HEADER_SIZE = 4 + 4 + 8 + 4 + 2;
+    private static final long DEFAULT_SEGMENT_SIZE = 4 << 20;
+    private static final double COMPACTION_GARBAGE_RATIO = 0.5;
+    private static final int MAX_READ_ATTEMPTS = 3;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final ConcurrentHashMap<String, RecordPointer> index = new ConcurrentHashMap<>();//username -> record
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Object compactionLock = new Object();
+    private Segment activeSegment;
+    private long nextSegmentId;
+
+    private long compactionCount;
+    private long compactedBytes;
+
+    public AccountStore(String directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public AccountStore(String directory, long segmentSize) throws IOException {
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSize;
+        Files.createDirectories(this.directory);
+        open();
+    }
+
+    private void open() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(id, new Segment(id, path));
+                nextSegmentId = Math.max(nextSegmentId, id + 1);
+            }
+        }
+        for (Segment segment : segments.values()) {
+            if (!segment.readFooter()) {
+                segment.scan();
+            }
+        }
+        //an unsealed segment is reopened for appending; any other one is sealed so the next start can use its footer
+        Segment last = segments.isEmpty() ? null : segments.lastEntry().getValue();
+        for (Segment segment : segments.values()) {
+            if (!segment.sealed && segment != last) {
+                segment.seal();
+            }
+        }
+        if (last != null && !last.sealed) {
+            activeSegment = last;
+        } else {
+            activeSegment = createSegment();
+        }
+    }
+
+    private Segment createSegment() throws IOException {
+        long id = nextSegmentId++;
+        Segment segment = new Segment(id, segmentPath(id));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    public synchronized void put(String username, int wins, String json) throws IOException {
+        byte[] key = username.getBytes(StandardCharsets.UTF_8);
+        byte[] value = json.getBytes(StandardCharsets.UTF_8);
+        long recordSequence = sequence.incrementAndGet();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + key.length + value.length);
+        record.putInt(record.capacity() - 4);
+        record.putInt(0);
+        record.putLong(recordSequence);
+        record.putInt(wins);
+        record.putShort((short) key.length);
+        record.put(key);
+        record.put(value);
+        record.putInt(4, checksum(record.array(), 8, record.capacity() - 8));
+        record.flip();
+        if (activeSegment.size + record.remaining() > segmentSize && activeSegment.size > 0) {
+            activeSegment.seal();
+            activeSegment = createSegment();
+        }
+        long offset = activeSegment.append(record);
+        addToIndex(new RecordPointer(username, activeSegment.id, offset, record.capacity(), recordSequence, wins));
+    }
+
+    public String get(String username) throws IOException {
+        if (username == null) return null;
+        RecordPointer pointer = null;
+        ByteBuffer record = null;
+        for (int attempt = 0; record == null; attempt++) {
+            pointer = index.get(normalize(username));
+            if (pointer == null) return null;
+            Segment segment;
+            synchronized (this) {
+                segment = segments.get(pointer.segmentId);
+            }
+            try {
+                if (segment == null) throw new ClosedChannelException();
+                record = segment.read(pointer.offset, pointer.length);
+            } catch (ClosedChannelException e) {//compacted away while we were looking, the index points at the copy
+                if (attempt == MAX_READ_ATTEMPTS - 1) {
+                    throw new IOException("Record For " + username + " Kept Moving While Reading", e);
+                }
+            }
+        }
+        if (checksum(record.array(), 8, pointer.length - 8) != record.getInt(4)) {
+            throw new IOException("Corrupted Record For " + username);
+        }
+        int keyLength = record.getShort(RECORD_HEADER_SIZE - 2);
+        int valueOffset = RECORD_HEADER_SIZE + keyLength;
+        return new String(record.array(), valueOffset, pointer.length - valueOffset, StandardCharsets.UTF_8);
+    }
+
+    public boolean contains(String username) {
+        return username != null && index.containsKey(normalize(username));
+    }
+
+    public ArrayList<String> getUsernames() {
+        ArrayList<String> usernames = new ArrayList<>(index.size());
+        for (RecordPointer pointer : index.values()) {
+            usernames.add(pointer.username);
+        }
+        return usernames;
+    }
+
+    public int getWins(String username) {
+        RecordPointer pointer = index.get(normalize(username));
+        return pointer == null ? 0 : pointer.wins;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    //forces everything appended since the last sync; one call commits a whole batch of puts
+    public synchronized void sync() throws IOException {
+        activeSegment.force();
+    }
+
+    //live records are copied outside the store monitor, so gets and puts only wait for the pointer and segment swap;
+    //a record overwritten during the copy keeps its newer pointer and its copy is garbage for the next compaction
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            HashMap<Long, Segment> victims = new HashMap<>();
+            ArrayList<RecordPointer> livePointers = new ArrayList<>();
+            long live = 0, total = 0, outputId;
+            synchronized (this) {
+                for (Segment segment : segments.values()) {
+                    if (segment == activeSegment) continue;
+                    victims.put(segment.id, segment);
+                    total += segment.dataSize;
+                    for (RecordPointer pointer : segment.livePointers()) {
+                        livePointers.add(pointer);
+                        live += pointer.length;
+                    }
+                }
+                if (victims.isEmpty() || total == 0 || (total - live) < total * COMPACTION_GARBAGE_RATIO) return;
+                outputId = nextSegmentId++;
+            }
+
+            //victims are sealed and only compaction deletes them, so they can be read without the monitor
+            Segment output = new Segment(outputId, segmentPath(outputId));
+            ArrayList<RecordPointer> moved = new ArrayList<>(livePointers.size());
+            for (RecordPointer pointer : livePointers) {
+                ByteBuffer record = victims.get(pointer.segmentId).read(pointer.offset, pointer.length);
+                long offset = output.append(record);
+                RecordPointer copy = new RecordPointer(pointer.username, output.id, offset, pointer.length, pointer.sequence, pointer.wins);
+                output.entries.put(normalize(pointer.username), copy);
+                moved.add(copy);
+            }
+            output.seal();
+
+            synchronized (this) {
+                segments.put(output.id, output);
+                for (int i = 0; i < moved.size(); i++) {
+                    index.replace(normalize(moved.get(i).username), livePointers.get(i), moved.get(i));
+                }
+                for (Long id : victims.keySet()) {
+                    segments.remove(id);
+                }
+                compactionCount++;
+                compactedBytes += total - live;
+            }
+            //a get still holding a victim sees its channel closed and retries with the moved pointer
+            for (Segment segment : victims.values()) {
+                segment.delete();
+            }
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+    }
+
+    private void addToIndex(RecordPointer pointer) {
+        String key = normalize(pointer.username);
+        index.merge(key, pointer, (old, now) -> now.sequence > old.sequence ? now : old);
+        sequence.accumulateAndGet(pointer.sequence, Math::max);
+        Segment segment = segments.get(pointer.segmentId);
+        if (segment != null) {
+            segment.entries.put(key, pointer);
+        }
+    }
+
+    private static String normalize(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public synchronized String toString() {
+        long bytes = 0;
+        for (Segment segment : segments.values()) {
+            bytes += segment.size;
+        }
+        return "accounts=" + index.size() +
+                " segments=" + segments.size() +
+                " bytes=" + bytes +
+                " compactions=" + compactionCount +
+                " compactedBytes=" + compactedBytes;
+    }
+
+    private static class RecordPointer {
+        private final String username;
+        private final long segmentId;
+        private final long offset;
+        private final int length;
+        private final long sequence;
+        private final int wins;
+
+        private RecordPointer(String username, long segmentId, long offset, int length, long sequence, int wins) {
+            this.username = username;
+            this.segmentId = segmentId;
+            this.offset = offset;
+            this.length = length;
+            this.sequence = sequence;
+            this.wins = wins;
+        }
+    }
+
+    private class Segment {
+        private final long id;
+        private final Path path;
+        private final FileChannel channel;
+        private final HashMap<String, RecordPointer> entries = new HashMap<>();//latest record of each key in this segment
+        private long size;
+        private long dataSize;
+        private boolean sealed;
+
+        private Segment(long id, Path path) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.size = channel.size();
+            this.dataSize = size;
+        }
+
+        private long append(ByteBuffer record) throws IOException {
+            long offset = size;
+            while (record.hasRemaining()) {
+                size += channel.write(record, size);
+            }
+            dataSize = size;
+            return offset;
+        }
+
+        private ByteBuffer read(long offset, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("Unexpected End Of Segment " + id);
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        private boolean readFooter() throws IOException {
+            if (size < TRAILER_SIZE) return false;
+            ByteBuffer trailer = read(size - TRAILER_SIZE, TRAILER_SIZE);
+            long entriesOffset = trailer.getLong();
+            int count = trailer.getInt();
+            if (trailer.getInt() != FOOTER_MAGIC || entriesOffset < 0 || entriesOffset > size - TRAILER_SIZE) {
+                return false;
+            }
+            ByteBuffer footer = read(entriesOffset, (int) (size - TRAILER_SIZE - entriesOffset));
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[footer.getShort()];
+                footer.get(key);
+                RecordPointer pointer = new RecordPointer(new String(key, StandardCharsets.UTF_8), id,
+                        footer.getLong(), footer.getInt(), footer.getLong(), footer.getInt());
+                addToIndex(pointer);
+            }
+            dataSize = entriesOffset;
+            sealed = true;
+            return true;
+        }
+
+        //rebuilds the index of an unsealed segment; a torn record at the end is cut off
+        private void scan() throws IOException {
+            long offset = 0;
+            while (offset + RECORD_HEADER_SIZE <= size) {
+                int length = read(offset, 4).getInt() + 4;
+                if (length < RECORD_HEADER_SIZE || offset + length > size) break;
+                ByteBuffer record = read(offset, length);
+                if (checksum(record.array(), 8, length - 8) != record.getInt(4)) break;
+                record.position(8);
+                long recordSequence = record.getLong();
+                int wins = record.getInt();
+                byte[] key = new byte[record.getShort()];
+                record.get(key);
+                addToIndex(new RecordPointer(new String(key, StandardCharsets.UTF_8), id, offset, length, recordSequence, wins));
+                offset += length;
+            }
+            if (offset < size) {
+                channel.truncate(offset);
+                size = offset;
+            }
+            dataSize = size;
+        }
+
+        private void seal() throws IOException {
+            long entriesOffset = size;
+            int footerSize = TRAILER_SIZE;
+            for (RecordPointer pointer : entries.values()) {
+                footerSize += 2 + pointer.username.getBytes(StandardCharsets.UTF_8).length + 8 + 4 + 8 + 4;
+            }
+            ByteBuffer footer = ByteBuffer.allocate(footerSize);
+            for (RecordPointer pointer : entries.values()) {
+                byte[] key = pointer.username.getBytes(StandardCharsets.UTF_8);
+                footer.putShort((short) key.length);
+                footer.put(key);
+                footer.putLong(pointer.offset);
+                footer.putInt(pointer.length);
+                footer.putLong(pointer.sequence);
+                footer.putInt(pointer.wins);
+            }
+            footer.putLong(entriesOffset);
+            footer.putInt(entries.size());
+            footer.putInt(FOOTER_MAGIC);
+            footer.flip();
+            append(footer);
+            dataSize = entriesOffset;
+            channel.force(true);
+            sealed = true;
+        }
+
+        private ArrayList<RecordPointer> livePointers() {
+            ArrayList<RecordPointer> live = new ArrayList<>();
+            for (RecordPointer pointer : entries.values()) {
+                if (index.get(normalize(pointer.username)) == pointer) {
+                    live.add(pointer);
+                }
+            }
+            return live;
+        }
+
+        private void force() throws IOException {
+            channel.force(false);
+        }
+
+        private void close() throws IOException {
+            channel.close();
+        }
+
+        private void delete() throws IOException {
+            channel.close();
+            Files.deleteIfExists(path);
+        }
+    }
+}
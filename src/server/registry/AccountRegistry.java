@@ -0,0 +1,239 @@
+package server.registry;
+
+import server.models.account.Account;
+import server.models.account.AccountInfo;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+//Every known username is in the directory with its wins; full accounts are loaded on demand into a bounded LRU cache.
+//Logged in accounts and accounts the pin predicate holds (in a game, not yet persisted) are never evicted.
+//Lookups of the indexes are lock free; login, logout and session removal lock the registry so they change together.
+public class AccountRegistry {
+    private final ConcurrentHashMap<String, AccountInfo> directory = new ConcurrentHashMap<>();//username -> AccountInfo
+    private final LeaderBoard leaderBoard = new LeaderBoard();//ranks the directory, updated with it
+    private final LinkedHashMap<String, Account> cache = new LinkedHashMap<>(16, 0.75f, true);//username -> Account
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();//clientName -> Session
+    private final ConcurrentHashMap<Account, Session> onlineAccounts = new ConcurrentHashMap<>();//Account -> Session
+    private final Function<String, Account> loader;
+    private Predicate<Account> pinned = account -> false;
+    private volatile int cacheCapacity;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public AccountRegistry(Function<String, Account> loader, int cacheCapacity) {
+        this.loader = loader;
+        this.cacheCapacity = cacheCapacity;
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    public void setPinned(Predicate<Account> pinned) {
+        this.pinned = pinned;
+    }
+
+    public void setCacheCapacity(int cacheCapacity) {
+        this.cacheCapacity = Math.max(1, cacheCapacity);
+        synchronized (cache) {
+            evict();
+        }
+    }
+
+    //makes a stored account known without loading it
+    public void addToDirectory(String username, int wins) {
+        AccountInfo accountInfo = new AccountInfo(username, wins);
+        synchronized (leaderBoard) {
+            if (directory.putIfAbsent(normalize(username), accountInfo) == null) {
+                leaderBoard.add(accountInfo);
+            }
+        }
+    }
+
+    public boolean addAccount(Account account) {
+        String key = normalize(account.getUsername());
+        AccountInfo accountInfo = new AccountInfo(account);
+        synchronized (leaderBoard) {
+            if (directory.putIfAbsent(key, accountInfo) != null) {
+                return false;
+            }
+            leaderBoard.add(accountInfo);
+        }
+        synchronized (cache) {
+            cache.put(key, account);
+            evict();
+        }
+        return true;
+    }
+
+    public void updateDirectory(Account account) {
+        String key = normalize(account.getUsername());
+        synchronized (leaderBoard) {
+            AccountInfo oldInfo = directory.get(key);
+            //most saves do not touch wins, so the board stays as it is
+            if (oldInfo != null && oldInfo.getWins() == account.getWins()) return;
+            AccountInfo accountInfo = new AccountInfo(account);
+            directory.put(key, accountInfo);
+            leaderBoard.replace(oldInfo, accountInfo);
+        }
+    }
+
+    public LeaderBoard getLeaderBoard() {
+        return leaderBoard;
+    }
+
+    public AccountInfo getAccountInfo(String username) {
+        if (username == null) return null;
+        return directory.get(normalize(username));
+    }
+
+    public boolean hasAccount(String username) {
+        return username != null && directory.containsKey(normalize(username));
+    }
+
+    public Account getAccount(String username) {
+        if (username == null) return null;
+        String key = normalize(username);
+        if (!directory.containsKey(key)) return null;
+
+        Account account;
+        synchronized (cache) {
+            account = cache.get(key);
+        }
+        if (account != null) {
+            hitCount.incrementAndGet();
+            return account;
+        }
+        missCount.incrementAndGet();
+        Account loaded = loader.apply(username);
+        if (loaded == null) return null;
+        synchronized (cache) {
+            //another thread may have loaded it meanwhile; everybody must share one instance
+            account = cache.get(key);
+            if (account == null) {
+                account = loaded;
+                cache.put(key, account);
+                evict();
+            }
+        }
+        return account;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Account>> iterator = cache.entrySet().iterator();
+        while (cache.size() > cacheCapacity && iterator.hasNext()) {
+            Account account = iterator.next().getValue();
+            if (onlineAccounts.containsKey(account) || pinned.test(account)) continue;
+            iterator.remove();
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    public Collection<AccountInfo> getAccountInfos() {
+        return directory.values();
+    }
+
+    public int getAccountCount() {
+        return directory.size();
+    }
+
+    public boolean addSession(Session session) {
+        return sessions.putIfAbsent(normalize(session.getClientName()), session) == null;
+    }
+
+    public synchronized Session removeSession(String clientName) {
+        Session session = getSession(clientName);
+        if (session != null) {
+            unbind(session);
+            sessions.remove(normalize(clientName));
+        }
+        return session;
+    }
+
+    public Session getSession(String clientName) {
+        if (clientName == null) return null;
+        return sessions.get(normalize(clientName));
+    }
+
+    public Session getSession(Account account) {
+        if (account == null) return null;
+        return onlineAccounts.get(account);
+    }
+
+    public Account getLoggedInAccount(String clientName) {
+        Session session = getSession(clientName);
+        if (session == null) return null;
+        return session.getAccount();
+    }
+
+    //an online account is always cached, so this never loads one
+    public String getClientName(String username) {
+        if (username == null) return null;
+        Account account;
+        synchronized (cache) {
+            account = cache.get(normalize(username));
+        }
+        Session session = getSession(account);
+        if (session == null) return null;
+        return session.getClientName();
+    }
+
+    public synchronized boolean login(Session session, Account account) {
+        if (session.isLoggedIn() || onlineAccounts.containsKey(account)) {
+            return false;
+        }
+        session.setAccount(account);
+        onlineAccounts.put(account, session);
+        return true;
+    }
+
+    //binds even if the session or the account is already in use
+    public synchronized void bind(Session session, Account account) {
+        unbind(session);
+        Session oldSession = onlineAccounts.get(account);
+        if (oldSession != null) {
+            unbind(oldSession);
+        }
+        session.setAccount(account);
+        onlineAccounts.put(account, session);
+    }
+
+    public synchronized Account logout(String clientName) {
+        Session session = getSession(clientName);
+        if (session == null) return null;
+        return unbind(session);
+    }
+
+    private Account unbind(Session session) {
+        Account account = session.getAccount();
+        if (account != null) {
+            onlineAccounts.remove(account, session);
+            session.setAccount(null);
+        }
+        return account;
+    }
+
+    @Override
+    public String toString() {
+        int cached;
+        synchronized (cache) {
+            cached = cache.size();
+        }
+        return "accounts=" + directory.size() +
+                " cached=" + cached + "/" + cacheCapacity +
+                " online=" + onlineAccounts.size() +
+                " hits=" + hitCount.get() +
+                " misses=" + missCount.get() +
+                " evictions=" + evictionCount.get();
+    }
+}
@@ -0,0 +1,141 @@
+package server.registry;
+
+import server.models.account.AccountInfo;
+import server.models.sorter.LeaderBoardSorter;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+//Order statistic treap over the directory, in LeaderBoardSorter order (wins desc, then username).
+//Every node knows its subtree size, so adding, removing, ranking and finding the k-th entry are O(log n).
+//Ranks are 1-based.
+public class LeaderBoard {
+    private final LeaderBoardSorter sorter = new LeaderBoardSorter();
+    private final Random random = new Random();
+    private Node root;
+
+    public synchronized void add(AccountInfo accountInfo) {
+        Node[] parts = split(root, accountInfo);
+        root = merge(merge(parts[0], new Node(accountInfo, random.nextInt())), parts[1]);
+    }
+
+    public synchronized void remove(AccountInfo accountInfo) {
+        root = remove(root, accountInfo);
+    }
+
+    public synchronized void replace(AccountInfo oldInfo, AccountInfo newInfo) {
+        if (oldInfo != null) {
+            root = remove(root, oldInfo);
+        }
+        add(newInfo);
+    }
+
+    public synchronized int size() {
+        return size(root);
+    }
+
+    //0 if it is not on the board
+    public synchronized int getRank(AccountInfo accountInfo) {
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            int compare = sorter.compare(accountInfo, node.accountInfo);
+            if (compare == 0) {
+                return rank + size(node.left) + 1;
+            }
+            if (compare < 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return 0;
+    }
+
+    public synchronized AccountInfo[] getPage(int startRank, int count) {
+        ArrayList<AccountInfo> page = new ArrayList<>();
+        if (startRank >= 1 && count > 0) {
+            collect(root, startRank - 1, count, page);
+        }
+        return page.toArray(new AccountInfo[0]);
+    }
+
+    //in order walk that skips whole subtrees left of the page
+    private void collect(Node node, int skip, int count, ArrayList<AccountInfo> page) {
+        if (node == null || page.size() >= count) return;
+        int leftSize = size(node.left);
+        if (skip < leftSize) {
+            collect(node.left, skip, count, page);
+        }
+        if (page.size() < count && skip <= leftSize) {
+            page.add(node.accountInfo);
+        }
+        collect(node.right, Math.max(0, skip - leftSize - 1), count, page);
+    }
+
+    //left part has every entry ordered before accountInfo
+    private Node[] split(Node node, AccountInfo accountInfo) {
+        if (node == null) return new Node[]{null, null};
+        if (sorter.compare(node.accountInfo, accountInfo) < 0) {
+            Node[] parts = split(node.right, accountInfo);
+            node.right = parts[0];
+            node.update();
+            return new Node[]{node, parts[1]};
+        } else {
+            Node[] parts = split(node.left, accountInfo);
+            node.left = parts[1];
+            node.update();
+            return new Node[]{parts[0], node};
+        }
+    }
+
+    private Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        } else {
+            right.left = merge(left, right.left);
+            right.update();
+            return right;
+        }
+    }
+
+    private Node remove(Node node, AccountInfo accountInfo) {
+        if (node == null) return null;
+        int compare = sorter.compare(accountInfo, node.accountInfo);
+        if (compare == 0) {
+            return merge(node.left, node.right);
+        }
+        if (compare < 0) {
+            node.left = remove(node.left, accountInfo);
+        } else {
+            node.right = remove(node.right, accountInfo);
+        }
+        node.update();
+        return node;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static class Node {
+        private final AccountInfo accountInfo;
+        private final int priority;
+        private Node left, right;
+        private int size = 1;
+
+        private Node(AccountInfo accountInfo, int priority) {
+            this.accountInfo = accountInfo;
+            this.priority = priority;
+        }
+
+        private void update() {
+            size = 1 + size(left) + size(right);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package server.registry;
+
+import client.Client;
+import server.models.account.Account;
+
+public class Session {
+    private final String clientName;
+    private final Client client;//null for remote clients
+    private volatile Account account;
+
+    public Session(String clientName, Client client) {
+        this.clientName = clientName;
+        this.client = client;
+    }
+
+    public String getClientName() {
+        return clientName;
+    }
+
+    public Client getClient() {
+        return client;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    void setAccount(Account account) {
+        this.account = account;
+    }
+
+    public boolean isLoggedIn() {
+        return account != null;
+    }
+}
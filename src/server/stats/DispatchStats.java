@@ -0,0 +1,113 @@
+package server.stats;
+
+import server.models.message.MessageType;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//Where Server.receiveMessages spends its time, by MessageType: parsing a request, handling it and serializing what
+//is sent back are measured apart, the table shows medians for parsing and serializing. A message is serialized
+//once per wire format however many receivers it has, so sends and their bytes are counted apart from encodings.
+//Requests are counted by outcome: a request the server answered with an exception failed, it is marked as it goes.
+//Every array is made up front, so recording is a few counter increments and never allocates.
+public class DispatchStats {
+    private static final MessageType[] MESSAGE_TYPES = MessageType.values();
+
+    private final LatencyHistogram[] parseNanos = new LatencyHistogram[MESSAGE_TYPES.length];
+    private final LatencyHistogram[] handlerNanos = new LatencyHistogram[MESSAGE_TYPES.length];
+    private final LatencyHistogram[] serializeNanos = new LatencyHistogram[MESSAGE_TYPES.length];
+    private final LongAdder[] successes = new LongAdder[MESSAGE_TYPES.length];
+    private final LongAdder[] exceptions = new LongAdder[MESSAGE_TYPES.length];
+    private final LongAdder[] bytesIn = new LongAdder[MESSAGE_TYPES.length];
+    private final LongAdder[] bytesOut = new LongAdder[MESSAGE_TYPES.length];
+    private final LongAdder[] sent = new LongAdder[MESSAGE_TYPES.length];
+    private final LatencyHistogram queueDepth = new LatencyHistogram();
+    private final LongAdder invalidMessages = new LongAdder();
+    private final long start = System.nanoTime();
+
+    public DispatchStats() {
+        for (int i = 0; i < MESSAGE_TYPES.length; i++) {
+            parseNanos[i] = new LatencyHistogram();
+            handlerNanos[i] = new LatencyHistogram();
+            serializeNanos[i] = new LatencyHistogram();
+            successes[i] = new LongAdder();
+            exceptions[i] = new LongAdder();
+            bytesIn[i] = new LongAdder();
+            bytesOut[i] = new LongAdder();
+            sent[i] = new LongAdder();
+        }
+    }
+
+    public void recordParse(MessageType type, long nanos, int bytes) {
+        if (type == null) return;
+        parseNanos[type.ordinal()].record(nanos);
+        bytesIn[type.ordinal()].add(bytes);
+    }
+
+    public void recordSerialize(MessageType type, long nanos) {
+        if (type == null) return;
+        serializeNanos[type.ordinal()].record(nanos);
+    }
+
+    public void recordSent(MessageType type, int bytes) {
+        if (type == null) return;
+        sent[type.ordinal()].increment();
+        bytesOut[type.ordinal()].add(bytes);
+    }
+
+    public void recordQueueDepth(int depth) {
+        queueDepth.record(depth);
+    }
+
+    public void countInvalidMessage() {
+        invalidMessages.increment();
+    }
+
+    public void recordHandler(MessageType type, long nanos, boolean failed) {
+        handlerNanos[type.ordinal()].record(nanos);
+        if (failed) {
+            exceptions[type.ordinal()].increment();
+        } else {
+            successes[type.ordinal()].increment();
+        }
+    }
+
+    public long getHandled(MessageType type) {
+        return successes[type.ordinal()].sum() + exceptions[type.ordinal()].sum();
+    }
+
+    public LatencyHistogram getHandlerNanos(MessageType type) {
+        return handlerNanos[type.ordinal()];
+    }
+
+    public double getSeconds() {
+        return (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(String.format(
+                "dispatch stats for %.1f s: queue depth p50=%d p99=%d max=%d, %d invalid messages%n",
+                getSeconds(), queueDepth.getValueAtPercentile(50), queueDepth.getValueAtPercentile(99),
+                queueDepth.getMax(), invalidMessages.sum()));
+        builder.append(String.format("%-20s %8s %9s %10s %10s %9s %9s %9s %9s %9s %9s %9s%n", "type", "ok",
+                "exception", "bytes in", "bytes out", "parse us", "p50 us", "p99 us", "p999 us", "max us",
+                "sent", "ser. us"));
+        for (MessageType type : MESSAGE_TYPES) {
+            int i = type.ordinal();
+            long sentCount = sent[i].sum();
+            if (getHandled(type) == 0 && parseNanos[i].getCount() == 0 && sentCount == 0) continue;
+            LatencyHistogram handler = handlerNanos[i];
+            builder.append(String.format("%-20s %8d %9d %10d %10d %9.1f %9.1f %9.1f %9.1f %9.1f %9d %9.1f%n", type,
+                    successes[i].sum(), exceptions[i].sum(), bytesIn[i].sum(), bytesOut[i].sum(),
+                    toMicros(parseNanos[i].getValueAtPercentile(50)), toMicros(handler.getValueAtPercentile(50)),
+                    toMicros(handler.getValueAtPercentile(99)), toMicros(handler.getValueAtPercentile(99.9)),
+                    toMicros(handler.getMax()), sentCount, toMicros(serializeNanos[i].getValueAtPercentile(50))));
+        }
+        return builder.toString();
+    }
+
+    private static double toMicros(double nanos) {
+        return nanos / 1e3;
+    }
+}
@@ -0,0 +1,17 @@
+package simulation;
+
+import AI.AI;
+import server.models.game.Game;
+
+public class AiPolicy implements Policy {
+    private final AI ai;
+
+    public AiPolicy(AI ai) {
+        this.ai = ai;
+    }
+
+    @Override
+    public void playTurn(Game game) {
+        ai.playCurrentTurn(game);
+    }
+}
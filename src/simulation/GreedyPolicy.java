@@ -0,0 +1,82 @@
+package simulation;
+
+import server.models.card.Card;
+import server.models.card.CardType;
+import server.models.game.Game;
+import server.models.game.Player;
+import server.models.game.Troop;
+import server.models.map.Cell;
+import server.models.map.GameMap;
+import server.models.map.Position;
+
+import java.util.ArrayList;
+
+//Brings minions in and moves troops as close to the enemy hero as it can, then attacks what it can kill,
+//or else the hero, or else the weakest target.
+public class GreedyPolicy implements Policy {
+    @Override
+    public void playTurn(Game game) {
+        Player player = game.getCurrentTurnPlayer();
+        String username = player.getUserName();
+        Cell enemyHero = game.getOtherTurnPlayer().getHero().getCell();
+        for (Card card : new ArrayList<>(player.getHand())) {
+            if (card.getType() != CardType.MINION) continue;
+            Position position = getInsertPosition(game, card, enemyHero);
+            if (position != null) {
+                Simulator.tryAction(() -> game.insert(username, card.getCardId(), position));
+            }
+        }
+        for (Troop troop : new ArrayList<>(player.getTroops())) {
+            String cardId = troop.getCard().getCardId();
+            Cell cell = getClosestCell(game.getMovableCells(cardId), enemyHero);
+            if (cell != null && cell.manhattanDistance(enemyHero) < troop.getCell().manhattanDistance(enemyHero)) {
+                Simulator.tryAction(() -> game.moveTroop(username, cardId, new Position(cell)));
+            }
+            Troop target = getTarget(troop, game.getAttackableTroops(cardId), game.getOtherTurnPlayer().getHero());
+            if (target != null) {
+                Simulator.tryAction(() -> game.attack(username, cardId, target.getCard().getCardId()));
+            }
+        }
+        Simulator.tryAction(() -> game.changeTurn(username));
+    }
+
+    private Position getInsertPosition(Game game, Card card, Cell enemyHero) {
+        Position best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int row = 0; row < GameMap.getRowNumber(); row++) {
+            for (int column = 0; column < GameMap.getColumnNumber(); column++) {
+                int distance = Math.abs(row - enemyHero.getRow()) + Math.abs(column - enemyHero.getColumn());
+                Position position = new Position(row, column);
+                if (distance < bestDistance && game.canInsert(card.getCardId(), position)) {
+                    best = position;
+                    bestDistance = distance;
+                }
+            }
+        }
+        return best;
+    }
+
+    private Cell getClosestCell(Cell[] cells, Cell target) {
+        Cell best = null;
+        for (Cell cell : cells) {
+            if (best == null || cell.manhattanDistance(target) < best.manhattanDistance(target)) {
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+    private Troop getTarget(Troop attacker, Troop[] targets, Troop enemyHero) {
+        Troop best = null;
+        for (Troop target : targets) {
+            if (target.getCurrentHp() <= attacker.getCurrentAp()) {
+                return target;
+            }
+            if (best == null || target == enemyHero ||
+                    (best != enemyHero && target.getCurrentHp() < best.getCurrentHp())) {
+                best = target;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,9 @@
+package simulation;
+
+import server.models.game.Game;
+
+//Decides a player's actions in a simulated game. Policies are shared by every simulation thread.
+public interface Policy {
+    //plays the current player's turn and ends it
+    void playTurn(Game game);
+}
@@ -0,0 +1,45 @@
+package simulation;
+
+import server.models.card.Card;
+import server.models.card.CardType;
+import server.models.game.Game;
+import server.models.game.Player;
+import server.models.game.Troop;
+import server.models.map.Cell;
+import server.models.map.GameMap;
+import server.models.map.Position;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+//Every troop attacks a random target when it can and moves half the time; every minion in hand comes in half the time.
+public class RandomPolicy implements Policy {
+    @Override
+    public void playTurn(Game game) {
+        Random random = ThreadLocalRandom.current();
+        Player player = game.getCurrentTurnPlayer();
+        String username = player.getUserName();
+        for (Card card : new ArrayList<>(player.getHand())) {
+            if (card.getType() != CardType.MINION || !random.nextBoolean()) continue;
+            Position position = new Position(random.nextInt(GameMap.getRowNumber()), random.nextInt(GameMap.getColumnNumber()));
+            if (game.canInsert(card.getCardId(), position)) {
+                Simulator.tryAction(() -> game.insert(username, card.getCardId(), position));
+            }
+        }
+        for (Troop troop : new ArrayList<>(player.getTroops())) {
+            String cardId = troop.getCard().getCardId();
+            Troop[] targets = game.getAttackableTroops(cardId);
+            if (targets.length > 0) {
+                Troop target = targets[random.nextInt(targets.length)];
+                Simulator.tryAction(() -> game.attack(username, cardId, target.getCard().getCardId()));
+            }
+            Cell[] cells = game.getMovableCells(cardId);
+            if (cells.length > 0 && random.nextBoolean()) {
+                Position position = new Position(cells[random.nextInt(cells.length)]);
+                Simulator.tryAction(() -> game.moveTroop(username, cardId, position));
+            }
+        }
+        Simulator.tryAction(() -> game.changeTurn(username));
+    }
+}
@@ -0,0 +1,71 @@
+package simulation;
+
+import server.models.game.GameType;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class SimulationResult {
+    private final GameType gameType;
+    private final int threads;
+    private final LongAdder games = new LongAdder();
+    private final LongAdder turns = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();//on the simulation threads, not in an AI's pool
+    private final LongAdder[] wins = {new LongAdder(), new LongAdder(), new LongAdder()};//draws, player one, player two
+    private long nanos;
+
+    SimulationResult(GameType gameType, int threads) {
+        this.gameType = gameType;
+        this.threads = threads;
+    }
+
+    void addGame(int winner, int turns, long allocatedBytes) {
+        games.increment();
+        this.turns.add(turns);
+        this.allocatedBytes.add(Math.max(0, allocatedBytes));
+        wins[winner].increment();
+    }
+
+    void setNanos(long nanos) {
+        this.nanos = nanos;
+    }
+
+    public long getGames() {
+        return games.sum();
+    }
+
+    public long getTurns() {
+        return turns.sum();
+    }
+
+    public long getWins(int playerNumber) {
+        return wins[playerNumber].sum();
+    }
+
+    public double getSeconds() {
+        return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    public double getGamesPerSecond() {
+        return getGames() / getSeconds();
+    }
+
+    public double getTurnsPerSecond() {
+        return getTurns() / getSeconds();
+    }
+
+    public double getAllocatedBytesPerSecond() {
+        return allocatedBytes.sum() / getSeconds();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s on %d threads: %d games, %d turns in %.2f s%n" +
+                        "wins %d/%d, draws %d%n" +
+                        "%.1f games/s, %.0f turns/s, %.1f MB/s allocated, %.1f KB per turn",
+                gameType, threads, getGames(), getTurns(), getSeconds(),
+                getWins(1), getWins(2), getWins(0),
+                getGamesPerSecond(), getTurnsPerSecond(), getAllocatedBytesPerSecond() / (1 << 20),
+                getTurns() == 0 ? 0 : allocatedBytes.sum() / (double) getTurns() / (1 << 10));
+    }
+}
@@ -0,0 +1,150 @@
+package simulation;
+
+import server.Server;
+import server.models.account.Account;
+import server.models.card.Card;
+import server.models.card.Deck;
+import server.models.game.*;
+import server.models.map.GameMap;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Plays whole games on the engine without clients or messages: both players get a random story deck
+//and a policy plays each side. Games run in parallel on a fixed pool of threads.
+//A game is over once a hero is dead, or after maxTurns turns as a draw; Game has no flag rules yet.
+public class Simulator {
+    private static final int DEFAULT_MAX_TURNS = 200;
+    private static final int MULTI_FLAG_NUMBER = 7;
+
+    private final GameType gameType;
+    private final Policy policyOne;
+    private final Policy policyTwo;
+    private final int threads;
+    private final int maxTurns;
+    private final List<Deck> decks = new ArrayList<>();
+
+    public Simulator(GameType gameType, Policy policyOne, Policy policyTwo, int threads) {
+        this(gameType, policyOne, policyTwo, threads, DEFAULT_MAX_TURNS);
+    }
+
+    public Simulator(GameType gameType, Policy policyOne, Policy policyTwo, int threads, int maxTurns) {
+        this.gameType = gameType;
+        this.policyOne = policyOne;
+        this.policyTwo = policyTwo;
+        this.threads = Math.max(1, threads);
+        this.maxTurns = maxTurns;
+        for (Story story : Server.getInstance().getStories()) {
+            decks.add(story.getDeck());
+        }
+    }
+
+    public SimulationResult run(int games) throws Exception {
+        if (decks.isEmpty()) {
+            throw new Exception("no story decks to play with");
+        }
+        SimulationResult result = new SimulationResult(gameType, threads);
+        AtomicInteger nextGame = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            ArrayList<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(pool.submit(() -> {
+                    while (nextGame.getAndIncrement() < games) {
+                        long allocated = getAllocatedBytes();
+                        Game game = makeGame(ThreadLocalRandom.current());
+                        game.startSimulation();//no client reads its changes
+                        int turns = play(game);
+                        result.addGame(getWinner(game), turns, getAllocatedBytes() - allocated);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        result.setNanos(System.nanoTime() - start);
+        return result;
+    }
+
+    private Game makeGame(Random random) {
+        Account accountOne = new Account("simulated1", makeDeck(decks.get(random.nextInt(decks.size())), "simulated1"));
+        Account accountTwo = new Account("simulated2", makeDeck(decks.get(random.nextInt(decks.size())), "simulated2"));
+        Server server = Server.getInstance();
+        switch (gameType) {
+            case A_FLAG:
+                return new SingleFlagBattle(gameType, accountOne, accountTwo,
+                        new GameMap(server.getOriginalCards().getItems(), 1, server.getOriginalFlag()));
+            case SOME_FLAG:
+                return new MultiFlagBattle(gameType, accountOne, accountTwo,
+                        new GameMap(server.getOriginalCards().getItems(), MULTI_FLAG_NUMBER, server.getOriginalFlag()));
+            default:
+                return new KillHeroBattle(gameType, accountOne, accountTwo,
+                        new GameMap(server.getOriginalCards().getItems(), 0, server.getOriginalFlag()));
+        }
+    }
+
+    //the cards get the player's name in their ids, so both sides can play the same deck
+    public static Deck makeDeck(Deck deck, String username) {
+        ArrayList<Card> others = new ArrayList<>();
+        for (Card card : deck.getOthers()) {
+            others.add(new Card(card, username, others.size() + 1));
+        }
+        Card item = deck.getItem() == null ? null : new Card(deck.getItem(), username, 0);
+        return new Deck(username, new Card(deck.getHero(), username, 0), item, others);
+    }
+
+    private int play(Game game) {
+        int turns = 0;
+        while (turns < maxTurns && getWinner(game) == 0) {
+            int turnNumber = game.getTurnNumber();
+            (turnNumber % 2 == 1 ? policyOne : policyTwo).playTurn(game);
+            if (game.getTurnNumber() == turnNumber) {//the policy did not end its turn
+                tryAction(() -> game.changeTurn(game.getCurrentTurnPlayer().getUserName()));
+            }
+            turns++;
+        }
+        return turns;
+    }
+
+    //the player whose hero is the only one alive, 0 while both are
+    static int getWinner(Game game) {
+        boolean heroOneAlive = game.getPlayerOne().getTroops().contains(game.getPlayerOne().getHero());
+        boolean heroTwoAlive = game.getPlayerTwo().getTroops().contains(game.getPlayerTwo().getHero());
+        if (heroOneAlive == heroTwoAlive) return 0;
+        return heroOneAlive ? 1 : 2;
+    }
+
+    //policies try actions the game may reject, which only costs them the action
+    static void tryAction(GameAction action) {
+        try {
+            action.run();
+        } catch (Exception ignored) {
+        }
+    }
+
+    //bytes allocated by the current thread, -1 where the JVM does not count them
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    interface GameAction {
+        void run() throws Exception;
+    }
+}
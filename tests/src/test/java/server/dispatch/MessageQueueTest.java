@@ -0,0 +1,121 @@
+package server.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageQueueTest {
+    @Test
+    void capacityMustBeAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new MessageQueue<>(3));
+        assertThrows(IllegalArgumentException.class, () -> new MessageQueue<>(1));
+        assertEquals(4, new MessageQueue<>(4).getCapacity());
+    }
+
+    @Test
+    void pollsInOfferOrderAndRejectsWhenFull() {
+        MessageQueue<Integer> queue = new MessageQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4));
+        assertEquals(4, queue.getDepth());
+        assertEquals(1, queue.getRejectedCount());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, queue.poll());
+        }
+        assertNull(queue.poll());
+        assertEquals(0, queue.getDepth());
+    }
+
+    @Test
+    void slotsAreReusedAfterWrappingAround() {
+        MessageQueue<Integer> queue = new MessageQueue<>(4);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(queue.offer(i));
+            assertTrue(queue.offer(-i));
+            assertEquals(i, queue.poll());
+            assertEquals(-i, queue.poll());
+        }
+        assertEquals(2000, queue.getOfferedCount());
+        assertEquals(2000, queue.getPolledCount());
+    }
+
+    @Test
+    void drainStopsAtTheBatchSize() {
+        MessageQueue<Integer> queue = new MessageQueue<>(16);
+        for (int i = 0; i < 10; i++) {
+            queue.offer(i);
+        }
+        ArrayList<Integer> drained = new ArrayList<>();
+        assertEquals(4, queue.drain(drained::add, 4));
+        assertEquals(6, queue.drain(drained::add, 100));
+        assertEquals(0, queue.drain(drained::add, 100));
+        assertEquals(10, drained.size());
+        assertEquals(10, queue.getDrainedCount());
+        assertEquals(2, queue.getDrainCount());
+    }
+
+    @Test
+    void measuresHowLongElementsWaited() throws InterruptedException {
+        MessageQueue<Integer> queue = new MessageQueue<>(4);
+        queue.offer(1);
+        Thread.sleep(20);
+        queue.poll();
+        assertTrue(queue.getMaxWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(queue.getMaxWaitNanos(), queue.getTotalWaitNanos());
+    }
+
+    @Test
+    void everyElementOfManyProducersArrivesOnceAndInProducerOrder() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 20_000;
+        MessageQueue<long[]> queue = new MessageQueue<>(64);//small, so producers often find it full
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        ArrayList<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    long[] element = {producer, i};
+                    while (!queue.offer(element)) {
+                        if (System.nanoTime() > deadline) return;
+                        Thread.yield();//let the consumer run even on one core
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        long[] next = new long[producers];
+        int received = 0;
+        while (received < producers * perProducer && System.nanoTime() < deadline) {
+            long[] element = queue.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            int producer = (int) element[0];
+            assertEquals(next[producer], element[1], "producer " + producer + " out of order");
+            next[producer]++;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(producers * perProducer, received);
+        assertNull(queue.poll());
+        assertEquals(producers * perProducer, queue.getOfferedCount());
+    }
+}
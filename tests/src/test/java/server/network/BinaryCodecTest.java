@@ -0,0 +1,356 @@
+package server.network;
+
+import org.junit.jupiter.api.Test;
+import server.models.account.AccountInfo;
+import server.models.map.Position;
+import server.models.message.Message;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryCodecTest {
+    private enum Color {RED, GREEN, BLUE}
+
+    private static class Inner {
+        private String name;
+        private int value;
+
+        private Inner() {
+        }
+
+        private Inner(String name, int value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    private static class Sample {
+        private boolean flag;
+        private int number;
+        private short small;
+        private char letter;
+        private long big;
+        private double ratio;
+        private float part;
+        private String text;
+        private Color color;
+        private Integer boxedInt;
+        private Long boxedLong;
+        private Boolean boxedFlag;
+        private int[] numbers;
+        private double[] ratios;
+        private boolean[] flags;
+        private String[] texts;
+        private Color[] colors;
+        private Inner inner;
+        private Inner[] inners;
+        private ArrayList<String> list;
+        private List<Inner> innerList;
+        private int[][] grid;
+        private transient String skipped;
+    }
+
+    private static class Colliding {//both names fold to tag 737
+        private int field7;
+        private int field20;
+    }
+
+    private static class Counted {
+        private int[] numbers;
+        private ArrayList<String> list;
+        private String text;
+    }
+
+    private static class Unknown {
+        private String text;
+        private String extra;
+        private double other;
+    }
+
+    private static class Known {
+        private String text;
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static Sample fullSample() {
+        Sample sample = new Sample();
+        sample.flag = true;
+        sample.number = -123456;
+        sample.small = -7;
+        sample.letter = 'ق';
+        sample.big = Long.MIN_VALUE;
+        sample.ratio = -0.25;
+        sample.part = 1.5f;
+        sample.text = "سلام " + repeat('x', 300);//a length that needs a two byte varint
+        sample.color = Color.BLUE;
+        sample.boxedInt = -1;
+        sample.boxedLong = Long.MAX_VALUE;
+        sample.boxedFlag = false;
+        sample.numbers = new int[]{0, 1, -1, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        sample.ratios = new double[]{0, -1.5, Double.MAX_VALUE};
+        sample.flags = new boolean[]{true, false, true};
+        sample.texts = new String[]{"a", null, "", "c"};
+        sample.colors = new Color[]{null, Color.RED, Color.GREEN};
+        sample.inner = new Inner("inner", 5);
+        sample.inners = new Inner[]{new Inner("a", 1), null, new Inner(null, 0), new Inner(repeat('y', 200), 2)};
+        sample.list = new ArrayList<>(Arrays.asList("first", null, "third"));
+        sample.innerList = new ArrayList<>(Arrays.asList(null, new Inner("b", -2)));
+        sample.grid = new int[][]{{1, 2}, null, {}, {-3}};
+        sample.skipped = "skipped";
+        return sample;
+    }
+
+    private static void assertInnerEquals(Inner expected, Inner actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertNotNull(actual);
+        assertEquals(expected.name, actual.name);
+        assertEquals(expected.value, actual.value);
+    }
+
+    @Test
+    void everyKindRoundTrips() {
+        Sample sample = fullSample();
+        Sample decoded = BinaryCodec.decode(BinaryCodec.encode(sample), Sample.class);
+        assertTrue(decoded.flag);
+        assertEquals(sample.number, decoded.number);
+        assertEquals(sample.small, decoded.small);
+        assertEquals(sample.letter, decoded.letter);
+        assertEquals(sample.big, decoded.big);
+        assertEquals(sample.ratio, decoded.ratio);
+        assertEquals(sample.part, decoded.part);
+        assertEquals(sample.text, decoded.text);
+        assertEquals(sample.color, decoded.color);
+        assertEquals(sample.boxedInt, decoded.boxedInt);
+        assertEquals(sample.boxedLong, decoded.boxedLong);
+        assertEquals(sample.boxedFlag, decoded.boxedFlag);
+        assertArrayEquals(sample.numbers, decoded.numbers);
+        assertArrayEquals(sample.ratios, decoded.ratios);
+        assertArrayEquals(sample.flags, decoded.flags);
+        assertArrayEquals(sample.texts, decoded.texts);
+        assertArrayEquals(sample.colors, decoded.colors);
+        assertInnerEquals(sample.inner, decoded.inner);
+        assertEquals(sample.inners.length, decoded.inners.length);
+        for (int i = 0; i < sample.inners.length; i++) {
+            assertInnerEquals(sample.inners[i], decoded.inners[i]);
+        }
+        assertEquals(sample.list, decoded.list);
+        assertEquals(sample.innerList.size(), decoded.innerList.size());
+        for (int i = 0; i < sample.innerList.size(); i++) {
+            assertInnerEquals(sample.innerList.get(i), decoded.innerList.get(i));
+        }
+        assertArrayEquals(sample.grid, decoded.grid);
+        assertNull(decoded.skipped);
+    }
+
+    @Test
+    void defaultFieldsAreNotWritten() {
+        assertEquals(0, BinaryCodec.encode(new Sample()).length);
+        Sample decoded = BinaryCodec.decode(new byte[0], Sample.class);
+        assertNull(decoded.text);
+        assertNull(decoded.numbers);
+        assertEquals(0, decoded.number);
+    }
+
+    @Test
+    void nullElementsStayNull() {
+        Sample sample = new Sample();
+        sample.texts = new String[]{null, null};
+        sample.inners = new Inner[]{null};
+        sample.list = new ArrayList<>(Arrays.asList((String) null));
+        sample.grid = new int[][]{null};
+        Sample decoded = BinaryCodec.decode(BinaryCodec.encode(sample), Sample.class);
+        assertArrayEquals(new String[]{null, null}, decoded.texts);
+        assertArrayEquals(new Inner[]{null}, decoded.inners);
+        assertEquals(Arrays.asList((String) null), decoded.list);
+        assertArrayEquals(new int[][]{null}, decoded.grid);
+        //an empty element is not a null one
+        sample.texts = new String[]{""};
+        sample.grid = new int[][]{{}};
+        decoded = BinaryCodec.decode(BinaryCodec.encode(sample), Sample.class);
+        assertArrayEquals(new String[]{""}, decoded.texts);
+        assertArrayEquals(new int[][]{{}}, decoded.grid);
+    }
+
+    @Test
+    void unknownFieldsAreSkipped() {
+        Unknown unknown = new Unknown();
+        unknown.text = "kept";
+        unknown.extra = "dropped";
+        unknown.other = 2.5;
+        Known known = BinaryCodec.decode(BinaryCodec.encode(unknown), Known.class);
+        assertEquals("kept", known.text);
+    }
+
+    @Test
+    void collidingFieldTagsAreRejected() {
+        assertEquals(BinaryCodec.fieldTag("field7"), BinaryCodec.fieldTag("field20"));
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> BinaryCodec.encode(new Colliding()));
+        assertTrue(e.getMessage().contains("field7") && e.getMessage().contains("field20"), e.getMessage());
+    }
+
+    @Test
+    void messageModelsHaveNoTagCollisions() {
+        HashMap<String, HashMap<Integer, String>> tagsBySimpleName = new HashMap<>();
+        HashSet<Class<?>> seen = new HashSet<>();
+        collectModels(server.models.message.Message.class, seen);
+        collectModels(client.models.message.Message.class, seen);
+        for (Class<?> model : seen) {
+            //a class and its counterpart on the other side must agree, or a field of one is read into a field of the other
+            HashMap<Integer, String> tags = tagsBySimpleName.computeIfAbsent(model.getSimpleName(), name -> new HashMap<>());
+            HashMap<Integer, String> ownTags = new HashMap<>();
+            for (Field field : fields(model)) {
+                int tag = BinaryCodec.fieldTag(field.getName());
+                String other = ownTags.put(tag, field.getName());
+                assertNull(other, model.getName() + ": " + field.getName() + ", " + other);
+                other = tags.putIfAbsent(tag, field.getName());
+                assertTrue(other == null || other.equals(field.getName()),
+                        model.getSimpleName() + ": " + field.getName() + ", " + other);
+            }
+        }
+        assertTrue(seen.size() > 10, seen.toString());
+    }
+
+    private static void collectModels(Type type, HashSet<Class<?>> seen) {
+        if (type instanceof GenericArrayType) {
+            collectModels(((GenericArrayType) type).getGenericComponentType(), seen);
+            return;
+        }
+        if (type instanceof ParameterizedType) {
+            for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                collectModels(argument, seen);
+            }
+            collectModels(((ParameterizedType) type).getRawType(), seen);
+            return;
+        }
+        if (!(type instanceof Class)) return;
+        Class<?> raw = (Class<?>) type;
+        if (raw.isArray()) {
+            collectModels(raw.getComponentType(), seen);
+            return;
+        }
+        if (raw.isPrimitive() || raw.isEnum() || raw.getName().startsWith("java.") || !seen.add(raw)) return;
+        for (Field field : fields(raw)) {
+            collectModels(field.getGenericType(), seen);
+        }
+    }
+
+    private static ArrayList<Field> fields(Class<?> model) {
+        ArrayList<Field> fields = new ArrayList<>();
+        for (Class<?> c = model; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    @Test
+    void serverMessageDecodesAsClientMessage() {
+        Message message = Message.makeLeaderBoardCopyMessage("server", "alice",
+                new AccountInfo[]{new AccountInfo("alice", 3), null, new AccountInfo("bob", 0)}, 4, 12, 5, 9);
+        client.models.message.Message decoded = client.models.message.Message.convertBinaryToMessage(message.toBinary());
+        assertEquals(client.models.message.MessageType.LEADERBOARD_COPY, decoded.getMessageType());
+        assertEquals("alice", decoded.getReceiver());
+        assertEquals(9, decoded.getMessageId());
+        assertEquals(4, decoded.getStartRank());
+        assertEquals(12, decoded.getLeaderBoardSize());
+        assertEquals(5, decoded.getRank());
+        client.models.account.AccountInfo[] board = decoded.getLeaderBoard();
+        assertEquals(3, board.length);
+        assertEquals("alice", board[0].getUsername());
+        assertEquals(3, board[0].getWins());
+        assertNull(board[1]);
+        assertEquals("bob", board[2].getUsername());
+        assertEquals(0, board[2].getWins());
+
+        message = Message.makePositionsCopyMessage("server", "alice", new Position[]{new Position(2, 8), new Position(0, 0)}, 1);
+        decoded = client.models.message.Message.convertBinaryToMessage(message.toBinary());
+        assertEquals(2, decoded.getPositions()[0].getRow());
+        assertEquals(8, decoded.getPositions()[0].getColumn());
+        assertEquals(0, decoded.getPositions()[1].getRow());
+    }
+
+    private static byte[] frame(long... varints) {
+        byte[] bytes = new byte[varints.length * 10];
+        int position = 0;
+        for (long value : varints) {
+            while ((value & ~0x7FL) != 0) {
+                bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[position++] = (byte) value;
+        }
+        return Arrays.copyOf(bytes, position);
+    }
+
+    private static long key(String field) {
+        return ((long) BinaryCodec.fieldTag(field) << 3) | 2;
+    }
+
+    @Test
+    void framesBuiltByHandDecode() {
+        Counted counted = BinaryCodec.decode(frame(key("numbers"), 3, 2, 2, 3), Counted.class);
+        assertArrayEquals(new int[]{1, -2}, counted.numbers);
+        counted = BinaryCodec.decode(frame(key("list"), 4, 2, 0, 2, 'a'), Counted.class);
+        assertEquals(Arrays.asList(null, "a"), counted.list);
+    }
+
+    @Test
+    void countsLargerThanTheFrameAreRejected() {
+        //a count of a billion elements must not allocate a billion element array or list
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decode(frame(key("numbers"), 6, 1 << 30, 2, 4, 6, 8, 10), Counted.class));
+        assertTrue(e.getMessage().startsWith("Length Is Out Of Range"), e.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decode(frame(key("list"), 3, 1 << 30, 0, 0), Counted.class));
+    }
+
+    @Test
+    void lengthsLargerThanTheFrameAreRejected() {
+        assertEquals("hi", BinaryCodec.decode(frame(key("text"), 2, 'h', 'i'), Counted.class).text);
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decode(frame(key("text"), 3, 'h', 'i'), Counted.class));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decode(frame(key("numbers"), 1L << 40, 1, 2), Counted.class));
+        //a length delimited field the reader doesn't know is skipped by its length, which is checked too
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decode(frame(key("extra"), 100, 'x'), Known.class));
+        //an element carries its length shifted by one for the null marker
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decode(frame(key("list"), 4, 1, 5, 'a', 'b'), Counted.class));
+    }
+
+    @Test
+    void truncatedFramesFailCleanly() {
+        byte[] bytes = BinaryCodec.encode(fullSample());
+        for (int length = 1; length < bytes.length; length += 7) {
+            byte[] truncated = Arrays.copyOf(bytes, length);
+            try {
+                BinaryCodec.decode(truncated, Sample.class);
+            } catch (RuntimeException expected) {
+                //SocketServer answers a frame it can't decode with an exception, anything else would kill the selector
+            }
+        }
+    }
+}
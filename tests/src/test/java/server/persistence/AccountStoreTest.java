@@ -0,0 +1,220 @@
+package server.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountStoreTest {
+    private static final int FOOTER_MAGIC = 0x41434354;
+
+    @TempDir
+    Path directory;
+
+    private AccountStore open(long segmentSize) throws IOException {
+        return new AccountStore(directory.toString(), segmentSize);
+    }
+
+    private ArrayList<Path> segmentFiles() throws IOException {
+        ArrayList<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(directory)) {
+            stream.filter(path -> path.getFileName().toString().startsWith("segment-")).sorted().forEach(files::add);
+        }
+        return files;
+    }
+
+    private static void overwrite(Path path, long position, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), position);
+        }
+    }
+
+    private static int lastInt(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            channel.read(buffer, channel.size() - 4);
+            return buffer.getInt(0);
+        }
+    }
+
+    @Test
+    void recordsSurviveReopening() throws IOException {
+        AccountStore store = open(1 << 20);
+        store.put("Alice", 3, "{\"a\":1}");
+        store.put("bob", 0, "{\"b\":1}");
+        store.put("alice", 4, "{\"a\":2}");
+        store.sync();
+        store.close();
+
+        store = open(1 << 20);
+        assertEquals(2, store.size());
+        assertEquals("{\"a\":2}", store.get("ALICE"));
+        assertEquals(4, store.getWins("alice"));
+        assertEquals("{\"b\":1}", store.get("bob"));
+        assertNull(store.get("carol"));
+        store.close();
+    }
+
+    @Test
+    void corruptedRecordIsRejected() throws IOException {
+        AccountStore store = open(1 << 20);
+        store.put("alice", 1, "{\"value\":\"aaaa\"}");
+        store.sync();
+        Path segment = segmentFiles().get(0);
+        overwrite(segment, Files.size(segment) - 3, new byte[]{'b'});
+
+        IOException e = assertThrows(IOException.class, () -> store.get("alice"));
+        assertTrue(e.getMessage().contains("Corrupted"), e.getMessage());
+        store.close();
+    }
+
+    @Test
+    void tornTailIsCutOffOnOpen() throws IOException {
+        AccountStore store = open(1 << 20);
+        store.put("alice", 1, "{\"a\":1}");
+        store.put("bob", 2, "{\"b\":1}");
+        store.sync();
+        store.close();
+        Path segment = segmentFiles().get(0);
+        long intact = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(intact - 5);
+        }
+
+        store = open(1 << 20);
+        assertEquals(1, store.size());
+        assertEquals("{\"a\":1}", store.get("alice"));
+        assertFalse(store.contains("bob"));
+        //new records go right after the last intact one
+        store.put("carol", 3, "{\"c\":1}");
+        store.sync();
+        store.close();
+
+        store = open(1 << 20);
+        assertEquals("{\"a\":1}", store.get("alice"));
+        assertEquals("{\"c\":1}", store.get("carol"));
+        assertEquals(3, store.getWins("carol"));
+        store.close();
+    }
+
+    @Test
+    void damagedFooterIsRebuiltFromRecords() throws IOException {
+        AccountStore store = open(256);
+        for (int i = 0; i < 20; i++) {
+            store.put("user" + i, i, "{\"id\":" + i + ",\"padding\":\"xxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxx\"}");
+        }
+        store.sync();
+        store.close();
+        ArrayList<Path> files = segmentFiles();
+        assertTrue(files.size() > 2, "expected sealed segments, got " + files.size());
+        Path sealed = files.get(0);
+        assertEquals(FOOTER_MAGIC, lastInt(sealed));
+        overwrite(sealed, Files.size(sealed) - 4, new byte[4]);
+
+        store = open(256);
+        assertEquals(20, store.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals("{\"id\":" + i + ",\"padding\":\"xxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxx\"}", store.get("user" + i));
+            assertEquals(i, store.getWins("user" + i));
+        }
+        store.close();
+        assertEquals(FOOTER_MAGIC, lastInt(sealed));
+
+        store = open(256);
+        assertEquals(20, store.size());
+        assertEquals(7, store.getWins("user7"));
+        store.close();
+    }
+
+    @Test
+    void compactionKeepsLatestRecords() throws IOException {
+        AccountStore store = open(512);
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 5; i++) {
+                store.put("user" + i, round, "{\"id\":" + i + ",\"round\":" + round + "}");
+            }
+        }
+        store.sync();
+        int before = segmentFiles().size();
+        store.compact();
+        assertTrue(segmentFiles().size() < before, before + " -> " + segmentFiles().size());
+        assertTrue(store.toString().contains("compactions=1"), store.toString());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("{\"id\":" + i + ",\"round\":9}", store.get("user" + i));
+        }
+        store.close();
+
+        store = open(512);
+        assertEquals(5, store.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("{\"id\":" + i + ",\"round\":9}", store.get("user" + i));
+            assertEquals(9, store.getWins("user" + i));
+        }
+        store.close();
+    }
+
+    @Test
+    void readsAndWritesCarryOnDuringCompaction() throws Exception {
+        AccountStore store = open(512);
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 10; i++) {
+                store.put("user" + i, round, "{\"id\":" + i + ",\"round\":" + round + "}");
+            }
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                try {
+                    for (int i = 0; i < 10; i++) {
+                        String json = store.get("user" + i);
+                        if (json == null || !json.startsWith("{\"id\":" + i + ",")) {
+                            failures.add(new AssertionError("user" + i + " -> " + json));
+                        }
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            }
+        });
+        Thread writer = new Thread(() -> {
+            try {
+                for (int round = 20; round < 40 && running.get(); round++) {
+                    store.put("user0", round, "{\"id\":0,\"round\":" + round + "}");
+                }
+            } catch (Throwable t) {
+                failures.add(t);
+            }
+        });
+        reader.start();
+        writer.start();
+        for (int i = 0; i < 5; i++) {
+            store.compact();
+        }
+        writer.join();
+        running.set(false);
+        reader.join();
+        assertTrue(failures.isEmpty(), () -> failures.peek().toString());
+        //an overwrite that raced a copy still wins over the copy
+        assertEquals("{\"id\":0,\"round\":39}", store.get("user0"));
+        assertEquals(39, store.getWins("user0"));
+        store.close();
+
+        AccountStore reopened = open(512);
+        assertEquals(10, reopened.size());
+        assertEquals("{\"id\":0,\"round\":39}", reopened.get("user0"));
+        assertEquals("{\"id\":9,\"round\":19}", reopened.get("user9"));
+        reopened.close();
+    }
+}
@@ -0,0 +1,117 @@
+package server.registry;
+
+import org.junit.jupiter.api.Test;
+import server.models.account.AccountInfo;
+import server.models.sorter.LeaderBoardSorter;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderBoardTest {
+    private final LeaderBoardSorter sorter = new LeaderBoardSorter();
+
+    //the board must always match a plain sorted list
+    private void assertMatches(ArrayList<AccountInfo> expected, LeaderBoard board) {
+        expected.sort(sorter);
+        assertEquals(expected.size(), board.size());
+        assertArrayEquals(expected.toArray(new AccountInfo[0]), board.getPage(1, expected.size() + 1));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i + 1, board.getRank(expected.get(i)), expected.get(i).getUsername());
+        }
+    }
+
+    @Test
+    void tiesAreOrderedBySorterAndRankedApart() {
+        LeaderBoard board = new LeaderBoard();
+        ArrayList<AccountInfo> expected = new ArrayList<>();
+        for (String username : new String[]{"b", "d", "a", "c", "e"}) {
+            AccountInfo info = new AccountInfo(username, 3);
+            board.add(info);
+            expected.add(info);
+        }
+        AccountInfo leader = new AccountInfo("z", 4);
+        board.add(leader);
+        expected.add(leader);
+        assertMatches(expected, board);
+        assertEquals(1, board.getRank(leader));
+        assertEquals(0, board.getRank(new AccountInfo("f", 3)));
+    }
+
+    @Test
+    void replaceMovesTheAccountToItsNewRank() {
+        LeaderBoard board = new LeaderBoard();
+        ArrayList<AccountInfo> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            AccountInfo info = new AccountInfo("user" + i, i);
+            board.add(info);
+            expected.add(info);
+        }
+        AccountInfo last = expected.get(0);
+        assertEquals(10, board.getRank(last));
+        AccountInfo promoted = new AccountInfo(last.getUsername(), 100);
+        board.replace(last, promoted);
+        expected.set(0, promoted);
+        assertEquals(0, board.getRank(last));
+        assertEquals(1, board.getRank(promoted));
+        assertMatches(expected, board);
+
+        AccountInfo joined = new AccountInfo("new", 5);
+        board.replace(null, joined);
+        expected.add(joined);
+        assertMatches(expected, board);
+    }
+
+    @Test
+    void pagesStopAtTheEndOfTheBoard() {
+        LeaderBoard board = new LeaderBoard();
+        ArrayList<AccountInfo> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            AccountInfo info = new AccountInfo("user" + i, i % 3);
+            board.add(info);
+            expected.add(info);
+        }
+        expected.sort(sorter);
+        assertArrayEquals(expected.subList(4, 7).toArray(new AccountInfo[0]), board.getPage(5, 10));
+        assertArrayEquals(expected.subList(6, 7).toArray(new AccountInfo[0]), board.getPage(7, 1));
+        assertEquals(0, board.getPage(8, 10).length);
+        assertEquals(0, board.getPage(0, 10).length);
+        assertEquals(0, board.getPage(1, 0).length);
+        assertEquals(0, new LeaderBoard().getPage(1, 10).length);
+    }
+
+    @Test
+    void randomChangesMatchASortedList() {
+        Random random = new Random(7);
+        LeaderBoard board = new LeaderBoard();
+        ArrayList<AccountInfo> expected = new ArrayList<>();
+        for (int step = 0; step < 2000; step++) {
+            int action = random.nextInt(4);
+            if (expected.isEmpty() || action == 0) {
+                AccountInfo info = new AccountInfo("user" + step, random.nextInt(20));
+                board.add(info);
+                expected.add(info);
+            } else if (action == 1) {
+                AccountInfo info = expected.remove(random.nextInt(expected.size()));
+                board.remove(info);
+            } else {
+                int index = random.nextInt(expected.size());
+                AccountInfo info = expected.get(index);
+                AccountInfo changed = new AccountInfo(info.getUsername(), info.getWins() + random.nextInt(3));
+                board.replace(info, changed);
+                expected.set(index, changed);
+            }
+            if (step % 100 == 0) {
+                assertMatches(expected, board);
+                int start = 1 + random.nextInt(expected.size() + 2);
+                int count = 1 + random.nextInt(10);
+                AccountInfo[] page = board.getPage(start, count);
+                int from = Math.min(start - 1, expected.size());
+                int to = Math.min(from + count, expected.size());
+                assertArrayEquals(expected.subList(from, to).toArray(new AccountInfo[0]), page);
+            }
+        }
+        assertMatches(expected, board);
+    }
+}